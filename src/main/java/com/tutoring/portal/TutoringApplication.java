@@ -2,11 +2,15 @@ package com.tutoring.portal;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main application class.
  */
 @SpringBootApplication
+@EnableScheduling
+@EnableCaching
 public class TutoringApplication {
 
 	public static void main(String[] args) {
@@ -1,6 +1,9 @@
 package com.tutoring.portal.config;
 
 import org.h2.server.web.WebServlet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,13 +14,57 @@ import org.thymeleaf.extras.springsecurity4.dialect.SpringSecurityDialect;
 @Configuration
 public class BeanConfiguration implements WebMvcConfigurer {
 
+    /**
+     * Number of timed hashes when calibrating BCrypt strength, the fastest one is used.
+     */
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(BeanConfiguration.class);
+
     /**
      * BCryptPasswordEncoder bean used for password encoding.
+     * Its strength is calibrated on start, so one hash takes about the target time on this machine.
+     * @param targetMillis target time of one hash in milliseconds
+     * @param minStrength lowest allowed strength
+     * @param maxStrength highest allowed strength
      * @return BCryptPasswordEncoder
      */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(@Value("${password.hashing.target-millis}") long targetMillis,
+                                                 @Value("${password.hashing.min-strength}") int minStrength,
+                                                 @Value("${password.hashing.max-strength}") int maxStrength) {
+        return new BCryptPasswordEncoder(calibrateStrength(targetMillis, minStrength, maxStrength));
+    }
+
+    /**
+     * Returns the highest BCrypt strength between provided limits, whose hash takes at most the target time.
+     * Every strength step doubles hashing time, so only the lowest strength is timed.
+     * @param targetMillis target time of one hash in milliseconds
+     * @param minStrength lowest allowed strength
+     * @param maxStrength highest allowed strength
+     * @return BCrypt strength
+     */
+    static int calibrateStrength(long targetMillis, int minStrength, int maxStrength) {
+        if (maxStrength <= minStrength) {
+            return minStrength;
+        }
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        // first hash includes class loading and JIT warm-up
+        probe.encode("calibration");
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        double millis = fastest / 1_000_000.0;
+        int strength = minStrength;
+        while (strength < maxStrength && millis * 2 <= targetMillis) {
+            strength++;
+            millis *= 2;
+        }
+        logger.info("BCrypt strength calibrated to {}, about {} ms per hash", strength, Math.round(millis));
+        return strength;
     }
 
     /**
@@ -0,0 +1,49 @@
+package com.tutoring.portal.config;
+
+import com.tutoring.portal.dto.UserCredentials;
+import com.tutoring.portal.service.UserService;
+import com.tutoring.portal.util.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Replaces authentication of a user, who has just logged in, with one carrying a {@link UserPrincipal},
+ * so the user isn't looked up by email on every request. The principal is built from credentials cached by login.
+ */
+@Component
+public class LoginSuccessHandler extends SavedRequestAwareAuthenticationSuccessHandler {
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Constructor, redirects to home page unless another page was requested before login.
+     */
+    public LoginSuccessHandler() {
+        setDefaultTargetUrl("/");
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws ServletException, IOException {
+        UserCredentials credentials = userService.getUserCredentials(authentication.getName());
+        if (credentials != null) {
+            UserPrincipal principal = new UserPrincipal(credentials.getId(), credentials.getEmail(),
+                    credentials.getDisplayName(), credentials.getRoles());
+            UsernamePasswordAuthenticationToken principalAuthentication = new UsernamePasswordAuthenticationToken(
+                    principal, null, authentication.getAuthorities());
+            principalAuthentication.setDetails(authentication.getDetails());
+            SecurityContextHolder.getContext().setAuthentication(principalAuthentication);
+        }
+        super.onAuthenticationSuccess(request, response, authentication);
+    }
+}
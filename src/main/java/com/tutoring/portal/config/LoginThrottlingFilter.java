@@ -0,0 +1,149 @@
+package com.tutoring.portal.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tutoring.portal.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits login attempts per client IP and per email before the password is checked, so a burst of attempts
+ * doesn't reach password hashing or the database. Each key has its own token bucket. Buckets not used for the time
+ * they need to refill completely are forgotten. The number of buckets isn't capped, so spraying other keys can't
+ * evict the bucket of an attacked account or IP and reset its limit.
+ */
+@Component
+public class LoginThrottlingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottlingFilter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${login.throttling.ip-capacity}")
+    private int ipCapacity;
+
+    @Value("${login.throttling.ip-refill-seconds}")
+    private long ipRefillSeconds;
+
+    @Value("${login.throttling.account-capacity}")
+    private int accountCapacity;
+
+    @Value("${login.throttling.account-refill-seconds}")
+    private long accountRefillSeconds;
+
+    private Cache<String, TokenBucket> ipBuckets;
+
+    private Cache<String, TokenBucket> accountBuckets;
+
+    private Counter ipThrottled;
+
+    private Counter accountThrottled;
+
+    /**
+     * Creates bucket maps and registers metrics.
+     */
+    @PostConstruct
+    void init() {
+        ipBuckets = createBuckets(ipCapacity, ipRefillSeconds);
+        accountBuckets = createBuckets(accountCapacity, accountRefillSeconds);
+        ipThrottled = Counter.builder("login.throttled").tag("key", "ip")
+                .description("Login attempts rejected before checking the password").register(meterRegistry);
+        accountThrottled = Counter.builder("login.throttled").tag("key", "account")
+                .description("Login attempts rejected before checking the password").register(meterRegistry);
+    }
+
+    /**
+     * Only login form submissions are throttled.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !"/login".equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+        long wait = take(ipBuckets, request.getRemoteAddr(), ipCapacity, ipRefillSeconds, now);
+        if (wait > 0) {
+            ipThrottled.increment();
+            reject(request, response, wait);
+            return;
+        }
+        String email = request.getParameter("email");
+        if (email != null && !email.trim().isEmpty()) {
+            wait = take(accountBuckets, email.trim().toLowerCase(Locale.ROOT), accountCapacity,
+                    accountRefillSeconds, now);
+            if (wait > 0) {
+                accountThrottled.increment();
+                reject(request, response, wait);
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Creates map of buckets, which forgets buckets after the time they need to refill completely.
+     * @param capacity bucket's capacity
+     * @param refillSeconds seconds to get one token back
+     * @return buckets by key
+     */
+    private Cache<String, TokenBucket> createBuckets(int capacity, long refillSeconds) {
+        return Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofSeconds(capacity * refillSeconds))
+                .build();
+    }
+
+    /**
+     * Takes a token from bucket of provided key, creating a full bucket for a new key.
+     * @param buckets buckets by key
+     * @param key IP or email
+     * @param capacity bucket's capacity
+     * @param refillSeconds seconds to get one token back
+     * @param now current time in nanoseconds
+     * @return 0 if token was taken, otherwise time in nanoseconds until a token is available
+     */
+    private long take(Cache<String, TokenBucket> buckets, String key, int capacity, long refillSeconds, long now) {
+        return buckets.get(key, k -> new TokenBucket(capacity, TimeUnit.SECONDS.toNanos(refillSeconds), now))
+                .tryConsume(now);
+    }
+
+    /**
+     * Answers throttled login attempt with 429 and Retry-After.
+     * @param request throttled request
+     * @param response response
+     * @param waitNanos time in nanoseconds until next attempt is allowed
+     */
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        logger.warn("Login attempt from {} throttled for {} seconds", request.getRemoteAddr(), retryAfter);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("Too many login attempts, please try again in " + retryAfter + " seconds.");
+    }
+}
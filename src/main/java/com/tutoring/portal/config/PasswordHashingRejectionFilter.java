@@ -0,0 +1,69 @@
+package com.tutoring.portal.config;
+
+import com.tutoring.portal.service.PasswordHashingRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Answers requests, whose password hashing was rejected because the hashing queue is full, with 503 and Retry-After.
+ * Runs before the security filters, so it covers login as well as registration and password changes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PasswordHashingRejectionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingRejectionFilter.class);
+
+    @Value("${password.hashing.retry-after}")
+    private int retryAfter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } catch (ServletException | RuntimeException e) {
+            if (!isRejection(e) || response.isCommitted()) {
+                throw e;
+            }
+            logger.warn("Password hashing rejected for {} {}", request.getMethod(), request.getRequestURI());
+            // written directly, an error page dispatch would pass security filters and redirect to login
+            response.resetBuffer();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("Too many password checks in progress, please try again in "
+                    + retryAfter + " seconds.");
+        }
+    }
+
+    /**
+     * Checks if provided exception was caused by rejected password hashing.
+     * @param e exception
+     * @return true or false
+     */
+    private boolean isRejection(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PasswordHashingRejectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,18 +1,19 @@
 package com.tutoring.portal.config;
 
+import com.tutoring.portal.service.PasswordHashingService;
+import com.tutoring.portal.service.PortalUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
-import javax.sql.DataSource;
-
 /**
  * Class for security configuration.
  */
@@ -21,27 +22,24 @@ import javax.sql.DataSource;
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
-    private DataSource dataSource;
+    private PortalUserDetailsService userDetailsService;
 
-    @Value("${spring.queries.users-query}")
-    private String usersQuery;
+    @Autowired
+    private LoginSuccessHandler loginSuccessHandler;
 
-    @Value("${spring.queries.roles-query}")
-    private String rolesQuery;
+    @Autowired
+    private LoginThrottlingFilter loginThrottlingFilter;
 
     /**
      * Configures authentication.
      */
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.jdbcAuthentication()
-            .usersByUsernameQuery(usersQuery)
-            .authoritiesByUsernameQuery(rolesQuery)
-            .dataSource(dataSource)
-            .passwordEncoder(bCryptPasswordEncoder);
+        auth.userDetailsService(userDetailsService)
+            .passwordEncoder(passwordHashingService);
     }
 
     /**
@@ -56,19 +54,37 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .antMatchers("/login").permitAll()
             .antMatchers("/registration").permitAll()
             .antMatchers("/consultations/future").permitAll()
+            .antMatchers("/consultations/search").permitAll()
+            .antMatchers("/consultations/near").permitAll()
             .antMatchers("/tutors").permitAll()
             .antMatchers("/subjects").permitAll()
+            .antMatchers("/calendar/**").permitAll()
             .antMatchers("/consultations/add").hasAuthority("TUTOR")
             .antMatchers("/addresses/**").hasAuthority("TUTOR")
-            .antMatchers("/admin/**").hasAuthority("ADMIN").anyRequest()
+            .antMatchers("/admin/**").hasAuthority("ADMIN")
+            .antMatchers("/actuator/**").hasAuthority("ADMIN").anyRequest()
             .authenticated().and().csrf().disable().formLogin()
             .loginPage("/login").failureUrl("/login?error=true")
-            .defaultSuccessUrl("/")
+            .successHandler(loginSuccessHandler)
             .usernameParameter("email")
             .passwordParameter("password")
             .and().logout()
             .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
             .logoutSuccessUrl("/").and().exceptionHandling();
+        http.addFilterBefore(loginThrottlingFilter, UsernamePasswordAuthenticationFilter.class);
+    }
+
+    /**
+     * Keeps login throttling filter out of the servlet filters, it runs only as part of the security filters.
+     * @param filter login throttling filter
+     * @return disabled registration of the filter
+     */
+    @Bean
+    public FilterRegistrationBean<LoginThrottlingFilter> loginThrottlingFilterRegistration(
+            LoginThrottlingFilter filter) {
+        FilterRegistrationBean<LoginThrottlingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
     }
 
     /**
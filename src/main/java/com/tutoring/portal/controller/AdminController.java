@@ -1,16 +1,20 @@
 package com.tutoring.portal.controller;
 
+import com.tutoring.portal.dto.UserSummary;
 import com.tutoring.portal.model.Comment;
 import com.tutoring.portal.model.Subject;
 import com.tutoring.portal.model.User;
 import com.tutoring.portal.service.CommentService;
+import com.tutoring.portal.service.PasswordHashingService;
 import com.tutoring.portal.service.SubjectService;
 import com.tutoring.portal.service.UserService;
+import com.tutoring.portal.service.UtilizationStatisticsService;
 import com.tutoring.portal.util.UserAuthentication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -18,16 +22,22 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
 
 import static com.tutoring.portal.util.CommonConstants.ADMIN_SUBJECTS_VIEW;
 import static com.tutoring.portal.util.CommonConstants.ADMIN_UPDATE_PASSWORD_VIEW;
+import static com.tutoring.portal.util.CommonConstants.DEFAULT_PAGE_SIZE;
 import static com.tutoring.portal.util.CommonConstants.ERROR_404_VIEW;
+import static com.tutoring.portal.util.CommonConstants.PAGE;
 import static com.tutoring.portal.util.CommonConstants.REDIRECT;
+import static com.tutoring.portal.util.CommonConstants.STATISTICS_VIEW;
 import static com.tutoring.portal.util.CommonConstants.SUCCESS_MESSAGE;
 import static com.tutoring.portal.util.CommonConstants.USERS;
 import static com.tutoring.portal.util.CommonConstants.USERS_VIEW;
+import static com.tutoring.portal.util.CommonConstants.USERS_VIEW_URL;
 
 @Controller
 public class AdminController {
@@ -45,20 +55,58 @@ public class AdminController {
     private UserAuthentication userAuthentication;
 
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UtilizationStatisticsService utilizationStatisticsService;
 
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
 
+    private static final int STATISTICS_DAYS = 30;
+
     /**
-     * Returns view with all users.
+     * Returns view with utilization statistics per subject and tutor for provided period,
+     * by default from 30 days ago to 30 days ahead.
      *
+     * @param from first date of the period, optional
+     * @param to last date of the period, optional
+     * @param model a Model object used in the view
+     * @return statistics view
+     */
+    @GetMapping(value = "admin/statistics")
+    public String getStatistics(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                Model model) {
+        LocalDate today = LocalDate.now();
+        LocalDate first = from != null ? from : today.minusDays(STATISTICS_DAYS);
+        LocalDate last = to != null ? to : today.plusDays(STATISTICS_DAYS);
+        logger.info("Searching for utilization statistics from {} to {}", first, last);
+        model.addAttribute("from", first);
+        model.addAttribute("to", last);
+        model.addAttribute("subjectStatistics", utilizationStatisticsService.getSubjectStatistics(first, last));
+        model.addAttribute("tutorStatistics", utilizationStatisticsService.getTutorStatistics(first, last));
+        return STATISTICS_VIEW;
+    }
+
+    /**
+     * Returns view with one page of users.
+     *
+     * @param page page number starting from 0
+     * @param size page size
      * @param model a Model object used in the view
      * @return users view
      */
     @GetMapping(value = "admin/users")
-    public String getAllUsers(Model model) {
-        logger.info("Searching for all users in the database");
-        model.addAttribute("users", userService.getAllUsers());
+    public String getAllUsers(@RequestParam(defaultValue = "0") int page,
+                              @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size, Model model) {
+        logger.info("Searching for users in the database, page {}", page);
+        Page<UserSummary> users = userService.getUsersPage(page, size);
+        // last page may become empty after deletion, show the new last page instead
+        if (!users.hasContent() && users.getTotalPages() > 0) {
+            users = userService.getUsersPage(users.getTotalPages() - 1, size);
+        }
+        model.addAttribute(USERS, users.getContent());
+        model.addAttribute(PAGE, users);
         return USERS_VIEW;
     }
 
@@ -74,16 +122,16 @@ public class AdminController {
     }
 
     /**
-     * Validates provided user, saves it and returns view with all users.
+     * Validates provided user, saves it and redirects to users view.
      * If provided user is invalid, returns view with new user creation form.
      *
      * @param user new user
      * @param result a BindingResult object that holds the result of the validation and binding
-     * @param model a Model object used in the view
-     * @return users view or register-user view, if provided user is invalid
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view or register-user view, if provided user is invalid
      */
     @PostMapping(value = "admin/users/register")
-    public String saveUser(@Valid User user, BindingResult result, Model model) {
+    public String saveUser(@Valid User user, BindingResult result, RedirectAttributes redirectAttributes) {
         // check if user with the same email already exists
         User existingUser = userService.findUserByEmail(user.getEmail());
         if (existingUser != null) {
@@ -98,8 +146,7 @@ public class AdminController {
 
         userService.saveUser(user);
         logger.info("User successfully saved");
-        model.addAttribute("users", userService.getAllUsers());
-        return USERS_VIEW;
+        return redirectToUsers(0, "Successfully saved user " + user.getEmail(), redirectAttributes);
     }
 
     /**
@@ -122,17 +169,18 @@ public class AdminController {
     }
 
     /**
-     * Validates provided user, saves it and returns view with all users.
+     * Validates provided user, saves it and redirects to users view.
      * If provided user is invalid, returns view with user update form.
      *
      * @param id user's ID
      * @param user updated user
      * @param result a BindingResult object that holds the result of the validation and binding
-     * @param model a Model object used in the view
-     * @return users view or update-user view, if provided user is invalid
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view or update-user view, if provided user is invalid
      */
     @PostMapping(value = "admin/users/update/{id}")
-    public String saveUpdatedUser(@PathVariable int id, @Valid User user, BindingResult result, Model model) {
+    public String saveUpdatedUser(@PathVariable int id, @Valid User user, BindingResult result,
+                                  RedirectAttributes redirectAttributes) {
         // check if another user with the same email already exists
         User existingUser = userService.findUserByEmail(user.getEmail());
         if (existingUser != null && existingUser.getId() != id) {
@@ -158,8 +206,7 @@ public class AdminController {
             userAuthentication.updateAuthentication(updatedUser);
         }
 
-        model.addAttribute(USERS, userService.getAllUsers());
-        return USERS_VIEW;
+        return redirectToUsers(0, "Successfully updated user with ID: " + id, redirectAttributes);
     }
 
     /**
@@ -199,7 +246,7 @@ public class AdminController {
             return ERROR_404_VIEW;
         }
         // check if new password matches user's current password
-        if (bCryptPasswordEncoder.matches(newPassword, updatedUser.getPassword())) {
+        if (passwordHashingService.matches(newPassword, updatedUser.getPassword())) {
             model.addAttribute("newPasswordError", "Provided password matches user's current password");
             logger.error("Cannot update password, wrong input");
             return ADMIN_UPDATE_PASSWORD_VIEW;
@@ -225,15 +272,17 @@ public class AdminController {
     }
 
     /**
-     * Deletes user with provided ID and returns view with all users.
+     * Deletes user with provided ID and redirects to users view.
      * If user with provided ID doesn't exist, returns error-404 view.
      *
      * @param id user's ID
-     * @param model a Model object used in the view
-     * @return users view or error-404 view, if provided user's ID is invalid
+     * @param page number of the users page to return to
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view or error-404 view, if provided user's ID is invalid
      */
     @GetMapping(value = "admin/users/delete/{id}")
-    public String deleteUser(@PathVariable int id, Model model) {
+    public String deleteUser(@PathVariable int id, @RequestParam(defaultValue = "0") int page,
+            RedirectAttributes redirectAttributes) {
         User user = userService.getUserById(id);
         // check if user exists
         if (user == null) {
@@ -242,21 +291,21 @@ public class AdminController {
         userService.deleteUser(id);
         String message = "Successfully deleted user with ID: " + id;
         logger.info(message);
-
-        model.addAttribute(USERS, userService.getAllUsers());
-        return USERS_VIEW;
+        return redirectToUsers(page, message, redirectAttributes);
     }
 
     /**
-     * Adds admin role to user with provided ID and returns view with all users.
+     * Adds admin role to user with provided ID and redirects to users view.
      * If user with provided ID doesn't exist, returns error-404 view.
      *
      * @param id user's ID
-     * @param model a Model object used in the view
-     * @return users view or error-404 view, if provided user's ID is invalid
+     * @param page number of the users page to return to
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view or error-404 view, if provided user's ID is invalid
      */
     @GetMapping(value = "admin/users/role/add/admin/{id}")
-    public String addAdminRole(@PathVariable int id, Model model) {
+    public String addAdminRole(@PathVariable int id, @RequestParam(defaultValue = "0") int page,
+            RedirectAttributes redirectAttributes) {
         User user = userService.getUserById(id);
         // check if user exists
         if (user == null) {
@@ -265,21 +314,21 @@ public class AdminController {
         userService.addAdminRole(user);
         String message = "Successfully added admin role to user with ID: " + id;
         logger.info(message);
-
-        model.addAttribute(USERS, userService.getAllUsers());
-        return USERS_VIEW;
+        return redirectToUsers(page, message, redirectAttributes);
     }
 
     /**
-     * Removes admin role from user with provided ID and returns view with all users.
+     * Removes admin role from user with provided ID and redirects to users view.
      * If user with provided ID doesn't exist, returns error-404 view.
      *
      * @param id user's ID
-     * @param model a Model object used in the view
-     * @return users view or error-404 view, if provided user's ID is invalid
+     * @param page number of the users page to return to
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view or error-404 view, if provided user's ID is invalid
      */
     @GetMapping(value = "admin/users/role/remove/admin/{id}")
-    public String removeAdminRole(@PathVariable int id, Model model) {
+    public String removeAdminRole(@PathVariable int id, @RequestParam(defaultValue = "0") int page,
+            RedirectAttributes redirectAttributes) {
         User user = userService.getUserById(id);
         // check if user exists
         if (user == null) {
@@ -288,21 +337,21 @@ public class AdminController {
         userService.removeAdminRole(user);
         String message = "Successfully removed admin role from user with ID: " + id;
         logger.info(message);
-
-        model.addAttribute(USERS, userService.getAllUsers());
-        return USERS_VIEW;
+        return redirectToUsers(page, message, redirectAttributes);
     }
 
     /**
-     * Adds tutor role to user with provided ID and returns view with all users.
+     * Adds tutor role to user with provided ID and redirects to users view.
      * If user with provided ID doesn't exist, returns error-404 view.
      *
      * @param id user's ID
-     * @param model a Model object used in the view
-     * @return users view or error-404 view, if provided user's ID is invalid
+     * @param page number of the users page to return to
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view or error-404 view, if provided user's ID is invalid
      */
     @GetMapping(value = "admin/users/role/add/tutor/{id}")
-    public String addTutorRole(@PathVariable int id, Model model) {
+    public String addTutorRole(@PathVariable int id, @RequestParam(defaultValue = "0") int page,
+            RedirectAttributes redirectAttributes) {
         User user = userService.getUserById(id);
         // check if user exists
         if (user == null) {
@@ -311,44 +360,44 @@ public class AdminController {
         userService.addTutorRole(user);
         String message = "Successfully added tutor role to user with ID: " + id;
         logger.info(message);
-
-        model.addAttribute(USERS, userService.getAllUsers());
-        return USERS_VIEW;
+        return redirectToUsers(page, message, redirectAttributes);
     }
 
     /**
-     * Removes tutor role from user with provided ID and returns view with all users.
+     * Removes tutor role from user with provided ID and redirects to users view.
      * If user with provided ID doesn't exist, returns error-404 view.
      *
      * @param id user's ID
-     * @param model a Model object used in the view
-     * @return users view or error-404 view, if provided user's ID is invalid
+     * @param page number of the users page to return to
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view or error-404 view, if provided user's ID is invalid
      */
     @GetMapping(value = "admin/users/role/remove/tutor/{id}")
-    public String removeTutorRole(@PathVariable int id, Model model) {
+    public String removeTutorRole(@PathVariable int id, @RequestParam(defaultValue = "0") int page,
+            RedirectAttributes redirectAttributes) {
         User user = userService.getUserById(id);
         // check if user exists
         if (user == null) {
             return ERROR_404_VIEW;
         }
         userService.removeTutorRole(user);
-        String message = "Successfully removed admin role from user with ID: " + id;
+        String message = "Successfully removed tutor role from user with ID: " + id;
         logger.info(message);
-
-        model.addAttribute(USERS, userService.getAllUsers());
-        return USERS_VIEW;
+        return redirectToUsers(page, message, redirectAttributes);
     }
 
     /**
-     * Blocks user with provided ID and returns view with all users.
+     * Blocks user with provided ID and redirects to users view.
      * If user with provided ID doesn't exist, returns error-404 view.
      *
      * @param id user's ID
-     * @param model a Model object used in the view
-     * @return users view or error-404 view, if provided user's ID is invalid
+     * @param page number of the users page to return to
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view or error-404 view, if provided user's ID is invalid
      */
     @GetMapping(value = "admin/users/block/{id}")
-    public String blockUser(@PathVariable int id, Model model) {
+    public String blockUser(@PathVariable int id, @RequestParam(defaultValue = "0") int page,
+            RedirectAttributes redirectAttributes) {
         User user = userService.getUserById(id);
         // check if user exists
         if (user == null) {
@@ -357,21 +406,21 @@ public class AdminController {
         userService.blockUser(user);
         String message = "Successfully blocked user with ID: " + id;
         logger.info(message);
-
-        model.addAttribute(USERS, userService.getAllUsers());
-        return USERS_VIEW;
+        return redirectToUsers(page, message, redirectAttributes);
     }
 
     /**
-     * Unblocks user with provided ID and returns view with all users.
+     * Unblocks user with provided ID and redirects to users view.
      * If user with provided ID doesn't exist, returns error-404 view.
      *
      * @param id user's ID
-     * @param model a Model object used in the view
-     * @return users view or error-404 view, if provided user's ID is invalid
+     * @param page number of the users page to return to
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view or error-404 view, if provided user's ID is invalid
      */
     @GetMapping(value = "admin/users/unblock/{id}")
-    public String unblockUser(@PathVariable int id, Model model) {
+    public String unblockUser(@PathVariable int id, @RequestParam(defaultValue = "0") int page,
+            RedirectAttributes redirectAttributes) {
         User user = userService.getUserById(id);
         // check if user exists
         if (user == null) {
@@ -380,9 +429,7 @@ public class AdminController {
         userService.unblockUser(user);
         String message = "Successfully unblocked user with ID: " + id;
         logger.info(message);
-
-        model.addAttribute(USERS, userService.getAllUsers());
-        return USERS_VIEW;
+        return redirectToUsers(page, message, redirectAttributes);
     }
 
     /**
@@ -515,4 +562,18 @@ public class AdminController {
         logger.info(message);
         return REDIRECT + "tutors/" + tutorId + "/comments";
     }
+
+    /**
+     * Returns redirect to provided page of users view with provided success message.
+     *
+     * @param page users page number
+     * @param message success message
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to users view
+     */
+    private String redirectToUsers(int page, String message, RedirectAttributes redirectAttributes) {
+        redirectAttributes.addFlashAttribute(SUCCESS_MESSAGE, message);
+        redirectAttributes.addAttribute(PAGE, page);
+        return REDIRECT + USERS_VIEW_URL;
+    }
 }
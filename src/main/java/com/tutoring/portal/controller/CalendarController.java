@@ -0,0 +1,63 @@
+package com.tutoring.portal.controller;
+
+import com.tutoring.portal.dto.CalendarVersion;
+import com.tutoring.portal.model.User;
+import com.tutoring.portal.service.CalendarService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@Controller
+public class CalendarController {
+
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
+    @Autowired
+    private CalendarService calendarService;
+
+    private static final Logger logger = LoggerFactory.getLogger(CalendarController.class);
+
+    /**
+     * Returns iCalendar feed with consultations created by or registered to by user with provided calendar token.
+     * If calendar wasn't changed since the client's copy, responds with 304 without reading consultations.
+     *
+     * @param token user's calendar token
+     * @param request a WebRequest object used to evaluate conditional request headers
+     * @return streamed iCalendar feed, 304 response if calendar wasn't changed or 404 response if token is invalid
+     */
+    @GetMapping(value = "calendar/{token}.ics")
+    public ResponseEntity<StreamingResponseBody> getCalendar(@PathVariable String token, WebRequest request) {
+        User user = calendarService.findUserByCalendarToken(token);
+        if (user == null) {
+            logger.error("Cannot find calendar, invalid token");
+            return ResponseEntity.notFound().build();
+        }
+        CalendarVersion version = calendarService.getCalendarVersion(user.getId());
+        if (request.checkNotModified(version.getETag(), version.getLastModifiedMillis())) {
+            return null;
+        }
+        int userId = user.getId();
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            calendarService.writeCalendar(userId, writer);
+        };
+        // ETag and Last-Modified headers are already set by the conditional request check
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
+    }
+}
@@ -1,35 +1,71 @@
 package com.tutoring.portal.controller;
 
+import com.tutoring.portal.dto.ConsultationFilter;
+import com.tutoring.portal.dto.ConsultationPage;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.dto.ConsultationVersion;
+import com.tutoring.portal.dto.WeeklyRecurrence;
 import com.tutoring.portal.model.Consultation;
 import com.tutoring.portal.model.User;
+import com.tutoring.portal.service.CalendarService;
+import com.tutoring.portal.service.ConsultationCapacityException;
 import com.tutoring.portal.service.ConsultationService;
+import com.tutoring.portal.service.RegistrationStatus;
+import com.tutoring.portal.service.ScheduleConflict;
 import com.tutoring.portal.service.UserService;
 import com.tutoring.portal.util.UserAuthentication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.tutoring.portal.util.CommonConstants.ADDRESSES;
+import static com.tutoring.portal.util.CommonConstants.ARCHIVED_CONSULTATION_VIEW;
+import static com.tutoring.portal.util.CommonConstants.CALENDAR_URL;
 import static com.tutoring.portal.util.CommonConstants.CONSULTATION;
 import static com.tutoring.portal.util.CommonConstants.CONSULTATIONS;
 import static com.tutoring.portal.util.CommonConstants.CONSULTATIONS_VIEW;
 import static com.tutoring.portal.util.CommonConstants.CONSULTATION_VIEW;
+import static com.tutoring.portal.util.CommonConstants.DEFAULT_PAGE_SIZE;
+import static com.tutoring.portal.util.CommonConstants.DEFAULT_RADIUS_KM;
 import static com.tutoring.portal.util.CommonConstants.ERROR_403_VIEW;
 import static com.tutoring.portal.util.CommonConstants.ERROR_404_VIEW;
 import static com.tutoring.portal.util.CommonConstants.ERROR_CONSULTATION;
+import static com.tutoring.portal.util.CommonConstants.FACETS;
+import static com.tutoring.portal.util.CommonConstants.FILTER;
+import static com.tutoring.portal.util.CommonConstants.NEAR;
+import static com.tutoring.portal.util.CommonConstants.PAGE;
+import static com.tutoring.portal.util.CommonConstants.PAGE_URL;
+import static com.tutoring.portal.util.CommonConstants.RECURRENCE;
+import static com.tutoring.portal.util.CommonConstants.REDIRECT;
+import static com.tutoring.portal.util.CommonConstants.SEARCH_QUERY;
 import static com.tutoring.portal.util.CommonConstants.SUBJECTS;
 import static com.tutoring.portal.util.CommonConstants.SUCCESS_MESSAGE;
 import static com.tutoring.portal.util.CommonConstants.TITLE;
+import static com.tutoring.portal.util.CommonConstants.WAITLIST_POSITION;
 import static com.tutoring.portal.util.CommonConstants.WARNING_MESSAGE;
 
 @Controller
@@ -41,51 +77,138 @@ public class ConsultationController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CalendarService calendarService;
+
     @Autowired
     private UserAuthentication userAuthentication;
 
     private static final Logger logger = LoggerFactory.getLogger(ConsultationController.class);
 
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
     /**
-     * Returns a view with past consultations.
+     * Returns a view with one page of past consultations.
      *
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size page size
      * @param model a Model object used in the view
      * @return consultations view
      */
     @GetMapping(value = "consultations/past")
-    public String getAllPastConsultations(Model model) {
-        logger.info("Searching for all past consultations");
-
-        model.addAttribute(CONSULTATIONS, consultationService.getAllConsultations().stream()
-                // filter list items to contain only past consultations
-                .filter(c -> c.getDateTime().isBefore(LocalDateTime.now()))
-                .collect(Collectors.toList()));
-        model.addAttribute("user", userAuthentication.getCurrentUser());
+    public String getAllPastConsultations(@RequestParam(required = false) String after,
+                                          @RequestParam(required = false) String before,
+                                          @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size, Model model) {
+        logger.info("Searching for past consultations");
+
+        ConsultationPage page = consultationService.getPastConsultationsPage(after, before, size);
+        model.addAttribute(CONSULTATIONS, page.getConsultations());
+        model.addAttribute(PAGE, page);
+        model.addAttribute(PAGE_URL, "/consultations/past");
+        model.addAttribute("user", userAuthentication.getCurrentPrincipal());
         model.addAttribute(TITLE, "Past Consultations");
 
         return CONSULTATIONS_VIEW;
     }
 
     /**
-     * Returns a view with future consultations.
+     * Returns a view with one page of future consultations matching provided filter, with facet counts.
      *
+     * @param filter subject, tutor, city, date range and free seats filters, all optional
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size page size
      * @param model a Model object used in the view
      * @return consultations view
      */
     @GetMapping(value = "consultations/future")
-    public String getAllFutureConsultations(Model model) {
-        logger.info("Searching for all future consultations");
-
-        model.addAttribute(CONSULTATIONS, consultationService.getAllConsultations().stream()
-                // filter list items to contain only future consultations
-                .filter(c -> c.getDateTime().isAfter(LocalDateTime.now()))
-                .collect(Collectors.toList()));
-        model.addAttribute("user", userAuthentication.getCurrentUser());
+    public String getAllFutureConsultations(@ModelAttribute(FILTER) ConsultationFilter filter,
+                                            @RequestParam(required = false) String after,
+                                            @RequestParam(required = false) String before,
+                                            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size, Model model) {
+        logger.info("Searching for future consultations");
+
+        ConsultationPage page = consultationService.getFutureConsultationsPage(filter, after, before, size);
+        model.addAttribute(CONSULTATIONS, page.getConsultations());
+        model.addAttribute(PAGE, page);
+        model.addAttribute(PAGE_URL, filter.toUrl("/consultations/future"));
+        model.addAttribute(FACETS, consultationService.getFutureConsultationFacets(filter));
+        model.addAttribute("user", userAuthentication.getCurrentPrincipal());
         model.addAttribute(TITLE, "Future Consultations");
 
         return CONSULTATIONS_VIEW;
     }
 
+    /**
+     * Returns a view with one page of future consultations within provided radius from provided location,
+     * nearest in time first.
+     *
+     * @param lat latitude in degrees
+     * @param lon longitude in degrees
+     * @param radius radius in kilometers
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size page size
+     * @param model a Model object used in the view
+     * @return consultations view
+     */
+    @GetMapping(value = "consultations/near")
+    public String getConsultationsNear(@RequestParam double lat, @RequestParam double lon,
+                                       @RequestParam(defaultValue = DEFAULT_RADIUS_KM) double radius,
+                                       @RequestParam(required = false) String after,
+                                       @RequestParam(required = false) String before,
+                                       @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size, Model model) {
+        logger.info("Searching for future consultations near provided location");
+
+        model.addAttribute("user", userAuthentication.getCurrentPrincipal());
+        model.addAttribute(NEAR, radius);
+        model.addAttribute(TITLE, "Consultations within " + radius + " km");
+        // check if provided coordinates are valid
+        if (Math.abs(lat) > 90 || Math.abs(lon) > 180 || radius <= 0) {
+            logger.error("Cannot search consultations, invalid location");
+            model.addAttribute(WARNING_MESSAGE, "Please provide a valid location and radius");
+            model.addAttribute(CONSULTATIONS, Collections.emptyList());
+            return CONSULTATIONS_VIEW;
+        }
+        ConsultationPage page = consultationService.getFutureConsultationsNear(lat, lon, radius, after, before, size);
+        model.addAttribute(CONSULTATIONS, page.getConsultations());
+        model.addAttribute(PAGE, page);
+        model.addAttribute(PAGE_URL, UriComponentsBuilder.fromPath("/consultations/near")
+                .queryParam("lat", lat).queryParam("lon", lon).queryParam("radius", radius).toUriString());
+
+        return CONSULTATIONS_VIEW;
+    }
+
+    /**
+     * Returns a view with one page of consultations matching provided search text, most relevant first.
+     *
+     * @param query search text
+     * @param after offset of the page to continue from, optional
+     * @param before offset of the page to go back from, optional
+     * @param size page size
+     * @param model a Model object used in the view
+     * @return consultations view
+     */
+    @GetMapping(value = "consultations/search")
+    public String searchConsultations(@RequestParam(name = "q", defaultValue = "") String query,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(required = false) String before,
+                                      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size, Model model) {
+        logger.info("Searching for consultations matching: {}", query);
+
+        ConsultationPage page = consultationService.searchConsultations(query, after, before, size);
+        model.addAttribute(CONSULTATIONS, page.getConsultations());
+        model.addAttribute(PAGE, page);
+        model.addAttribute(PAGE_URL, UriComponentsBuilder.fromPath("/consultations/search").queryParam("q", query)
+                .build().encode().toUriString());
+        model.addAttribute(SEARCH_QUERY, query);
+        model.addAttribute("user", userAuthentication.getCurrentPrincipal());
+        model.addAttribute(TITLE, "Search Results");
+
+        return CONSULTATIONS_VIEW;
+    }
+
     /**
      * Returns a view with all user's consultations.
      *
@@ -96,47 +219,106 @@ public class ConsultationController {
     public String getUserConsultations(Model model) {
         User user = userAuthentication.getCurrentUser();
         model.addAttribute("user", user);
+        model.addAttribute("dashboard", consultationService.getDashboard(user.getId()));
 
-        // created consultations
-        model.addAttribute("createdConsultationsPast", user.getCreatedConsultations().stream()
-                // filter list items to contain only past consultations
-                .filter(c -> c.getDateTime().isBefore(LocalDateTime.now()))
-                .collect(Collectors.toList()));
-        model.addAttribute("createdConsultationsFuture", user.getCreatedConsultations().stream()
-                // filter list items to contain only future consultations
-                .filter(c -> c.getDateTime().isAfter(LocalDateTime.now()))
-                .collect(Collectors.toList()));
-
-        // registered to consultations
-        model.addAttribute("registeredToConsultationsPast", user.getRegisteredToConsultations().stream()
-                // filter list items to contain only past consultations
-                .filter(c -> c.getDateTime().isBefore(LocalDateTime.now()))
-                .collect(Collectors.toList()));
-        model.addAttribute("registeredToConsultationsFuture", user.getRegisteredToConsultations().stream()
-                // filter list items to contain only future consultations
-                .filter(c -> c.getDateTime().isAfter(LocalDateTime.now()))
-                .collect(Collectors.toList()));
+        // calendar feed
+        model.addAttribute(CALENDAR_URL, ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/calendar/{token}.ics").buildAndExpand(calendarService.getCalendarToken(user)).toUriString());
         return "my-consultations";
     }
 
+    /**
+     * Returns a view with one page of past consultations created by current user.
+     *
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size page size
+     * @param model a Model object used in the view
+     * @return consultations view
+     */
+    @GetMapping(value = "consultations/my-consultations/created")
+    public String getUserCreatedPastConsultations(@RequestParam(required = false) String after,
+                                                  @RequestParam(required = false) String before,
+                                                  @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size,
+                                                  Model model) {
+        User user = userAuthentication.getCurrentUser();
+        ConsultationPage page = consultationService.getPastConsultationsPage(user.getId(), null, after, before, size);
+        model.addAttribute(CONSULTATIONS, page.getConsultations());
+        model.addAttribute(PAGE, page);
+        model.addAttribute(PAGE_URL, "/consultations/my-consultations/created");
+        model.addAttribute("user", user);
+        model.addAttribute(TITLE, "My Past Created Consultations");
+
+        return CONSULTATIONS_VIEW;
+    }
+
+    /**
+     * Returns a view with one page of past consultations current user was registered to.
+     *
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size page size
+     * @param model a Model object used in the view
+     * @return consultations view
+     */
+    @GetMapping(value = "consultations/my-consultations/registered")
+    public String getUserRegisteredPastConsultations(@RequestParam(required = false) String after,
+                                                     @RequestParam(required = false) String before,
+                                                     @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size,
+                                                     Model model) {
+        User user = userAuthentication.getCurrentUser();
+        ConsultationPage page = consultationService.getPastConsultationsPage(null, user.getId(), after, before, size);
+        model.addAttribute(CONSULTATIONS, page.getConsultations());
+        model.addAttribute(PAGE, page);
+        model.addAttribute(PAGE_URL, "/consultations/my-consultations/registered");
+        model.addAttribute("user", user);
+        model.addAttribute(TITLE, "My Past Registered to Consultations");
+
+        return CONSULTATIONS_VIEW;
+    }
+
     /**
      * Returns view with consultation's data or error-404 view, if consultation with provided ID doesn't exist.
      *
+     * If the page wasn't changed since the client's copy, responds with 304 before loading the consultation.
+     *
      * @param id consultation's ID
      * @param model model a Model object used in the view
-     * @return consultation view or error-404 view, if provided ID is invalid
+     * @param request a WebRequest object used to evaluate conditional request headers
+     * @param response a HttpServletResponse object used to set caching headers
+     * @return consultation view, archived-consultation view, error-404 view, if provided ID is invalid,
+     * or null, if the page wasn't modified
      */
     @GetMapping(value = "consultations/{id}")
-    public String getConsultation(@PathVariable int id, Model model) {
+    public String getConsultation(@PathVariable int id, Model model, WebRequest request, HttpServletResponse response) {
         String message = "Searching for consultation wth ID: " + id;
         logger.info(message);
+        ConsultationVersion version = consultationService.getConsultationVersion(id);
+        if (version != null) {
+            User user = userAuthentication.getCurrentUser();
+            // flash messages are shown only once, so pages carrying them are always rendered
+            if (model.asMap().isEmpty() && request.checkNotModified(version.getETag(user.getId(), user.isAdmin()),
+                    version.getLastModifiedMillis())) {
+                return null;
+            }
+            // replaces default no-store header, so browsers keep the page and revalidate it
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        }
         Consultation consultation = consultationService.getConsultationById(id);
-        // check if consultation exists
+        // check if consultation exists, it may have been moved to archive
         if (consultation == null) {
-            return ERROR_404_VIEW;
+            ConsultationSummary archived = consultationService.getArchivedConsultationById(id);
+            if (archived == null) {
+                return ERROR_404_VIEW;
+            }
+            model.addAttribute("user", userAuthentication.getCurrentUser());
+            model.addAttribute(CONSULTATION, archived);
+            return ARCHIVED_CONSULTATION_VIEW;
         }
-        model.addAttribute("user", userAuthentication.getCurrentUser());
+        User user = userAuthentication.getCurrentUser();
+        model.addAttribute("user", user);
         model.addAttribute(CONSULTATION, consultation);
+        model.addAttribute(WAITLIST_POSITION, consultationService.getWaitlistPosition(id, user.getId()));
         return CONSULTATION_VIEW;
     }
 
@@ -152,6 +334,7 @@ public class ConsultationController {
         User user = userAuthentication.getCurrentUser();
         consultation.setTutor(user);
         model.addAttribute(CONSULTATION, consultation);
+        model.addAttribute(RECURRENCE, new WeeklyRecurrence());
         model.addAttribute(SUBJECTS, user.getSubjects());
         model.addAttribute(ADDRESSES, user.getAddresses());
         return "add-consultation";
@@ -159,15 +342,21 @@ public class ConsultationController {
 
     /**
      * Saves consultation and redirects to future consultations view, if provided consultation object is valid.
+     * If recurrence is set, saves a weekly series of consultations instead.
+     * If tutor or address is already booked at provided time, returns add-consultation view.
      * If validation error occurs, returns add-consultation view.
      *
      * @param consultation created Consultation object
      * @param result a BindingResult object that holds the result of the validation and binding
+     * @param recurrence weekly recurrence rule, empty for a single consultation
+     * @param recurrenceResult a BindingResult object that holds the result of recurrence binding
      * @param model a Model object used in the view
      * @return redirect to future consultations view or add-consultation view if validation error occurs
      */
     @PostMapping(value = "consultations/add")
-    public String saveConsultation(@Valid Consultation consultation, BindingResult result, Model model) {
+    public String saveConsultation(@Valid Consultation consultation, BindingResult result,
+                                   @ModelAttribute(RECURRENCE) WeeklyRecurrence recurrence, BindingResult recurrenceResult,
+                                   Model model) {
         if (consultation.getSubject() == null) {
             result.rejectValue("subject", ERROR_CONSULTATION,
                             "Please select a subject from the list");
@@ -180,6 +369,31 @@ public class ConsultationController {
             result.rejectValue("dateTime", ERROR_CONSULTATION,
                             "Please provide future date and time");
         }
+        List<LocalDateTime> dates = expandRecurrence(consultation, recurrence, recurrenceResult, result);
+        if (!result.hasErrors() && dates.size() == 1) {
+            // tutor and address are checked and booked in one transaction
+            try {
+                rejectScheduleConflicts(consultationService.scheduleConsultation(consultation), result);
+            } catch (ConcurrencyFailureException e) {
+                logger.warn("Cannot save consultation, schedule is locked by another change");
+                result.rejectValue("dateTime", ERROR_CONSULTATION,
+                        "Schedule is being changed right now, please try again");
+            }
+        } else if (!result.hasErrors()) {
+            // whole series is checked and booked in one transaction
+            try {
+                List<LocalDateTime> conflicts = consultationService.saveConsultationSeries(consultation, dates);
+                if (!conflicts.isEmpty()) {
+                    result.rejectValue("dateTime", ERROR_CONSULTATION,
+                            "Tutor or address is already booked at: " + conflicts.stream()
+                                    .map(DATE_TIME_FORMATTER::format).collect(Collectors.joining(", ")));
+                }
+            } catch (ConcurrencyFailureException e) {
+                logger.warn("Cannot save consultation series, schedule is locked by another change");
+                result.rejectValue("dateTime", ERROR_CONSULTATION,
+                        "Schedule is being changed right now, please try again");
+            }
+        }
         if (result.hasErrors()) {
             logger.error("Cannot save consultation, wrong input");
             User user = userAuthentication.getCurrentUser();
@@ -187,8 +401,12 @@ public class ConsultationController {
             model.addAttribute(SUBJECTS, user.getSubjects());
             return "add-consultation";
         }
-        consultationService.saveConsultation(consultation);
-        logger.info("Consultation successfully saved");
+        if (dates.size() == 1) {
+            logger.info("Consultation successfully saved");
+        } else {
+            String message = "Series of " + dates.size() + " consultations successfully saved";
+            logger.info(message);
+        }
 
         return "redirect:/consultations/future";
     }
@@ -235,6 +453,9 @@ public class ConsultationController {
      * If provided ID is invalid, returns error-404 view.
      * If user is not consultation's creator and not admin, returns error-403 view.
      * If provided consultation is invalid, returns view with consultation update form.
+     * If maximum number of students is less than number of registered students, returns view with consultation update form.
+     * If consultation was changed after the form was opened, returns the form with its current data.
+     * If tutor or address is already booked at provided time, returns view with consultation update form.
      *
      * @param id consultation's ID
      * @param consultation updated consultation
@@ -282,29 +503,54 @@ public class ConsultationController {
             return "update-consultation";
         }
 
-        consultation.setStudents(oldConsultation.getStudents());
-        consultationService.saveConsultation(consultation);
+        try {
+            // version comes from the form, so changes made since the form was opened are detected,
+            // tutor and address are checked to be free at provided time in the same transaction
+            rejectScheduleConflicts(consultationService.updateConsultation(consultation), result);
+        } catch (ConsultationCapacityException e) {
+            result.rejectValue("maxStudentsNumber", ERROR_CONSULTATION,
+                    "Maximum number of students can't be less than " + e.getRegisteredCount() + " already registered students");
+            User tutor = userService.getUserById(consultation.getTutor().getId());
+            model.addAttribute(ADDRESSES, tutor.getAddresses());
+            model.addAttribute(SUBJECTS, tutor.getSubjects());
+            return "update-consultation";
+        } catch (ConcurrencyFailureException e) {
+            logger.warn("Cannot update consultation with ID {}, it was modified concurrently", id);
+            User tutor = userService.getUserById(consultation.getTutor().getId());
+            model.addAttribute(WARNING_MESSAGE, "Consultation was changed by someone else, please review it and update again");
+            model.addAttribute(CONSULTATION, consultationService.getConsultationById(id));
+            model.addAttribute(ADDRESSES, tutor.getAddresses());
+            model.addAttribute(SUBJECTS, tutor.getSubjects());
+            return "update-consultation";
+        }
+        if (result.hasErrors()) {
+            logger.error("Cannot update consultation, tutor or address is already booked");
+            User tutor = userService.getUserById(consultation.getTutor().getId());
+            model.addAttribute(ADDRESSES, tutor.getAddresses());
+            model.addAttribute(SUBJECTS, tutor.getSubjects());
+            return "update-consultation";
+        }
         String message = "Consultation successfully updated";
         logger.info(message);
 
         model.addAttribute(SUCCESS_MESSAGE, message);
         model.addAttribute("user", userAuthentication.getCurrentUser());
-        model.addAttribute(CONSULTATION, consultation);
+        model.addAttribute(CONSULTATION, consultationService.getConsultationById(id));
         return CONSULTATION_VIEW;
     }
 
     /**
      * Deletes consultation with provided ID.
-     * Returns view with future consultations if deletion was successful.
+     * Redirects to future consultations view if deletion was successful.
      * If consultation with provided ID doesn't exist, returns error-404 view.
      * If current user doesn't have permission to delete this consultation, returns error-403 view.
      *
      * @param id consultation's ID
-     * @param model a Model object used in the view
-     * @return consultations view or error view, if error occurs
+     * @param redirectAttributes a RedirectAttributes object used to pass the success message
+     * @return redirect to consultations view or error view, if error occurs
      */
     @GetMapping(value = "consultations/delete/{id}")
-    public String deleteConsultation(@PathVariable int id, Model model) {
+    public String deleteConsultation(@PathVariable int id, RedirectAttributes redirectAttributes) {
         Consultation consultation = consultationService.getConsultationById(id);
         User currentUser = userAuthentication.getCurrentUser();
 
@@ -321,15 +567,8 @@ public class ConsultationController {
         String message = "Successfully deleted consultation with ID: " + id;
         logger.info(message);
 
-        model.addAttribute(SUCCESS_MESSAGE, message);
-        model.addAttribute("user", currentUser);
-        model.addAttribute(TITLE, "Future Consultations");
-        model.addAttribute(CONSULTATIONS, consultationService.getAllConsultations().stream()
-                // filter list items to contain only future consultations
-                .filter(c -> c.getDateTime().isAfter(LocalDateTime.now()))
-                .collect(Collectors.toList()));
-
-        return CONSULTATIONS_VIEW;
+        redirectAttributes.addFlashAttribute(SUCCESS_MESSAGE, message);
+        return REDIRECT + "consultations/future";
     }
 
     /**
@@ -343,34 +582,33 @@ public class ConsultationController {
     @GetMapping(value = "consultations/register/{id}")
     public String registerUserToConsultation(@PathVariable int id, Model model) {
         User user = userAuthentication.getCurrentUser();
-        Consultation consultation = consultationService.getConsultationById(id);
-        // check if consultation exists
-        if (consultation == null) {
-            return ERROR_404_VIEW;
-        }
-        // check if it is a past consultation
-        if (consultation.getDateTime().isBefore(LocalDateTime.now())) {
-            model.addAttribute(WARNING_MESSAGE, "You cannot register to past consultations");
-        // check if current user is consultation's creator
-        } else if (consultation.getTutor().getId() == user.getId()) {
-            model.addAttribute(WARNING_MESSAGE, "You cannot register to your own consultation");
-        // check if user is already registered to this consultation
-        } else if (consultation.getStudents().contains(user)) {
-            model.addAttribute(WARNING_MESSAGE, "You are already registered to this consultation");
-        // check if maximum students number will be exceeded
-        } else if (consultation.getStudents().size() >= consultation.getMaxStudentsNumber()) {
-            model.addAttribute(WARNING_MESSAGE, "You cannot register to this consultation, maximum number of students will be exceeded");
-        } else {
-            consultation.getStudents().add(user);
-            consultationService.saveConsultation(consultation);
-            String message = "Successfully registered user with ID" + user.getId() + "to consultation with ID: " + id;
-            logger.info(message);
-            model.addAttribute(SUCCESS_MESSAGE, "You have successfully registered to consultation");
+        RegistrationStatus status = consultationService.registerUser(id, user.getId());
+        switch (status) {
+            case NOT_FOUND:
+                return ERROR_404_VIEW;
+            case PAST:
+                model.addAttribute(WARNING_MESSAGE, "You cannot register to past consultations");
+                break;
+            case OWN_CONSULTATION:
+                model.addAttribute(WARNING_MESSAGE, "You cannot register to your own consultation");
+                break;
+            case ALREADY_REGISTERED:
+                model.addAttribute(WARNING_MESSAGE, "You are already registered to this consultation");
+                break;
+            case FULL:
+                model.addAttribute(WARNING_MESSAGE, "You cannot register to this consultation, maximum number of students will be exceeded."
+                        + " You can join the waitlist and you will be registered automatically when a place becomes available");
+                break;
+            case REGISTERED:
+                String message = "Successfully registered user with ID " + user.getId() + " to consultation with ID: " + id;
+                logger.info(message);
+                model.addAttribute(SUCCESS_MESSAGE, "You have successfully registered to consultation");
+                break;
+            default:
+                model.addAttribute(WARNING_MESSAGE, "Consultation is busy right now, please try again");
         }
 
-        model.addAttribute("user", user);
-        model.addAttribute(CONSULTATION, consultation);
-        return CONSULTATION_VIEW;
+        return consultationView(id, user, model);
     }
 
     /**
@@ -384,27 +622,160 @@ public class ConsultationController {
     @GetMapping(value = "consultations/unregister/{id}")
     public String unregisterUserFromConsultation(@PathVariable int id, Model model) {
         User user = userAuthentication.getCurrentUser();
-        Consultation consultation = consultationService.getConsultationById(id);
-        // check if consultation exists
-        if (consultation == null) {
-            return ERROR_404_VIEW;
+        RegistrationStatus status = consultationService.unregisterUser(id, user.getId());
+        switch (status) {
+            case NOT_FOUND:
+                return ERROR_404_VIEW;
+            case PAST:
+                model.addAttribute(WARNING_MESSAGE, "You cannot unregister from past consultations");
+                break;
+            case NOT_REGISTERED:
+                model.addAttribute(WARNING_MESSAGE, "You are not registered to this consultation");
+                break;
+            case UNREGISTERED:
+                String message = "Successfully unregistered user with ID " + user.getId() + " from consultation with ID: " + id;
+                logger.info(message);
+                model.addAttribute(SUCCESS_MESSAGE, "You have successfully unregistered from consultation");
+                break;
+            default:
+                model.addAttribute(WARNING_MESSAGE, "Consultation is busy right now, please try again");
         }
-        // check if it is a past consultation
-        if (consultation.getDateTime().isBefore(LocalDateTime.now())) {
-            model.addAttribute(WARNING_MESSAGE, "You cannot unregister from past consultations");
-        // check if user is registered to this consultation
-        } else if (!consultation.getStudents().contains(user)) {
-            model.addAttribute(WARNING_MESSAGE, "You are not registered to this consultation");
-        } else {
-            consultation.getStudents().remove(user);
-            consultationService.saveConsultation(consultation);
-            String message = "Successfully unregistered user with ID " + user.getId() + " from consultation with ID: " + id;
+
+        return consultationView(id, user, model);
+    }
+
+    /**
+     * Adds user to consultation's waitlist and returns consultation view.
+     * If consultation with provided ID doesn't exist, returns error-404 view.
+     *
+     * @param id consultation's ID
+     * @param model a Model object used in the view
+     * @return consultation view or error-404 view if provided ID is invalid
+     */
+    @GetMapping(value = "consultations/waitlist/join/{id}")
+    public String joinConsultationWaitlist(@PathVariable int id, Model model) {
+        User user = userAuthentication.getCurrentUser();
+        RegistrationStatus status = consultationService.joinWaitlist(id, user.getId());
+        switch (status) {
+            case NOT_FOUND:
+                return ERROR_404_VIEW;
+            case PAST:
+                model.addAttribute(WARNING_MESSAGE, "You cannot join waitlist of past consultations");
+                break;
+            case OWN_CONSULTATION:
+                model.addAttribute(WARNING_MESSAGE, "You cannot join waitlist of your own consultation");
+                break;
+            case ALREADY_REGISTERED:
+                model.addAttribute(WARNING_MESSAGE, "You are already registered to this consultation");
+                break;
+            case ALREADY_WAITLISTED:
+                model.addAttribute(WARNING_MESSAGE, "You are already on the waitlist of this consultation");
+                break;
+            case NOT_FULL:
+                model.addAttribute(WARNING_MESSAGE, "This consultation has available places, you can register to it");
+                break;
+            case WAITLISTED:
+                String message = "User with ID " + user.getId() + " joined waitlist of consultation with ID: " + id;
+                logger.info(message);
+                model.addAttribute(SUCCESS_MESSAGE, "You have joined the waitlist, you will be registered automatically when a place becomes available");
+                break;
+            default:
+                model.addAttribute(WARNING_MESSAGE, "Consultation is busy right now, please try again");
+        }
+
+        return consultationView(id, user, model);
+    }
+
+    /**
+     * Removes user from consultation's waitlist and returns consultation view.
+     * If consultation with provided ID doesn't exist, returns error-404 view.
+     *
+     * @param id consultation's ID
+     * @param model a Model object used in the view
+     * @return consultation view or error-404 view if provided ID is invalid
+     */
+    @GetMapping(value = "consultations/waitlist/leave/{id}")
+    public String leaveConsultationWaitlist(@PathVariable int id, Model model) {
+        User user = userAuthentication.getCurrentUser();
+        if (consultationService.leaveWaitlist(id, user.getId()) == RegistrationStatus.LEFT_WAITLIST) {
+            String message = "User with ID " + user.getId() + " left waitlist of consultation with ID: " + id;
             logger.info(message);
-            model.addAttribute(SUCCESS_MESSAGE, "You have successfully unregistered from consultation");
+            model.addAttribute(SUCCESS_MESSAGE, "You have left the waitlist");
+        } else {
+            model.addAttribute(WARNING_MESSAGE, "You are not on the waitlist of this consultation");
+        }
+
+        return consultationView(id, user, model);
+    }
+
+    /**
+     * Returns start date and time of every consultation to be created from provided consultation and recurrence rule.
+     * Rejects consultation's date and time, if recurrence rule is invalid.
+     *
+     * @param consultation consultation
+     * @param recurrence weekly recurrence rule
+     * @param recurrenceResult a BindingResult object that holds the result of recurrence binding
+     * @param result a BindingResult object that holds the result of the validation and binding
+     * @return date and time list, containing only consultation's date and time, if it is not repeated
+     */
+    private List<LocalDateTime> expandRecurrence(Consultation consultation, WeeklyRecurrence recurrence,
+                                                 BindingResult recurrenceResult, BindingResult result) {
+        if (recurrenceResult.hasErrors()) {
+            result.rejectValue("dateTime", ERROR_CONSULTATION,
+                    "Please provide valid number of occurrences and repeat until date");
+            return Collections.emptyList();
+        }
+        if (result.hasErrors() || !recurrence.isRepeating()) {
+            return Collections.singletonList(consultation.getDateTime());
         }
+        Integer occurrences = recurrence.getOccurrences();
+        if (occurrences != null && (occurrences < 1 || occurrences > WeeklyRecurrence.MAX_OCCURRENCES)) {
+            result.rejectValue("dateTime", ERROR_CONSULTATION,
+                    "Number of occurrences must be between 1 and " + WeeklyRecurrence.MAX_OCCURRENCES);
+            return Collections.emptyList();
+        }
+        if (recurrence.getRepeatUntil() != null && recurrence.getRepeatUntil().isBefore(consultation.getDateTime().toLocalDate())) {
+            result.rejectValue("dateTime", ERROR_CONSULTATION,
+                    "Repeat until date must not be before the first consultation's date");
+            return Collections.emptyList();
+        }
+        return recurrence.expand(consultation.getDateTime());
+    }
 
+    /**
+     * Rejects consultation's date and time or address for provided schedule conflicts.
+     *
+     * @param conflicts schedule conflicts returned by consultation service
+     * @param result a BindingResult object that holds the result of the validation and binding
+     */
+    private void rejectScheduleConflicts(Set<ScheduleConflict> conflicts, BindingResult result) {
+        if (conflicts.contains(ScheduleConflict.TUTOR)) {
+            result.rejectValue("dateTime", ERROR_CONSULTATION,
+                    "Tutor already has another consultation at this time");
+        }
+        if (conflicts.contains(ScheduleConflict.ADDRESS)) {
+            result.rejectValue("address", ERROR_CONSULTATION,
+                    "This address is already booked for another consultation at this time");
+        }
+    }
+
+    /**
+     * Loads consultation after registration change and returns consultation view.
+     * If consultation was deleted in the meantime, returns error-404 view.
+     *
+     * @param id consultation's ID
+     * @param user current user
+     * @param model a Model object used in the view
+     * @return consultation view or error-404 view
+     */
+    private String consultationView(int id, User user, Model model) {
+        Consultation consultation = consultationService.getConsultationById(id);
+        if (consultation == null) {
+            return ERROR_404_VIEW;
+        }
         model.addAttribute("user", user);
         model.addAttribute(CONSULTATION, consultation);
+        model.addAttribute(WAITLIST_POSITION, consultationService.getWaitlistPosition(id, user.getId()));
         return CONSULTATION_VIEW;
     }
 }
@@ -1,5 +1,6 @@
 package com.tutoring.portal.controller;
 
+import com.tutoring.portal.dto.ConsultationPage;
 import com.tutoring.portal.model.Subject;
 import com.tutoring.portal.model.User;
 import com.tutoring.portal.service.ConsultationService;
@@ -9,6 +10,7 @@ import com.tutoring.portal.util.UserAuthentication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,10 +18,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
+import static com.tutoring.portal.util.CommonConstants.DEFAULT_PAGE_SIZE;
+import static com.tutoring.portal.util.CommonConstants.PAGE;
+import static com.tutoring.portal.util.CommonConstants.PAGE_URL;
 import static com.tutoring.portal.util.CommonConstants.SUBJECTS;
 import static com.tutoring.portal.util.CommonConstants.SUBJECTS_VIEW;
 
@@ -54,15 +57,18 @@ public class SubjectController {
     }
 
     /**
-     * Returns view with all tutors who teach subject with provided ID.
+     * Returns view with one page of tutors who teach subject with provided ID.
      * If subject with provided ID doesn't exist, returns error-404 view.
      *
      * @param id subject's ID
+     * @param page page number starting from 0
+     * @param size page size
      * @param model a Model object used in the view
      * @return tutors view or error-404 view, if subject doesn't exist
      */
     @GetMapping(value = "subjects/{id}/tutors")
-    public String getAllTutorsBySubject(@PathVariable int id,  Model model) {
+    public String getAllTutorsBySubject(@PathVariable int id, @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size, Model model) {
         Subject subject = subjectService.getSubjectById(id);
         // return error-404 view if subject with provided ID doesn't exist
         if (subject == null) {
@@ -71,24 +77,29 @@ public class SubjectController {
 
         String message = "Searching for all tutors by subject: " + subject.getSubjectName();
         logger.info(message);
-        model.addAttribute("tutors", userService.getAllUsersWithTutorRole().stream()
-                // filter list items to contain only tutors who teach provided subject
-                .filter(t -> t.getSubjects().contains(subject))
-                .collect(Collectors.toList()));
+        Page<User> tutors = userService.getTutorsPage(id, page, size);
+        model.addAttribute("tutors", tutors.getContent());
+        model.addAttribute(PAGE, tutors);
+        model.addAttribute(PAGE_URL, "/subjects/" + id + "/tutors");
 
         return "tutors";
     }
 
     /**
-     * Returns view with future consultations where subject ID matches provided ID.
+     * Returns view with one page of future consultations where subject ID matches provided ID.
      * If subject with provided ID doesn't exist, returns error-404 view.
      *
      * @param id subject's ID
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size page size
      * @param model a Model object used in the view
      * @return consultations view or error-404 view, if subject doesn't exist
      */
     @GetMapping(value = "subjects/{id}/consultations")
-    public String getAllConsultationsBySubject(@PathVariable int id, Model model) {
+    public String getAllConsultationsBySubject(@PathVariable int id, @RequestParam(required = false) String after,
+                                               @RequestParam(required = false) String before,
+                                               @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size, Model model) {
         Subject subject = subjectService.getSubjectById(id);
         // return error-404 view if subject with provided ID doesn't exist
         if (subject == null) {
@@ -98,11 +109,10 @@ public class SubjectController {
         String message = "Searching for all future consultations by subject: " + subject.getSubjectName();
         logger.info(message);
 
-        model.addAttribute("consultations", consultationService.getAllConsultations().stream()
-                .filter(c -> c.getSubject().getId() == id)
-                // filter list items to contain only future consultations
-                .filter(c -> c.getDateTime().isAfter(LocalDateTime.now()))
-                .collect(Collectors.toList()));
+        ConsultationPage page = consultationService.getFutureConsultationsPage(id, null, after, before, size);
+        model.addAttribute("consultations", page.getConsultations());
+        model.addAttribute(PAGE, page);
+        model.addAttribute(PAGE_URL, "/subjects/" + id + "/consultations");
         model.addAttribute("user", userAuthentication.getCurrentUser());
         model.addAttribute("title", "Future Consultations for " + subject.getSubjectName());
 
@@ -1,27 +1,32 @@
 package com.tutoring.portal.controller;
 
+import com.tutoring.portal.dto.ConsultationPage;
 import com.tutoring.portal.model.Comment;
 import com.tutoring.portal.model.User;
 import com.tutoring.portal.service.CommentService;
+import com.tutoring.portal.service.ConsultationService;
 import com.tutoring.portal.service.UserService;
 import com.tutoring.portal.util.UserAuthentication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.validation.Valid;
-import java.time.LocalDateTime;
-import java.util.stream.Collectors;
 
 import static com.tutoring.portal.util.CommonConstants.COMMENTS_VIEW;
+import static com.tutoring.portal.util.CommonConstants.DEFAULT_PAGE_SIZE;
 import static com.tutoring.portal.util.CommonConstants.ERROR_403_VIEW;
 import static com.tutoring.portal.util.CommonConstants.ERROR_404_VIEW;
+import static com.tutoring.portal.util.CommonConstants.PAGE;
+import static com.tutoring.portal.util.CommonConstants.PAGE_URL;
 
 @Controller
 public class TutorController {
@@ -32,34 +37,48 @@ public class TutorController {
     @Autowired
     private CommentService commentService;
 
+    @Autowired
+    private ConsultationService consultationService;
+
     @Autowired
     private UserAuthentication userAuthentication;
 
     private static final Logger logger = LoggerFactory.getLogger(TutorController.class);
 
     /**
-     * Returns view with all tutors.
+     * Returns view with one page of tutors.
      *
+     * @param page page number starting from 0
+     * @param size page size
      * @param model a Model object used in the view
      * @return tutors view
      */
     @GetMapping(value = "tutors")
-    public String getAllTutors(Model model) {
-        logger.info("Searching for all users with tutor role in the database");
-        model.addAttribute("tutors", userService.getAllUsersWithTutorRole());
+    public String getAllTutors(@RequestParam(defaultValue = "0") int page,
+                               @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size, Model model) {
+        logger.info("Searching for users with tutor role in the database, page {}", page);
+        Page<User> tutors = userService.getTutorsPage(null, page, size);
+        model.addAttribute("tutors", tutors.getContent());
+        model.addAttribute(PAGE, tutors);
+        model.addAttribute(PAGE_URL, "/tutors");
         return "tutors";
     }
 
     /**
-     * Returns view with future consultations where tutor ID matches provided ID.
+     * Returns view with one page of future consultations where tutor ID matches provided ID.
      * If tutor with provided ID doesn't exist, returns error-404 view.
      *
      * @param id tutor's ID
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size page size
      * @param model a Model object used in the view
      * @return consultations view or error-404 view, if tutor with provided ID doesn't exist
      */
     @GetMapping(value = "tutors/{id}/consultations")
-    public String getTutorConsultations(@PathVariable int id,  Model model) {
+    public String getTutorConsultations(@PathVariable int id, @RequestParam(required = false) String after,
+                                        @RequestParam(required = false) String before,
+                                        @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size, Model model) {
         String message = "Searching for tutor wth ID: " + id;
         logger.info(message);
         User tutor = userService.getUserById(id);
@@ -70,10 +89,10 @@ public class TutorController {
         }
 
         model.addAttribute("user", userAuthentication.getCurrentUser());
-        model.addAttribute("consultations", tutor.getCreatedConsultations().stream()
-                // filter list items to contain only future consultations
-                .filter(c -> c.getDateTime().isAfter(LocalDateTime.now()))
-                .collect(Collectors.toList()));
+        ConsultationPage page = consultationService.getFutureConsultationsPage(null, id, after, before, size);
+        model.addAttribute("consultations", page.getConsultations());
+        model.addAttribute(PAGE, page);
+        model.addAttribute(PAGE_URL, "/tutors/" + id + "/consultations");
         model.addAttribute("title", "Future Consultations with " + tutor.getName() + " " + tutor.getSurname());
 
         return "consultations";
@@ -3,12 +3,12 @@ package com.tutoring.portal.controller;
 import com.tutoring.portal.model.Comment;
 import com.tutoring.portal.model.User;
 import com.tutoring.portal.service.CommentService;
+import com.tutoring.portal.service.PasswordHashingService;
 import com.tutoring.portal.service.UserService;
 import com.tutoring.portal.util.UserAuthentication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -39,7 +39,7 @@ public class UserController {
     private UserAuthentication userAuthentication;
 
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
@@ -276,13 +276,13 @@ public class UserController {
     public String saveUpdatedPassword(@RequestParam String oldPassword, @RequestParam String newPassword, Model model) {
         User currentUser = userAuthentication.getCurrentUser();
         // check if provided old password matches user's current password
-        if (!bCryptPasswordEncoder.matches(oldPassword, currentUser.getPassword())) {
+        if (!passwordHashingService.matches(oldPassword, currentUser.getPassword())) {
             model.addAttribute("oldPasswordError", "Provided password does not match your current password");
             logger.error(UPDATE_PASSWORD_ERROR);
             return UPDATE_PASSWORD_VIEW;
         }
         // check if new password matches user's current password
-        if (bCryptPasswordEncoder.matches(newPassword, currentUser.getPassword())) {
+        if (passwordHashingService.matches(newPassword, currentUser.getPassword())) {
             model.addAttribute("newPasswordError", "Provided password matches your current password");
             logger.error(UPDATE_PASSWORD_ERROR);
             return UPDATE_PASSWORD_VIEW;
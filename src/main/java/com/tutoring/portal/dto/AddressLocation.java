@@ -0,0 +1,61 @@
+package com.tutoring.portal.dto;
+
+import com.tutoring.portal.util.Locations;
+
+/**
+ * Coordinates of an address, read from the grid cell index without loading the address.
+ */
+public class AddressLocation {
+
+    private final int id;
+
+    private final double latitude;
+
+    private final double longitude;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     * @param id address ID
+     * @param latitude latitude in degrees
+     * @param longitude longitude in degrees
+     */
+    public AddressLocation(int id, double latitude, double longitude) {
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Returns distance from provided point in kilometers.
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @return distance in kilometers
+     */
+    public double distanceKm(double latitude, double longitude) {
+        return Locations.distanceKm(this.latitude, this.longitude, latitude, longitude);
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for latitude.
+     * @return latitude
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Getter for longitude.
+     * @return longitude
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+}
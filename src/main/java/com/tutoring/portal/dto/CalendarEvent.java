@@ -0,0 +1,125 @@
+package com.tutoring.portal.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model with the consultation data written to iCalendar feeds.
+ */
+public class CalendarEvent {
+
+    private final int id;
+
+    private final LocalDateTime dateTime;
+
+    private final int duration;
+
+    private final String description;
+
+    private final String subjectName;
+
+    private final String tutorName;
+
+    private final String address;
+
+    private final LocalDateTime lastModified;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     * @param id consultation's ID
+     * @param dateTime consultation's date and time
+     * @param duration consultation's duration in minutes
+     * @param description consultation's description
+     * @param subjectName subject's name
+     * @param tutorName tutor's name
+     * @param tutorSurname tutor's surname
+     * @param street address street
+     * @param streetNumber address street number
+     * @param city address city
+     * @param country address country
+     * @param lastModified consultation's last modification date and time
+     */
+    public CalendarEvent(int id, LocalDateTime dateTime, int duration, String description, String subjectName,
+                         String tutorName, String tutorSurname, String street, String streetNumber, String city,
+                         String country, LocalDateTime lastModified) {
+        this.id = id;
+        this.dateTime = dateTime;
+        this.duration = duration;
+        this.description = description;
+        this.subjectName = subjectName;
+        this.tutorName = tutorName + " " + tutorSurname;
+        this.address = street + " " + streetNumber + ", " + city + ", " + country;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for dateTime.
+     * @return dateTime
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Getter for duration.
+     * @return duration
+     */
+    public int getDuration() {
+        return duration;
+    }
+
+    /**
+     * Getter for description.
+     * @return description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Getter for subjectName.
+     * @return subjectName
+     */
+    public String getSubjectName() {
+        return subjectName;
+    }
+
+    /**
+     * Getter for tutorName.
+     * @return tutorName
+     */
+    public String getTutorName() {
+        return tutorName;
+    }
+
+    /**
+     * Getter for address.
+     * @return address
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Getter for lastModified.
+     * @return lastModified
+     */
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns consultation's end date and time.
+     * @return end date and time
+     */
+    public LocalDateTime getEndDateTime() {
+        return dateTime.plusMinutes(duration);
+    }
+}
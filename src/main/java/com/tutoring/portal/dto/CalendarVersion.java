@@ -0,0 +1,58 @@
+package com.tutoring.portal.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Aggregate over consultations in a user's calendar, which changes whenever any of them is added, removed or updated.
+ * Used as a validator for conditional requests, so unchanged feeds are answered without reading consultations.
+ */
+public class CalendarVersion {
+
+    private final long count;
+
+    private final long versionSum;
+
+    private final long idSum;
+
+    private final LocalDateTime lastModified;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     * @param count number of consultations
+     * @param versionSum sum of consultations' versions
+     * @param idSum sum of consultations' IDs
+     * @param lastModified latest modification date and time or null, if there are no consultations
+     */
+    public CalendarVersion(long count, long versionSum, long idSum, LocalDateTime lastModified) {
+        this.count = count;
+        this.versionSum = versionSum;
+        this.idSum = idSum;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Getter for lastModified.
+     * @return lastModified
+     */
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns entity tag of the calendar.
+     * @return quoted entity tag
+     */
+    public String getETag() {
+        return "\"" + Long.toHexString(count) + "-" + Long.toHexString(versionSum) + "-" + Long.toHexString(idSum)
+                + "-" + Long.toHexString(getLastModifiedMillis()) + "\"";
+    }
+
+    /**
+     * Returns latest modification time in milliseconds, or -1, if there are no consultations.
+     * @return milliseconds since the epoch
+     */
+    public long getLastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,104 @@
+package com.tutoring.portal.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Position of a consultation in (DATE_TIME, CONSULTATION_ID) order, used for keyset pagination.
+ */
+public class ConsultationCursor implements Comparable<ConsultationCursor> {
+
+    private static final Comparator<ConsultationCursor> ORDER =
+            Comparator.comparing(ConsultationCursor::getDateTime).thenComparingInt(ConsultationCursor::getId);
+
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime dateTime;
+
+    private final int id;
+
+    /**
+     * Constructor with dateTime and id.
+     * @param dateTime consultation's dateTime
+     * @param id consultation's ID
+     */
+    public ConsultationCursor(LocalDateTime dateTime, int id) {
+        this.dateTime = dateTime;
+        this.id = id;
+    }
+
+    /**
+     * Returns cursor pointing at provided consultation.
+     * @param consultation consultation
+     * @return cursor
+     */
+    public static ConsultationCursor of(ConsultationSummary consultation) {
+        return new ConsultationCursor(consultation.getDateTime(), consultation.getId());
+    }
+
+    /**
+     * Parses cursor from its string form or returns null, if value is empty or malformed.
+     * @param value cursor string, e.g. '2021-12-17T09:30_15'
+     * @return parsed cursor or null
+     */
+    public static ConsultationCursor parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        int separatorIndex = value.lastIndexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            return null;
+        }
+        try {
+            return new ConsultationCursor(LocalDateTime.parse(value.substring(0, separatorIndex)),
+                    Integer.parseInt(value.substring(separatorIndex + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Getter for dateTime.
+     * @return dateTime
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public int compareTo(ConsultationCursor other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConsultationCursor that = (ConsultationCursor) o;
+        return id == that.id && Objects.equals(dateTime, that.dateTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dateTime, id);
+    }
+
+    @Override
+    public String toString() {
+        return dateTime + SEPARATOR + id;
+    }
+}
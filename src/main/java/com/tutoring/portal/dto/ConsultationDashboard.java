@@ -0,0 +1,80 @@
+package com.tutoring.portal.dto;
+
+import java.util.List;
+
+/**
+ * User's consultations split into created and registered to, past and future consultations.
+ */
+public class ConsultationDashboard {
+
+    private final ConsultationPage createdPast;
+
+    private final List<ConsultationSummary> createdFuture;
+
+    private final ConsultationPage registeredPast;
+
+    private final List<ConsultationSummary> registeredFuture;
+
+    /**
+     * Constructor with all fields.
+     * @param createdPast first page of past created consultations, most recent first
+     * @param createdFuture future created consultations, nearest first
+     * @param registeredPast first page of past consultations user was registered to, most recent first
+     * @param registeredFuture future consultations user is registered to, nearest first
+     */
+    public ConsultationDashboard(ConsultationPage createdPast, List<ConsultationSummary> createdFuture,
+                                 ConsultationPage registeredPast, List<ConsultationSummary> registeredFuture) {
+        this.createdPast = createdPast;
+        this.createdFuture = createdFuture;
+        this.registeredPast = registeredPast;
+        this.registeredFuture = registeredFuture;
+    }
+
+    /**
+     * Getter for createdPast.
+     * @return createdPast
+     */
+    public ConsultationPage getCreatedPast() {
+        return createdPast;
+    }
+
+    /**
+     * Getter for createdFuture.
+     * @return createdFuture
+     */
+    public List<ConsultationSummary> getCreatedFuture() {
+        return createdFuture;
+    }
+
+    /**
+     * Getter for registeredPast.
+     * @return registeredPast
+     */
+    public ConsultationPage getRegisteredPast() {
+        return registeredPast;
+    }
+
+    /**
+     * Getter for registeredFuture.
+     * @return registeredFuture
+     */
+    public List<ConsultationSummary> getRegisteredFuture() {
+        return registeredFuture;
+    }
+
+    /**
+     * Checks if user has not created any consultations.
+     * @return true or false
+     */
+    public boolean hasNoCreated() {
+        return createdPast.getConsultations().isEmpty() && createdFuture.isEmpty();
+    }
+
+    /**
+     * Checks if user is not registered to any consultations.
+     * @return true or false
+     */
+    public boolean hasNoRegistered() {
+        return registeredPast.getConsultations().isEmpty() && registeredFuture.isEmpty();
+    }
+}
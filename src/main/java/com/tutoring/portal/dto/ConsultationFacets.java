@@ -0,0 +1,107 @@
+package com.tutoring.portal.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts of filtered consultations by subject, city and tutor.
+ * Counts are accumulated from rows of one grouped query, each row covering one (subject, city, tutor) combination.
+ * Cities are counted by normalized city key, so different spellings of one city share a facet.
+ */
+public class ConsultationFacets {
+
+    private final Map<String, FacetCount> subjects = new LinkedHashMap<>();
+
+    private final Map<String, FacetCount> cities = new LinkedHashMap<>();
+
+    private final Map<String, FacetCount> tutors = new LinkedHashMap<>();
+
+    private long total;
+
+    private long withFreeSeats;
+
+    /**
+     * Adds one grouped row to the counts.
+     * @param subjectId subject's ID
+     * @param subjectName subject's name
+     * @param cityKey normalized city key
+     * @param city city
+     * @param tutorId tutor's ID
+     * @param tutorName tutor's full name
+     * @param count number of consultations in the group
+     * @param freeSeatsCount number of consultations with free seats in the group
+     */
+    public void add(int subjectId, String subjectName, String cityKey, String city, int tutorId, String tutorName,
+                    long count, long freeSeatsCount) {
+        add(subjects, String.valueOf(subjectId), subjectName, count);
+        cities.computeIfAbsent(cityKey, key -> new FacetCount(city, city, 0)).add(count);
+        add(tutors, String.valueOf(tutorId), tutorName, count);
+        total += count;
+        withFreeSeats += freeSeatsCount;
+    }
+
+    /**
+     * Getter for subjects.
+     * @return subject counts, largest first
+     */
+    public List<FacetCount> getSubjects() {
+        return sorted(subjects);
+    }
+
+    /**
+     * Getter for cities.
+     * @return city counts, largest first
+     */
+    public List<FacetCount> getCities() {
+        return sorted(cities);
+    }
+
+    /**
+     * Getter for tutors.
+     * @return tutor counts, largest first
+     */
+    public List<FacetCount> getTutors() {
+        return sorted(tutors);
+    }
+
+    /**
+     * Getter for total.
+     * @return total
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Getter for withFreeSeats.
+     * @return withFreeSeats
+     */
+    public long getWithFreeSeats() {
+        return withFreeSeats;
+    }
+
+    /**
+     * Adds count to facet value.
+     * @param facet facet counts by value
+     * @param value facet value
+     * @param label displayed name
+     * @param count number of consultations
+     */
+    private void add(Map<String, FacetCount> facet, String value, String label, long count) {
+        facet.computeIfAbsent(value, key -> new FacetCount(value, label, 0)).add(count);
+    }
+
+    /**
+     * Returns facet counts, largest first, then by name.
+     * @param facet facet counts by value
+     * @return sorted counts
+     */
+    private List<FacetCount> sorted(Map<String, FacetCount> facet) {
+        List<FacetCount> counts = new ArrayList<>(facet.values());
+        counts.sort(Comparator.comparingLong(FacetCount::getCount).reversed().thenComparing(FacetCount::getLabel));
+        return counts;
+    }
+}
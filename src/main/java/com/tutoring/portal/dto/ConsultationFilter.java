@@ -0,0 +1,175 @@
+package com.tutoring.portal.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters of the consultation listing. Unset filters match every consultation.
+ */
+public class ConsultationFilter {
+
+    private Integer subjectId;
+
+    private Integer tutorId;
+
+    private String city;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private boolean freeSeats;
+
+    /**
+     * Checks if any filter is set.
+     * @return true or false
+     */
+    public boolean isActive() {
+        return subjectId != null || tutorId != null || hasExtendedFilters();
+    }
+
+    /**
+     * Checks if any filter other than subject and tutor is set.
+     * Listings filtered only by subject and tutor can be answered by the upcoming consultations index.
+     * @return true or false
+     */
+    public boolean hasExtendedFilters() {
+        return hasCity() || from != null || to != null || freeSeats;
+    }
+
+    /**
+     * Checks if city filter is set.
+     * @return true or false
+     */
+    public boolean hasCity() {
+        return city != null && !city.isEmpty();
+    }
+
+    /**
+     * Returns listing URL with this filter's query parameters.
+     * @param path listing path
+     * @return URL
+     */
+    public String toUrl(String path) {
+        UriComponentsBuilder url = UriComponentsBuilder.fromPath(path);
+        if (subjectId != null) {
+            url.queryParam("subjectId", subjectId);
+        }
+        if (tutorId != null) {
+            url.queryParam("tutorId", tutorId);
+        }
+        if (hasCity()) {
+            url.queryParam("city", city);
+        }
+        if (from != null) {
+            url.queryParam("from", from);
+        }
+        if (to != null) {
+            url.queryParam("to", to);
+        }
+        if (freeSeats) {
+            url.queryParam("freeSeats", true);
+        }
+        return url.build().encode().toUriString();
+    }
+
+    /**
+     * Getter for subjectId.
+     * @return subjectId
+     */
+    public Integer getSubjectId() {
+        return subjectId;
+    }
+
+    /**
+     * Setter for subjectId.
+     * @param subjectId new subjectId
+     */
+    public void setSubjectId(Integer subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    /**
+     * Getter for tutorId.
+     * @return tutorId
+     */
+    public Integer getTutorId() {
+        return tutorId;
+    }
+
+    /**
+     * Setter for tutorId.
+     * @param tutorId new tutorId
+     */
+    public void setTutorId(Integer tutorId) {
+        this.tutorId = tutorId;
+    }
+
+    /**
+     * Getter for city.
+     * @return city
+     */
+    public String getCity() {
+        return city;
+    }
+
+    /**
+     * Setter for city.
+     * @param city new city
+     */
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    /**
+     * Getter for from.
+     * @return from
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Setter for from.
+     * @param from new from
+     */
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    /**
+     * Getter for to.
+     * @return to
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Setter for to.
+     * @param to new to
+     */
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    /**
+     * Getter for freeSeats.
+     * @return freeSeats
+     */
+    public boolean isFreeSeats() {
+        return freeSeats;
+    }
+
+    /**
+     * Setter for freeSeats.
+     * @param freeSeats new freeSeats
+     */
+    public void setFreeSeats(boolean freeSeats) {
+        this.freeSeats = freeSeats;
+    }
+}
@@ -0,0 +1,79 @@
+package com.tutoring.portal.dto;
+
+import java.util.List;
+
+/**
+ * One page of consultations with cursors pointing to the neighbouring pages.
+ */
+public class ConsultationPage {
+
+    private final List<ConsultationSummary> consultations;
+
+    private final String previousCursor;
+
+    private final String nextCursor;
+
+    private final int size;
+
+    /**
+     * Constructor with all fields.
+     * @param consultations consultations on this page, in display order
+     * @param previousCursor cursor of the previous page or null, if this is the first page
+     * @param nextCursor cursor of the next page or null, if this is the last page
+     * @param size page size
+     */
+    public ConsultationPage(List<ConsultationSummary> consultations, String previousCursor, String nextCursor, int size) {
+        this.consultations = consultations;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+        this.size = size;
+    }
+
+    /**
+     * Getter for consultations.
+     * @return consultations
+     */
+    public List<ConsultationSummary> getConsultations() {
+        return consultations;
+    }
+
+    /**
+     * Getter for previousCursor.
+     * @return previousCursor
+     */
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    /**
+     * Getter for nextCursor.
+     * @return nextCursor
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Getter for size.
+     * @return size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Checks if there is a previous page.
+     * @return true or false
+     */
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    /**
+     * Checks if there is a next page.
+     * @return true or false
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tutoring.portal.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time interval occupied by a consultation, used for overlap checks.
+ */
+public class ConsultationSlot {
+
+    private final int id;
+
+    private final LocalDateTime dateTime;
+
+    private final int duration;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     * @param id consultation's ID
+     * @param dateTime consultation's date and time
+     * @param duration consultation's duration in minutes
+     */
+    public ConsultationSlot(int id, LocalDateTime dateTime, int duration) {
+        this.id = id;
+        this.dateTime = dateTime;
+        this.duration = duration;
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for dateTime.
+     * @return dateTime
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Getter for duration.
+     * @return duration
+     */
+    public int getDuration() {
+        return duration;
+    }
+
+    /**
+     * Checks if slot overlaps with provided half-open interval.
+     * @param start interval's start
+     * @param end interval's end
+     * @return true or false
+     */
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return dateTime.isBefore(end) && dateTime.plusMinutes(duration).isAfter(start);
+    }
+}
@@ -0,0 +1,173 @@
+package com.tutoring.portal.dto;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Read model with the consultation data shown in consultation tables.
+ * Filled by a single repository query, so rendering it doesn't touch lazy associations.
+ */
+public class ConsultationSummary {
+
+    private final int id;
+
+    private final LocalDateTime dateTime;
+
+    private final String description;
+
+    private final int maxStudentsNumber;
+
+    private final int registeredCount;
+
+    private final int subjectId;
+
+    private final String subjectName;
+
+    private final int tutorId;
+
+    private final String tutorName;
+
+    private final String address;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     * @param id consultation's ID
+     * @param dateTime consultation's date and time
+     * @param description consultation's description
+     * @param maxStudentsNumber maximum number of students
+     * @param registeredCount number of registered students
+     * @param subjectId subject's ID
+     * @param subjectName subject's name
+     * @param tutorId tutor's ID
+     * @param tutorName tutor's name
+     * @param tutorSurname tutor's surname
+     * @param street address street
+     * @param streetNumber address street number
+     * @param city address city
+     * @param country address country
+     */
+    public ConsultationSummary(int id, LocalDateTime dateTime, String description, int maxStudentsNumber,
+                               int registeredCount, int subjectId, String subjectName, int tutorId,
+                               String tutorName, String tutorSurname, String street, String streetNumber,
+                               String city, String country) {
+        this.id = id;
+        this.dateTime = dateTime;
+        this.description = description;
+        this.maxStudentsNumber = maxStudentsNumber;
+        this.registeredCount = registeredCount;
+        this.subjectId = subjectId;
+        this.subjectName = subjectName;
+        this.tutorId = tutorId;
+        this.tutorName = tutorName + " " + tutorSurname;
+        this.address = street + " " + streetNumber + ", " + city + ", " + country;
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for dateTime.
+     * @return dateTime
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Getter for description.
+     * @return description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Getter for maxStudentsNumber.
+     * @return maxStudentsNumber
+     */
+    public int getMaxStudentsNumber() {
+        return maxStudentsNumber;
+    }
+
+    /**
+     * Getter for registeredCount.
+     * @return registeredCount
+     */
+    public int getRegisteredCount() {
+        return registeredCount;
+    }
+
+    /**
+     * Returns number of places which are still available.
+     * @return available places
+     */
+    public int getAvailablePlaces() {
+        return maxStudentsNumber - registeredCount;
+    }
+
+    /**
+     * Getter for subjectId.
+     * @return subjectId
+     */
+    public int getSubjectId() {
+        return subjectId;
+    }
+
+    /**
+     * Getter for subjectName.
+     * @return subjectName
+     */
+    public String getSubjectName() {
+        return subjectName;
+    }
+
+    /**
+     * Getter for tutorId.
+     * @return tutorId
+     */
+    public int getTutorId() {
+        return tutorId;
+    }
+
+    /**
+     * Getter for tutorName.
+     * @return tutor's name and surname
+     */
+    public String getTutorName() {
+        return tutorName;
+    }
+
+    /**
+     * Getter for address.
+     * @return formatted address
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConsultationSummary that = (ConsultationSummary) o;
+        return id == that.id && maxStudentsNumber == that.maxStudentsNumber
+                && registeredCount == that.registeredCount && subjectId == that.subjectId && tutorId == that.tutorId
+                && Objects.equals(dateTime, that.dateTime) && Objects.equals(description, that.description)
+                && Objects.equals(subjectName, that.subjectName) && Objects.equals(tutorName, that.tutorName)
+                && Objects.equals(address, that.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, dateTime, registeredCount);
+    }
+}
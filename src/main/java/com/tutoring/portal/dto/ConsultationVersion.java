@@ -0,0 +1,87 @@
+package com.tutoring.portal.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+
+/**
+ * Version of consultation's detail page, read with one projection query instead of the whole entity graph.
+ * Besides consultation's own version, it covers subject, tutor and address data shown on the page,
+ * which may change without touching the consultation.
+ */
+public class ConsultationVersion {
+
+    private final int id;
+
+    private final int version;
+
+    private final LocalDateTime lastModified;
+
+    private final int detailsHash;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     * @param id consultation's ID
+     * @param version consultation's version
+     * @param lastModified consultation's last modification date and time
+     * @param subjectName subject's name
+     * @param tutorName tutor's name
+     * @param tutorSurname tutor's surname
+     * @param street address street
+     * @param streetNumber address street number
+     * @param city address city
+     * @param country address country
+     */
+    public ConsultationVersion(int id, int version, LocalDateTime lastModified, String subjectName, String tutorName,
+                               String tutorSurname, String street, String streetNumber, String city, String country) {
+        this.id = id;
+        this.version = version;
+        this.lastModified = lastModified;
+        this.detailsHash = Objects.hash(subjectName, tutorName, tutorSurname, street, streetNumber, city, country);
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for version.
+     * @return version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Getter for lastModified.
+     * @return lastModified
+     */
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns weak entity tag of the page rendered for provided viewer.
+     * The page shows different actions to the tutor, administrators and other users, so viewer is part of the tag.
+     * @param viewerId viewing user's ID
+     * @param viewerIsAdmin whether viewing user is administrator
+     * @return weak entity tag
+     */
+    public String getETag(int viewerId, boolean viewerIsAdmin) {
+        return "W/\"" + Integer.toHexString(id) + "-" + Integer.toHexString(version) + "-"
+                + Long.toHexString(getLastModifiedMillis()) + "-" + Integer.toHexString(detailsHash) + "-"
+                + Integer.toHexString(viewerId) + (viewerIsAdmin ? "-a" : "") + "\"";
+    }
+
+    /**
+     * Returns last modification time in milliseconds.
+     * @return milliseconds since the epoch
+     */
+    public long getLastModifiedMillis() {
+        return lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
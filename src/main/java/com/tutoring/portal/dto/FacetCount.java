@@ -0,0 +1,57 @@
+package com.tutoring.portal.dto;
+
+/**
+ * Number of filtered consultations sharing one value of a facet, e.g. one subject or one city.
+ */
+public class FacetCount {
+
+    private final String value;
+
+    private final String label;
+
+    private long count;
+
+    /**
+     * Constructor with all fields.
+     * @param value filter value, e.g. subject's ID
+     * @param label displayed name
+     * @param count number of consultations
+     */
+    public FacetCount(String value, String label, long count) {
+        this.value = value;
+        this.label = label;
+        this.count = count;
+    }
+
+    /**
+     * Getter for value.
+     * @return value
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Getter for label.
+     * @return label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Getter for count.
+     * @return count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Adds provided number of consultations to the count.
+     * @param count number of consultations
+     */
+    void add(long count) {
+        this.count += count;
+    }
+}
@@ -0,0 +1,93 @@
+package com.tutoring.portal.dto;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * User's credentials, state and role names needed to authenticate the user.
+ * Immutable, so it can be cached and shared between logins.
+ */
+public class UserCredentials implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+
+    private final String email;
+
+    private final String password;
+
+    private final boolean active;
+
+    private final String displayName;
+
+    private final Set<String> roles;
+
+    /**
+     * Constructor with all fields.
+     * @param id user's ID
+     * @param email user's email
+     * @param password user's encoded password
+     * @param active true if user is active, false if user is blocked
+     * @param displayName user's name and surname
+     * @param roles user's role names
+     */
+    public UserCredentials(int id, String email, String password, boolean active, String displayName,
+                           Set<String> roles) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.active = active;
+        this.displayName = displayName;
+        this.roles = Collections.unmodifiableSet(roles);
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for email.
+     * @return email
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Getter for password.
+     * @return password
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Getter for active.
+     * @return active
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Getter for displayName.
+     * @return displayName
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Getter for roles.
+     * @return roles
+     */
+    public Set<String> getRoles() {
+        return roles;
+    }
+}
@@ -0,0 +1,102 @@
+package com.tutoring.portal.dto;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Row of the admin users listing, read without loading users' relationships.
+ */
+public class UserSummary {
+
+    private final int id;
+
+    private final String name;
+
+    private final String surname;
+
+    private final String email;
+
+    private final int active;
+
+    private final Set<String> roles = new HashSet<>();
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     * @param id user's ID
+     * @param name user's name
+     * @param surname user's surname
+     * @param email user's email
+     * @param active 1 if user is active, 0 if user is blocked
+     */
+    public UserSummary(int id, String name, String surname, String email, int active) {
+        this.id = id;
+        this.name = name;
+        this.surname = surname;
+        this.email = email;
+        this.active = active;
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for name.
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for surname.
+     * @return surname
+     */
+    public String getSurname() {
+        return surname;
+    }
+
+    /**
+     * Getter for email.
+     * @return email
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Getter for active.
+     * @return active
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Adds provided role to user's roles.
+     * @param role role name
+     */
+    public void addRole(String role) {
+        roles.add(role);
+    }
+
+    /**
+     * Checks if user has admin role.
+     * @return true or false
+     */
+    public boolean isAdmin() {
+        return roles.contains("ADMIN");
+    }
+
+    /**
+     * Checks if user has tutor role.
+     * @return true or false
+     */
+    public boolean isTutor() {
+        return roles.contains("TUTOR");
+    }
+}
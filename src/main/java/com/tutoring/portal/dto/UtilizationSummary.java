@@ -0,0 +1,132 @@
+package com.tutoring.portal.dto;
+
+/**
+ * Utilization totals of one subject or tutor over a period, summed from the utilization statistics table.
+ */
+public class UtilizationSummary {
+
+    private final int id;
+
+    private final String name;
+
+    private final long slots;
+
+    private final long fullSlots;
+
+    private final long capacity;
+
+    private final long registrations;
+
+    private final long cancelled;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     * @param id subject's or tutor's ID
+     * @param name subject's or tutor's name
+     * @param slots number of consultations
+     * @param fullSlots number of consultations with all places taken
+     * @param capacity number of places
+     * @param registrations number of registrations
+     * @param cancelled number of cancelled consultations
+     */
+    public UtilizationSummary(int id, String name, long slots, long fullSlots, long capacity, long registrations,
+                              long cancelled) {
+        this.id = id;
+        this.name = name;
+        this.slots = slots;
+        this.fullSlots = fullSlots;
+        this.capacity = capacity;
+        this.registrations = registrations;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Returns percentage of places taken.
+     * @return fill rate in percent
+     */
+    public long getFillRate() {
+        return percentage(registrations, capacity);
+    }
+
+    /**
+     * Returns percentage of consultations with all places taken, a measure of unmet demand.
+     * @return full consultations in percent
+     */
+    public long getFullRate() {
+        return percentage(fullSlots, slots);
+    }
+
+    /**
+     * Returns percentage of consultations cancelled by tutors.
+     * @return cancellation rate in percent
+     */
+    public long getCancellationRate() {
+        return percentage(cancelled, slots + cancelled);
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for name.
+     * @return name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for slots.
+     * @return slots
+     */
+    public long getSlots() {
+        return slots;
+    }
+
+    /**
+     * Getter for fullSlots.
+     * @return fullSlots
+     */
+    public long getFullSlots() {
+        return fullSlots;
+    }
+
+    /**
+     * Getter for capacity.
+     * @return capacity
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Getter for registrations.
+     * @return registrations
+     */
+    public long getRegistrations() {
+        return registrations;
+    }
+
+    /**
+     * Getter for cancelled.
+     * @return cancelled
+     */
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns rounded percentage of part in total or 0, if total is 0.
+     * @param part part
+     * @param total total
+     * @return percentage
+     */
+    private static long percentage(long part, long total) {
+        return total == 0 ? 0 : Math.round(100.0 * part / total);
+    }
+}
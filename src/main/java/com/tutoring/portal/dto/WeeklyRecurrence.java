@@ -0,0 +1,81 @@
+package com.tutoring.portal.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule repeating a consultation every week, limited by number of occurrences, by end date or by both.
+ */
+public class WeeklyRecurrence {
+
+    /**
+     * Maximum number of consultations created from one rule.
+     */
+    public static final int MAX_OCCURRENCES = 52;
+
+    private Integer occurrences;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate repeatUntil;
+
+    /**
+     * Checks if rule has any limit set, i.e. if consultation should be repeated at all.
+     * @return true or false
+     */
+    public boolean isRepeating() {
+        return occurrences != null || repeatUntil != null;
+    }
+
+    /**
+     * Returns start date and time of every consultation in the series, beginning with provided one.
+     * @param first first consultation's date and time
+     * @return date and time list in ascending order
+     */
+    public List<LocalDateTime> expand(LocalDateTime first) {
+        int limit = occurrences == null ? MAX_OCCURRENCES : Math.min(occurrences, MAX_OCCURRENCES);
+        List<LocalDateTime> dates = new ArrayList<>();
+        for (LocalDateTime date = first; dates.size() < limit; date = date.plusWeeks(1)) {
+            if (repeatUntil != null && date.toLocalDate().isAfter(repeatUntil)) {
+                break;
+            }
+            dates.add(date);
+        }
+        return dates;
+    }
+
+    /**
+     * Getter for occurrences.
+     * @return occurrences
+     */
+    public Integer getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * Setter for occurrences.
+     * @param occurrences new occurrences
+     */
+    public void setOccurrences(Integer occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    /**
+     * Getter for repeatUntil.
+     * @return repeatUntil
+     */
+    public LocalDate getRepeatUntil() {
+        return repeatUntil;
+    }
+
+    /**
+     * Setter for repeatUntil.
+     * @param repeatUntil new repeatUntil
+     */
+    public void setRepeatUntil(LocalDate repeatUntil) {
+        this.repeatUntil = repeatUntil;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tutoring.portal.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Published when consultation is deleted, with students who were registered to it.
+ */
+public class ConsultationCancelled extends ConsultationEvent {
+
+    private final List<Integer> studentIds;
+
+    /**
+     * Constructor for an event, which occurred now.
+     * @param consultationId consultation's ID
+     * @param tutorId tutor's ID
+     * @param studentIds IDs of students registered to the consultation
+     */
+    public ConsultationCancelled(int consultationId, int tutorId, List<Integer> studentIds) {
+        this(consultationId, tutorId, studentIds, LocalDateTime.now());
+    }
+
+    /**
+     * Constructor with all fields.
+     * @param consultationId consultation's ID
+     * @param tutorId tutor's ID
+     * @param studentIds IDs of students registered to the consultation
+     * @param occurred date and time, when event occurred
+     */
+    ConsultationCancelled(int consultationId, int tutorId, List<Integer> studentIds, LocalDateTime occurred) {
+        super(consultationId, tutorId, occurred);
+        this.studentIds = studentIds;
+    }
+
+    /**
+     * Returns ID of the tutor.
+     * @return tutor's ID
+     */
+    public int getTutorId() {
+        return getUserId();
+    }
+
+    /**
+     * Getter for studentIds.
+     * @return studentIds
+     */
+    public List<Integer> getStudentIds() {
+        return studentIds;
+    }
+
+    @Override
+    public ConsultationEventType getType() {
+        return ConsultationEventType.CANCELLED;
+    }
+
+    @Override
+    String getPayload() {
+        return studentIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
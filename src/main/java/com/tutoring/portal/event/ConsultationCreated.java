@@ -0,0 +1,41 @@
+package com.tutoring.portal.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when tutor creates a consultation.
+ */
+public class ConsultationCreated extends ConsultationEvent {
+
+    /**
+     * Constructor for an event, which occurred now.
+     * @param consultationId consultation's ID
+     * @param tutorId tutor's ID
+     */
+    public ConsultationCreated(int consultationId, int tutorId) {
+        this(consultationId, tutorId, LocalDateTime.now());
+    }
+
+    /**
+     * Constructor with all fields.
+     * @param consultationId consultation's ID
+     * @param tutorId tutor's ID
+     * @param occurred date and time, when event occurred
+     */
+    ConsultationCreated(int consultationId, int tutorId, LocalDateTime occurred) {
+        super(consultationId, tutorId, occurred);
+    }
+
+    /**
+     * Returns ID of the tutor.
+     * @return tutor's ID
+     */
+    public int getTutorId() {
+        return getUserId();
+    }
+
+    @Override
+    public ConsultationEventType getType() {
+        return ConsultationEventType.CREATED;
+    }
+}
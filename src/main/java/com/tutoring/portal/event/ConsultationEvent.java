@@ -0,0 +1,127 @@
+package com.tutoring.portal.event;
+
+import com.tutoring.portal.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Base class of consultation lifecycle events.
+ * Events are published after the transaction, which caused them, commits, on the event dispatcher's thread,
+ * so listeners never add latency to the request.
+ * Events are published in the order they occurred, except that an event dead-lettered by the dispatcher is skipped,
+ * so listeners must not assume they have seen every earlier event of a consultation.
+ */
+public abstract class ConsultationEvent {
+
+    private final int consultationId;
+
+    private final int userId;
+
+    private final LocalDateTime occurred;
+
+    /**
+     * Constructor with all fields.
+     * @param consultationId consultation's ID
+     * @param userId ID of user the event is about
+     * @param occurred date and time, when event occurred
+     */
+    protected ConsultationEvent(int consultationId, int userId, LocalDateTime occurred) {
+        this.consultationId = consultationId;
+        this.userId = userId;
+        this.occurred = occurred;
+    }
+
+    /**
+     * Getter for consultationId.
+     * @return consultationId
+     */
+    public int getConsultationId() {
+        return consultationId;
+    }
+
+    /**
+     * Getter for userId.
+     * @return userId
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Getter for occurred.
+     * @return occurred
+     */
+    public LocalDateTime getOccurred() {
+        return occurred;
+    }
+
+    /**
+     * Returns type of the event.
+     * @return event type
+     */
+    public abstract ConsultationEventType getType();
+
+    /**
+     * Returns additional data stored in the outbox.
+     * @return payload or null
+     */
+    String getPayload() {
+        return null;
+    }
+
+    /**
+     * Converts provided event to an outbox row.
+     * @param event event
+     * @return outbox row
+     */
+    static OutboxEvent toOutbox(ConsultationEvent event) {
+        OutboxEvent row = new OutboxEvent();
+        row.setType(event.getType());
+        row.setConsultationId(event.getConsultationId());
+        row.setUserId(event.getUserId());
+        row.setPayload(event.getPayload());
+        row.setCreated(event.getOccurred());
+        return row;
+    }
+
+    /**
+     * Converts provided outbox row to an event.
+     * @param row outbox row
+     * @return event
+     */
+    static ConsultationEvent fromOutbox(OutboxEvent row) {
+        int consultationId = row.getConsultationId();
+        int userId = row.getUserId();
+        LocalDateTime occurred = row.getCreated();
+        switch (row.getType()) {
+            case CREATED:
+                return new ConsultationCreated(consultationId, userId, occurred);
+            case UPDATED:
+                return new ConsultationUpdated(consultationId, userId, occurred);
+            case CANCELLED:
+                return new ConsultationCancelled(consultationId, userId, parseIds(row.getPayload()), occurred);
+            case REGISTERED:
+                return new ConsultationRegistered(consultationId, userId, occurred);
+            case UNREGISTERED:
+                return new ConsultationUnregistered(consultationId, userId, occurred);
+            default:
+                throw new IllegalArgumentException("Unknown consultation event type: " + row.getType());
+        }
+    }
+
+    /**
+     * Parses comma separated IDs.
+     * @param value comma separated IDs or null
+     * @return IDs list
+     */
+    private static List<Integer> parseIds(String value) {
+        if (value == null || value.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(value.split(",")).map(Integer::valueOf).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,128 @@
+package com.tutoring.portal.event;
+
+import com.tutoring.portal.model.OutboxEvent;
+import com.tutoring.portal.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes events from the outbox table to application listeners, oldest first.
+ * Events are published on one background thread with a queue of one pending run: if a run is already waiting,
+ * further wake-ups are dropped, because that run will see their events too. Events left behind by a failed
+ * listener or a restart are picked up by a periodic sweep.
+ * An event, which failed {@link #MAX_ATTEMPTS} times, is dead-lettered: it is logged, counted by the
+ * {@code consultation.events.dead.lettered} gauge and kept in the outbox, and later events are published past it.
+ */
+@Component
+public class ConsultationEventDispatcher {
+
+    /**
+     * Number of publishing attempts, after which an event is dead-lettered.
+     */
+    static final int MAX_ATTEMPTS = 5;
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsultationEventDispatcher.class);
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), runnable -> {
+                Thread thread = new Thread(runnable, "consultation-events");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${consultation.events.batch-size}")
+    private int batchSize;
+
+    /**
+     * Registers metrics.
+     */
+    @PostConstruct
+    void init() {
+        Gauge.builder("consultation.events.dead.lettered", outboxEventRepository,
+                OutboxEventRepository::countByDeadLetteredTrue)
+                .description("Consultation events, which were never published").register(meterRegistry);
+    }
+
+    /**
+     * Schedules publishing of stored events, without waiting for it.
+     */
+    public void dispatch() {
+        executor.execute(this::publishPending);
+    }
+
+    /**
+     * Periodically schedules publishing of events, which weren't published after their transaction committed.
+     */
+    @Scheduled(initialDelayString = "${consultation.events.sweep-delay}",
+            fixedDelayString = "${consultation.events.sweep-delay}")
+    public void sweep() {
+        dispatch();
+    }
+
+    /**
+     * Publishes stored events in batches and deletes published ones.
+     * Stops at the first event whose listener fails, so it is retried by the next run before any later event.
+     * Once the event has failed {@link #MAX_ATTEMPTS} times, it is dead-lettered and publishing continues past it,
+     * so later events, including events of the same consultation, are published without it.
+     * @return number of published events
+     */
+    int publishPending() {
+        int published = 0;
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.findByDeadLetteredFalseOrderByIdAsc(PageRequest.of(0, batchSize));
+            for (OutboxEvent row : batch) {
+                try {
+                    applicationEventPublisher.publishEvent(ConsultationEvent.fromOutbox(row));
+                } catch (RuntimeException e) {
+                    row.setAttempts(row.getAttempts() + 1);
+                    row.setDeadLettered(row.getAttempts() >= MAX_ATTEMPTS);
+                    outboxEventRepository.save(row);
+                    if (row.isDeadLettered()) {
+                        logger.error("Consultation event with ID {} ({} of consultation {}) failed {} times and was"
+                                + " dead-lettered, later events are published without it", row.getId(), row.getType(),
+                                row.getConsultationId(), row.getAttempts(), e);
+                        continue;
+                    }
+                    logger.error("Publishing consultation event with ID {} failed, attempt {}", row.getId(), row.getAttempts(), e);
+                    return published;
+                }
+                outboxEventRepository.delete(row);
+                published++;
+            }
+        } while (batch.size() == batchSize);
+        return published;
+    }
+
+    /**
+     * Stops publishing thread, events not published yet stay in the outbox.
+     */
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
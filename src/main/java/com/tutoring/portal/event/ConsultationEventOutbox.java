@@ -0,0 +1,38 @@
+package com.tutoring.portal.event;
+
+import com.tutoring.portal.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Writes consultation events to the outbox table in the caller's transaction,
+ * so an event is stored if and only if the change that caused it is committed.
+ */
+@Component
+public class ConsultationEventOutbox {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ConsultationEventDispatcher consultationEventDispatcher;
+
+    /**
+     * Stores provided event and wakes up the dispatcher after the current transaction commits.
+     * @param event event
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ConsultationEvent event) {
+        outboxEventRepository.save(ConsultationEvent.toOutbox(event));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                consultationEventDispatcher.dispatch();
+            }
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package com.tutoring.portal.event;
+
+/**
+ * Types of consultation events stored in the outbox.
+ */
+public enum ConsultationEventType {
+    CREATED,
+    UPDATED,
+    CANCELLED,
+    REGISTERED,
+    UNREGISTERED
+}
@@ -0,0 +1,41 @@
+package com.tutoring.portal.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when student's registration to a consultation is removed.
+ */
+public class ConsultationUnregistered extends ConsultationEvent {
+
+    /**
+     * Constructor for an event, which occurred now.
+     * @param consultationId consultation's ID
+     * @param studentId student's ID
+     */
+    public ConsultationUnregistered(int consultationId, int studentId) {
+        this(consultationId, studentId, LocalDateTime.now());
+    }
+
+    /**
+     * Constructor with all fields.
+     * @param consultationId consultation's ID
+     * @param studentId student's ID
+     * @param occurred date and time, when event occurred
+     */
+    ConsultationUnregistered(int consultationId, int studentId, LocalDateTime occurred) {
+        super(consultationId, studentId, occurred);
+    }
+
+    /**
+     * Returns ID of the student.
+     * @return student's ID
+     */
+    public int getStudentId() {
+        return getUserId();
+    }
+
+    @Override
+    public ConsultationEventType getType() {
+        return ConsultationEventType.UNREGISTERED;
+    }
+}
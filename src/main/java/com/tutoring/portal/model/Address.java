@@ -1,5 +1,7 @@
 package com.tutoring.portal.model;
 
+import com.tutoring.portal.util.Locations;
+
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -7,10 +9,16 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotEmpty;
 import java.util.Set;
 
@@ -18,7 +26,9 @@ import java.util.Set;
  * Class for ADDRESS table.
  */
 @Entity
-@Table(name = "ADDRESS")
+@Table(name = "ADDRESS", indexes = {
+        @Index(name = "IDX_ADDRESS_CITY_KEY", columnList = "CITY_KEY, COUNTRY_KEY, ADDRESS_ID"),
+        @Index(name = "IDX_ADDRESS_GRID_CELL", columnList = "GRID_CELL, LATITUDE, LONGITUDE, ADDRESS_ID")})
 public class Address {
 
     @Id
@@ -34,6 +44,12 @@ public class Address {
     @NotEmpty(message = "Please provide a city")
     private String city;
 
+    @Column(name = "COUNTRY_KEY")
+    private String countryKey;
+
+    @Column(name = "CITY_KEY")
+    private String cityKey;
+
     @Column(name="STREET")
     @NotEmpty(message = "Please provide a street")
     private String street;
@@ -42,6 +58,19 @@ public class Address {
     @NotEmpty(message = "Please provide a street number")
     private String streetNumber;
 
+    @Column(name = "LATITUDE")
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @Column(name = "LONGITUDE")
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+
+    @Column(name = "GRID_CELL")
+    private Integer gridCell;
+
     @ManyToOne
     @JoinColumn(name="USER_ID", nullable=false)
     private User user;
@@ -49,6 +78,26 @@ public class Address {
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "address")
     private Set<Consultation> consultations;
 
+    /**
+     * Fills location keys from country, city and coordinates before the address is written.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateLocationKeys() {
+        countryKey = Locations.key(country);
+        cityKey = Locations.key(city);
+        gridCell = latitude != null && longitude != null ? Locations.cell(latitude, longitude) : null;
+    }
+
+    /**
+     * Checks that coordinates are either both provided or both omitted.
+     * @return true, if coordinates are complete or omitted
+     */
+    @AssertTrue(message = "Please provide both latitude and longitude or neither")
+    public boolean isLocationComplete() {
+        return (latitude == null) == (longitude == null);
+    }
+
     /**
      * Getter for id.
      * @return id
@@ -97,6 +146,38 @@ public class Address {
         this.city = city;
     }
 
+    /**
+     * Getter for countryKey.
+     * @return countryKey
+     */
+    public String getCountryKey() {
+        return countryKey;
+    }
+
+    /**
+     * Setter for countryKey. The value is recomputed whenever the address is written.
+     * @param countryKey new countryKey
+     */
+    public void setCountryKey(String countryKey) {
+        this.countryKey = countryKey;
+    }
+
+    /**
+     * Getter for cityKey.
+     * @return cityKey
+     */
+    public String getCityKey() {
+        return cityKey;
+    }
+
+    /**
+     * Setter for cityKey. The value is recomputed whenever the address is written.
+     * @param cityKey new cityKey
+     */
+    public void setCityKey(String cityKey) {
+        this.cityKey = cityKey;
+    }
+
     /**
      * Getter for street.
      * @return street
@@ -129,6 +210,54 @@ public class Address {
         this.streetNumber = streetNumber;
     }
 
+    /**
+     * Getter for latitude.
+     * @return latitude
+     */
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Setter for latitude.
+     * @param latitude new latitude
+     */
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    /**
+     * Getter for longitude.
+     * @return longitude
+     */
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Setter for longitude.
+     * @param longitude new longitude
+     */
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    /**
+     * Getter for gridCell.
+     * @return gridCell
+     */
+    public Integer getGridCell() {
+        return gridCell;
+    }
+
+    /**
+     * Setter for gridCell. The value is recomputed whenever the address is written.
+     * @param gridCell new gridCell
+     */
+    public void setGridCell(Integer gridCell) {
+        this.gridCell = gridCell;
+    }
+
     /**
      * Getter for user.
      * @return user
@@ -0,0 +1,353 @@
+package com.tutoring.portal.model;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Class for ARCHIVED_CONSULTATION table.
+ * Holds consultations moved out of CONSULTATION table after archive horizon. Related subject, tutor and address
+ * data is copied, so archived consultations don't depend on rows that may change or be deleted later.
+ */
+@Entity
+@Table(name = "ARCHIVED_CONSULTATION", indexes = {
+        @Index(name = "IDX_ARCHIVED_CONSULTATION_DATE_TIME", columnList = "DATE_TIME, CONSULTATION_ID"),
+        @Index(name = "IDX_ARCHIVED_CONSULTATION_TUTOR_DATE_TIME", columnList = "USER_ID, DATE_TIME")
+})
+public class ArchivedConsultation {
+
+    @Id
+    @Column(name = "CONSULTATION_ID")
+    private int id;
+
+    @Column(name="DESCRIPTION")
+    private String description;
+
+    @Column(name="MAX_STUDENTS_NUMBER")
+    private int maxStudentsNumber;
+
+    @Column(name="DURATION")
+    private int duration;
+
+    @Column(name="DATE_TIME")
+    private LocalDateTime dateTime;
+
+    @Column(name="REGISTERED_COUNT")
+    private int registeredCount;
+
+    @Column(name="SUBJECT_ID")
+    private int subjectId;
+
+    @Column(name="SUBJECT_NAME")
+    private String subjectName;
+
+    @Column(name="USER_ID")
+    private int tutorId;
+
+    @Column(name="TUTOR_NAME")
+    private String tutorName;
+
+    @Column(name="TUTOR_SURNAME")
+    private String tutorSurname;
+
+    @Column(name="STREET")
+    private String street;
+
+    @Column(name="STREET_NUMBER")
+    private String streetNumber;
+
+    @Column(name="CITY")
+    private String city;
+
+    @Column(name="COUNTRY")
+    private String country;
+
+    @Column(name="ARCHIVED")
+    private LocalDateTime archived;
+
+    @ElementCollection
+    @CollectionTable(name = "ARCHIVED_USER_CONSULTATION",
+            joinColumns = @JoinColumn(name = "CONSULTATION_ID", referencedColumnName = "CONSULTATION_ID"),
+            indexes = @Index(name = "IDX_ARCHIVED_USER_CONSULTATION_USER", columnList = "USER_ID"))
+    @Column(name = "USER_ID")
+    private Set<Integer> studentIds;
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Setter for id.
+     * @param id new id
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Getter for description.
+     * @return description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Setter for description.
+     * @param description new description
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Getter for maxStudentsNumber.
+     * @return maxStudentsNumber
+     */
+    public int getMaxStudentsNumber() {
+        return maxStudentsNumber;
+    }
+
+    /**
+     * Setter for maxStudentsNumber.
+     * @param maxStudentsNumber new maxStudentsNumber
+     */
+    public void setMaxStudentsNumber(int maxStudentsNumber) {
+        this.maxStudentsNumber = maxStudentsNumber;
+    }
+
+    /**
+     * Getter for duration.
+     * @return duration
+     */
+    public int getDuration() {
+        return duration;
+    }
+
+    /**
+     * Setter for duration.
+     * @param duration new duration
+     */
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Getter for dateTime.
+     * @return dateTime
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Setter for dateTime.
+     * @param dateTime new dateTime
+     */
+    public void setDateTime(LocalDateTime dateTime) {
+        this.dateTime = dateTime;
+    }
+
+    /**
+     * Getter for registeredCount.
+     * @return registeredCount
+     */
+    public int getRegisteredCount() {
+        return registeredCount;
+    }
+
+    /**
+     * Setter for registeredCount.
+     * @param registeredCount new registeredCount
+     */
+    public void setRegisteredCount(int registeredCount) {
+        this.registeredCount = registeredCount;
+    }
+
+    /**
+     * Getter for subjectId.
+     * @return subjectId
+     */
+    public int getSubjectId() {
+        return subjectId;
+    }
+
+    /**
+     * Setter for subjectId.
+     * @param subjectId new subjectId
+     */
+    public void setSubjectId(int subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    /**
+     * Getter for subjectName.
+     * @return subjectName
+     */
+    public String getSubjectName() {
+        return subjectName;
+    }
+
+    /**
+     * Setter for subjectName.
+     * @param subjectName new subjectName
+     */
+    public void setSubjectName(String subjectName) {
+        this.subjectName = subjectName;
+    }
+
+    /**
+     * Getter for tutorId.
+     * @return tutorId
+     */
+    public int getTutorId() {
+        return tutorId;
+    }
+
+    /**
+     * Setter for tutorId.
+     * @param tutorId new tutorId
+     */
+    public void setTutorId(int tutorId) {
+        this.tutorId = tutorId;
+    }
+
+    /**
+     * Getter for tutorName.
+     * @return tutorName
+     */
+    public String getTutorName() {
+        return tutorName;
+    }
+
+    /**
+     * Setter for tutorName.
+     * @param tutorName new tutorName
+     */
+    public void setTutorName(String tutorName) {
+        this.tutorName = tutorName;
+    }
+
+    /**
+     * Getter for tutorSurname.
+     * @return tutorSurname
+     */
+    public String getTutorSurname() {
+        return tutorSurname;
+    }
+
+    /**
+     * Setter for tutorSurname.
+     * @param tutorSurname new tutorSurname
+     */
+    public void setTutorSurname(String tutorSurname) {
+        this.tutorSurname = tutorSurname;
+    }
+
+    /**
+     * Getter for street.
+     * @return street
+     */
+    public String getStreet() {
+        return street;
+    }
+
+    /**
+     * Setter for street.
+     * @param street new street
+     */
+    public void setStreet(String street) {
+        this.street = street;
+    }
+
+    /**
+     * Getter for streetNumber.
+     * @return streetNumber
+     */
+    public String getStreetNumber() {
+        return streetNumber;
+    }
+
+    /**
+     * Setter for streetNumber.
+     * @param streetNumber new streetNumber
+     */
+    public void setStreetNumber(String streetNumber) {
+        this.streetNumber = streetNumber;
+    }
+
+    /**
+     * Getter for city.
+     * @return city
+     */
+    public String getCity() {
+        return city;
+    }
+
+    /**
+     * Setter for city.
+     * @param city new city
+     */
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    /**
+     * Getter for country.
+     * @return country
+     */
+    public String getCountry() {
+        return country;
+    }
+
+    /**
+     * Setter for country.
+     * @param country new country
+     */
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    /**
+     * Getter for archived.
+     * @return archived
+     */
+    public LocalDateTime getArchived() {
+        return archived;
+    }
+
+    /**
+     * Setter for archived.
+     * @param archived new archived
+     */
+    public void setArchived(LocalDateTime archived) {
+        this.archived = archived;
+    }
+
+    /**
+     * Getter for studentIds.
+     * @return studentIds
+     */
+    public Set<Integer> getStudentIds() {
+        return studentIds;
+    }
+
+    /**
+     * Setter for studentIds.
+     * @param studentIds new studentIds
+     */
+    public void setStudentIds(Set<Integer> studentIds) {
+        this.studentIds = studentIds;
+    }
+}
@@ -3,16 +3,24 @@ package com.tutoring.portal.model;
 import org.hibernate.validator.constraints.Length;
 import org.springframework.format.annotation.DateTimeFormat;
 
+import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Version;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
 import java.time.LocalDateTime;
@@ -22,9 +30,20 @@ import java.util.Set;
  * Class for CONSULTATION table.
  */
 @Entity
-@Table(name = "CONSULTATION")
+@Table(name = "CONSULTATION", indexes = {
+        @Index(name = "IDX_CONSULTATION_DATE_TIME", columnList = "DATE_TIME, CONSULTATION_ID"),
+        @Index(name = "IDX_CONSULTATION_SUBJECT_DATE_TIME", columnList = "SUBJECT_ID, DATE_TIME"),
+        @Index(name = "IDX_CONSULTATION_TUTOR_DATE_TIME", columnList = "USER_ID, DATE_TIME"),
+        @Index(name = "IDX_CONSULTATION_ADDRESS_DATE_TIME", columnList = "ADDRESS_ID, DATE_TIME")
+})
 public class Consultation {
 
+    /**
+     * Maximum consultation's duration in minutes.
+     * Overlap checks only look this far back for consultations that might still be running.
+     */
+    public static final int MAX_DURATION_MINUTES = 480;
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     @Column(name = "CONSULTATION_ID")
@@ -43,6 +62,11 @@ public class Consultation {
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     private LocalDateTime dateTime;
 
+    @Column(name="DURATION", nullable=false, columnDefinition="int default 60")
+    @Min(value = 15, message = "Duration must be at least 15 minutes")
+    @Max(value = MAX_DURATION_MINUTES, message = "Duration must not exceed " + MAX_DURATION_MINUTES + " minutes")
+    private int duration = 60;
+
     @ManyToOne
     @JoinColumn(name="SUBJECT_ID", nullable=false)
     private Subject subject;
@@ -61,6 +85,19 @@ public class Consultation {
     @JoinColumn(name="ADDRESS_ID", nullable=false)
     private Address address;
 
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "consultation")
+    private Set<WaitlistEntry> waitlist;
+
+    @Column(name="REGISTERED_COUNT", nullable=false, columnDefinition="int default 0")
+    private int registeredCount;
+
+    @Version
+    @Column(name="VERSION", nullable=false, columnDefinition="int default 0")
+    private int version;
+
+    @Column(name="LAST_MODIFIED", nullable=false, columnDefinition="timestamp default current_timestamp")
+    private LocalDateTime lastModified;
+
     /**
      * Getter for id.
      * @return id
@@ -125,6 +162,30 @@ public class Consultation {
         this.dateTime = dateTime;
     }
 
+    /**
+     * Getter for duration.
+     * @return duration
+     */
+    public int getDuration() {
+        return duration;
+    }
+
+    /**
+     * Setter for duration.
+     * @param duration new duration
+     */
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Returns date and time when consultation ends.
+     * @return end date and time
+     */
+    public LocalDateTime getEndDateTime() {
+        return dateTime == null ? null : dateTime.plusMinutes(duration);
+    }
+
     /**
      * Getter for subject.
      * @return subject
@@ -188,4 +249,86 @@ public class Consultation {
     public void setAddress(Address address) {
         this.address = address;
     }
+
+    /**
+     * Getter for version.
+     * @return version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Setter for version.
+     * @param version new version
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Getter for lastModified.
+     * @return lastModified
+     */
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Setter for lastModified.
+     * @param lastModified new lastModified
+     */
+    public void setLastModified(LocalDateTime lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Updates last modification date and time whenever consultation is inserted or updated,
+     * including registration changes.
+     */
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = LocalDateTime.now();
+    }
+
+    /**
+     * Getter for waitlist.
+     * @return waitlist
+     */
+    public Set<WaitlistEntry> getWaitlist() {
+        return waitlist;
+    }
+
+    /**
+     * Setter for waitlist.
+     * @param waitlist new waitlist
+     */
+    public void setWaitlist(Set<WaitlistEntry> waitlist) {
+        this.waitlist = waitlist;
+    }
+
+    /**
+     * Getter for registeredCount.
+     * @return registeredCount
+     */
+    public int getRegisteredCount() {
+        return registeredCount;
+    }
+
+    /**
+     * Setter for registeredCount.
+     * @param registeredCount new registeredCount
+     */
+    public void setRegisteredCount(int registeredCount) {
+        this.registeredCount = registeredCount;
+    }
+
+    /**
+     * Returns number of available places.
+     * @return available places
+     */
+    public int getAvailablePlaces() {
+        return maxStudentsNumber - registeredCount;
+    }
 }
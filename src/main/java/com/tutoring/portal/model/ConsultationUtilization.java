@@ -0,0 +1,177 @@
+package com.tutoring.portal.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Class for CONSULTATION_UTILIZATION table.
+ * Holds what one consultation currently contributes to utilization statistics, so a change of the consultation
+ * is applied to statistics as a difference and a repeated event changes nothing.
+ * Consultation isn't referenced by a foreign key, because the row has to outlive its deletion until it is applied.
+ */
+@Entity
+@Table(name = "CONSULTATION_UTILIZATION")
+public class ConsultationUtilization {
+
+    @Id
+    @Column(name = "CONSULTATION_ID")
+    private int consultationId;
+
+    @Column(name = "TUTOR_ID", nullable = false)
+    private int tutorId;
+
+    @Column(name = "SUBJECT_ID", nullable = false)
+    private int subjectId;
+
+    @Column(name = "CONSULTATION_DATE", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "CAPACITY", nullable = false)
+    private int capacity;
+
+    @Column(name = "REGISTRATIONS", nullable = false)
+    private int registrations;
+
+    /**
+     * Default constructor.
+     */
+    public ConsultationUtilization() {
+    }
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     * @param consultationId consultation's ID
+     * @param tutorId tutor's ID
+     * @param subjectId subject's ID
+     * @param dateTime consultation's date and time
+     * @param capacity maximum number of students
+     * @param registrations number of registered students
+     */
+    public ConsultationUtilization(int consultationId, int tutorId, int subjectId, LocalDateTime dateTime,
+                                   int capacity, int registrations) {
+        this.consultationId = consultationId;
+        this.tutorId = tutorId;
+        this.subjectId = subjectId;
+        this.date = dateTime.toLocalDate();
+        this.capacity = capacity;
+        this.registrations = registrations;
+    }
+
+    /**
+     * Checks if all places of the consultation are taken.
+     * @return true or false
+     */
+    public boolean isFull() {
+        return registrations >= capacity;
+    }
+
+    /**
+     * Checks if provided contribution is equal to this one.
+     * @param other other contribution
+     * @return true or false
+     */
+    public boolean isSameAs(ConsultationUtilization other) {
+        return tutorId == other.tutorId && subjectId == other.subjectId && date.equals(other.date)
+                && capacity == other.capacity && registrations == other.registrations;
+    }
+
+    /**
+     * Getter for consultationId.
+     * @return consultationId
+     */
+    public int getConsultationId() {
+        return consultationId;
+    }
+
+    /**
+     * Setter for consultationId.
+     * @param consultationId new consultationId
+     */
+    public void setConsultationId(int consultationId) {
+        this.consultationId = consultationId;
+    }
+
+    /**
+     * Getter for tutorId.
+     * @return tutorId
+     */
+    public int getTutorId() {
+        return tutorId;
+    }
+
+    /**
+     * Setter for tutorId.
+     * @param tutorId new tutorId
+     */
+    public void setTutorId(int tutorId) {
+        this.tutorId = tutorId;
+    }
+
+    /**
+     * Getter for subjectId.
+     * @return subjectId
+     */
+    public int getSubjectId() {
+        return subjectId;
+    }
+
+    /**
+     * Setter for subjectId.
+     * @param subjectId new subjectId
+     */
+    public void setSubjectId(int subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    /**
+     * Getter for date.
+     * @return date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Setter for date.
+     * @param date new date
+     */
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     * Getter for capacity.
+     * @return capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Setter for capacity.
+     * @param capacity new capacity
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Getter for registrations.
+     * @return registrations
+     */
+    public int getRegistrations() {
+        return registrations;
+    }
+
+    /**
+     * Setter for registrations.
+     * @param registrations new registrations
+     */
+    public void setRegistrations(int registrations) {
+        this.registrations = registrations;
+    }
+}
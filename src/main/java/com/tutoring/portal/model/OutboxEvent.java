@@ -0,0 +1,183 @@
+package com.tutoring.portal.model;
+
+import com.tutoring.portal.event.ConsultationEventType;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Class for OUTBOX_EVENT table.
+ * Consultation events are written in the transaction that caused them and published after it commits,
+ * in the order of their IDs. Consultation isn't referenced by a foreign key, because its deletion is an event too.
+ * Payload is a large object, because a cancellation lists every registered student.
+ * Events, which failed to be published too many times, are dead-lettered and kept for inspection.
+ */
+@Entity
+@Table(name = "OUTBOX_EVENT", indexes = @Index(name = "IDX_OUTBOX_EVENT_PENDING", columnList = "DEAD_LETTERED, OUTBOX_EVENT_ID"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "OUTBOX_EVENT_ID")
+    private int id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "EVENT_TYPE", nullable = false, length = 20)
+    private ConsultationEventType type;
+
+    @Column(name = "CONSULTATION_ID", nullable = false)
+    private int consultationId;
+
+    @Column(name = "USER_ID", nullable = false)
+    private int userId;
+
+    @Lob
+    @Column(name = "PAYLOAD")
+    private String payload;
+
+    @Column(name = "CREATED", nullable = false)
+    private LocalDateTime created;
+
+    @Column(name = "ATTEMPTS", nullable = false, columnDefinition = "int default 0")
+    private int attempts;
+
+    @Column(name = "DEAD_LETTERED", nullable = false, columnDefinition = "boolean default false")
+    private boolean deadLettered;
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Setter for id.
+     * @param id new id
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Getter for type.
+     * @return type
+     */
+    public ConsultationEventType getType() {
+        return type;
+    }
+
+    /**
+     * Setter for type.
+     * @param type new type
+     */
+    public void setType(ConsultationEventType type) {
+        this.type = type;
+    }
+
+    /**
+     * Getter for consultationId.
+     * @return consultationId
+     */
+    public int getConsultationId() {
+        return consultationId;
+    }
+
+    /**
+     * Setter for consultationId.
+     * @param consultationId new consultationId
+     */
+    public void setConsultationId(int consultationId) {
+        this.consultationId = consultationId;
+    }
+
+    /**
+     * Getter for userId.
+     * @return userId
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Setter for userId.
+     * @param userId new userId
+     */
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Getter for payload.
+     * @return payload
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Setter for payload.
+     * @param payload new payload
+     */
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * Getter for created.
+     * @return created
+     */
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    /**
+     * Setter for created.
+     * @param created new created
+     */
+    public void setCreated(LocalDateTime created) {
+        this.created = created;
+    }
+
+    /**
+     * Getter for attempts.
+     * @return attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Setter for attempts.
+     * @param attempts new attempts
+     */
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * Getter for deadLettered.
+     * @return deadLettered
+     */
+    public boolean isDeadLettered() {
+        return deadLettered;
+    }
+
+    /**
+     * Setter for deadLettered.
+     * @param deadLettered new deadLettered
+     */
+    public void setDeadLettered(boolean deadLettered) {
+        this.deadLettered = deadLettered;
+    }
+}
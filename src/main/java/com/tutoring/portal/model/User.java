@@ -9,6 +9,7 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
@@ -51,16 +52,23 @@ public class User {
     @Column(name = "ACTIVE")
     private int active;
 
+    @Column(name = "CALENDAR_TOKEN", unique = true)
+    private String calendarToken;
+
     @ManyToMany
     @JoinTable(name = "USER_ROLE",
             joinColumns = @JoinColumn(name = "USER_ID", referencedColumnName = "USER_ID"),
-            inverseJoinColumns = @JoinColumn(name = "ROLE_ID", referencedColumnName = "ROLE_ID"))
+            inverseJoinColumns = @JoinColumn(name = "ROLE_ID", referencedColumnName = "ROLE_ID"),
+            // users are looked up by role, e.g. tutors
+            indexes = @Index(name = "IDX_USER_ROLE_ROLE", columnList = "ROLE_ID, USER_ID"))
     private Set<Role> roles;
 
     @ManyToMany
     @JoinTable(name = "USER_SUBJECT",
             joinColumns = @JoinColumn(name = "USER_ID", referencedColumnName = "USER_ID"),
-            inverseJoinColumns = @JoinColumn(name = "SUBJECT_ID", referencedColumnName = "SUBJECT_ID"))
+            inverseJoinColumns = @JoinColumn(name = "SUBJECT_ID", referencedColumnName = "SUBJECT_ID"),
+            // tutors are looked up by subject
+            indexes = @Index(name = "IDX_USER_SUBJECT_SUBJECT", columnList = "SUBJECT_ID, USER_ID"))
     private Set<Subject> subjects;
 
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "tutor")
@@ -174,6 +182,22 @@ public class User {
         this.active = active;
     }
 
+    /**
+     * Getter for calendarToken.
+     * @return calendarToken
+     */
+    public String getCalendarToken() {
+        return calendarToken;
+    }
+
+    /**
+     * Setter for calendarToken.
+     * @param calendarToken new calendarToken
+     */
+    public void setCalendarToken(String calendarToken) {
+        this.calendarToken = calendarToken;
+    }
+
     /**
      * Getter for roles.
      * @return roles
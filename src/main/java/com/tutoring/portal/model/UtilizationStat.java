@@ -0,0 +1,196 @@
+package com.tutoring.portal.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+/**
+ * Class for UTILIZATION_STAT table.
+ * Running totals of consultations of one tutor in one subject on one day, updated from consultation events.
+ */
+@Entity
+@Table(name = "UTILIZATION_STAT",
+        uniqueConstraints = @UniqueConstraint(name = "UK_UTILIZATION_STAT_TUTOR_SUBJECT_DATE",
+                columnNames = {"TUTOR_ID", "SUBJECT_ID", "STAT_DATE"}),
+        indexes = @Index(name = "IDX_UTILIZATION_STAT_DATE", columnList = "STAT_DATE"))
+public class UtilizationStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "UTILIZATION_STAT_ID")
+    private int id;
+
+    @Column(name = "TUTOR_ID", nullable = false)
+    private int tutorId;
+
+    @Column(name = "SUBJECT_ID", nullable = false)
+    private int subjectId;
+
+    @Column(name = "STAT_DATE", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "SLOTS", nullable = false)
+    private int slots;
+
+    @Column(name = "FULL_SLOTS", nullable = false)
+    private int fullSlots;
+
+    @Column(name = "CAPACITY", nullable = false)
+    private int capacity;
+
+    @Column(name = "REGISTRATIONS", nullable = false)
+    private int registrations;
+
+    @Column(name = "CANCELLED", nullable = false)
+    private int cancelled;
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Setter for id.
+     * @param id new id
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Getter for tutorId.
+     * @return tutorId
+     */
+    public int getTutorId() {
+        return tutorId;
+    }
+
+    /**
+     * Setter for tutorId.
+     * @param tutorId new tutorId
+     */
+    public void setTutorId(int tutorId) {
+        this.tutorId = tutorId;
+    }
+
+    /**
+     * Getter for subjectId.
+     * @return subjectId
+     */
+    public int getSubjectId() {
+        return subjectId;
+    }
+
+    /**
+     * Setter for subjectId.
+     * @param subjectId new subjectId
+     */
+    public void setSubjectId(int subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    /**
+     * Getter for date.
+     * @return date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Setter for date.
+     * @param date new date
+     */
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     * Getter for slots.
+     * @return slots
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Setter for slots.
+     * @param slots new slots
+     */
+    public void setSlots(int slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * Getter for fullSlots.
+     * @return fullSlots
+     */
+    public int getFullSlots() {
+        return fullSlots;
+    }
+
+    /**
+     * Setter for fullSlots.
+     * @param fullSlots new fullSlots
+     */
+    public void setFullSlots(int fullSlots) {
+        this.fullSlots = fullSlots;
+    }
+
+    /**
+     * Getter for capacity.
+     * @return capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Setter for capacity.
+     * @param capacity new capacity
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Getter for registrations.
+     * @return registrations
+     */
+    public int getRegistrations() {
+        return registrations;
+    }
+
+    /**
+     * Setter for registrations.
+     * @param registrations new registrations
+     */
+    public void setRegistrations(int registrations) {
+        this.registrations = registrations;
+    }
+
+    /**
+     * Getter for cancelled.
+     * @return cancelled
+     */
+    public int getCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Setter for cancelled.
+     * @param cancelled new cancelled
+     */
+    public void setCancelled(int cancelled) {
+        this.cancelled = cancelled;
+    }
+}
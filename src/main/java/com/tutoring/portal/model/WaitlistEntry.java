@@ -0,0 +1,104 @@
+package com.tutoring.portal.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * Class for WAITLIST_ENTRY table.
+ * Entries of one consultation are served in the order of their IDs.
+ */
+@Entity
+@Table(name = "WAITLIST_ENTRY",
+        uniqueConstraints = @UniqueConstraint(name = "UK_WAITLIST_ENTRY_CONSULTATION_USER", columnNames = {"CONSULTATION_ID", "USER_ID"}),
+        indexes = @Index(name = "IDX_WAITLIST_ENTRY_CONSULTATION", columnList = "CONSULTATION_ID, WAITLIST_ENTRY_ID"))
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "WAITLIST_ENTRY_ID")
+    private int id;
+
+    @ManyToOne
+    @JoinColumn(name="CONSULTATION_ID", nullable=false)
+    private Consultation consultation;
+
+    @ManyToOne
+    @JoinColumn(name="USER_ID", nullable=false)
+    private User user;
+
+    @Column(name="CREATED", nullable=false)
+    private LocalDateTime created;
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Setter for id.
+     * @param id new id
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Getter for consultation.
+     * @return consultation
+     */
+    public Consultation getConsultation() {
+        return consultation;
+    }
+
+    /**
+     * Setter for consultation.
+     * @param consultation new consultation
+     */
+    public void setConsultation(Consultation consultation) {
+        this.consultation = consultation;
+    }
+
+    /**
+     * Getter for user.
+     * @return user
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Setter for user.
+     * @param user new user
+     */
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    /**
+     * Getter for created.
+     * @return created
+     */
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    /**
+     * Setter for created.
+     * @param created new created
+     */
+    public void setCreated(LocalDateTime created) {
+        this.created = created;
+    }
+}
@@ -1,13 +1,42 @@
 package com.tutoring.portal.repository;
 
+import com.tutoring.portal.dto.AddressLocation;
 import com.tutoring.portal.model.Address;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * JPA repository for Address.
  */
 @Repository
 public interface AddressRepository extends JpaRepository<Address, Integer> {
 
-}
\ No newline at end of file
+    /**
+     * Returns address with provided ID, locking its row until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Address a where a.id = :id")
+    Optional<Address> findByIdForUpdate(@Param("id") int id);
+
+    /**
+     * Returns coordinates of addresses in provided grid cells.
+     * Read from the grid cell index only, addresses and their users aren't loaded.
+     */
+    @Query("select new com.tutoring.portal.dto.AddressLocation(a.id, a.latitude, a.longitude) from Address a"
+            + " where a.gridCell in :cells")
+    List<AddressLocation> findLocationsInCells(@Param("cells") Collection<Integer> cells);
+
+    /**
+     * Returns addresses without normalized city key with ID greater than provided one, in ascending ID order.
+     */
+    List<Address> findByCityKeyIsNullAndIdGreaterThanOrderByIdAsc(int id, Pageable pageable);
+}
@@ -0,0 +1,81 @@
+package com.tutoring.portal.repository;
+
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.model.ArchivedConsultation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JPA repository for ArchivedConsultation.
+ */
+@Repository
+public interface ArchivedConsultationRepository extends JpaRepository<ArchivedConsultation, Integer> {
+
+    String SUMMARY_SELECT = "select new com.tutoring.portal.dto.ConsultationSummary(a.id, a.dateTime, a.description,"
+            + " a.maxStudentsNumber, a.registeredCount, a.subjectId, a.subjectName, a.tutorId, a.tutorName, a.tutorSurname,"
+            + " a.street, a.streetNumber, a.city, a.country)"
+            + " from ArchivedConsultation a";
+
+    /**
+     * Returns archived consultations of tutor or registered student with provided ID, positioned before provided
+     * (dateTime, id) key, in descending order. Tutor and student filters are ignored when null.
+     */
+    @Query(SUMMARY_SELECT + " where (a.dateTime < :dateTime or (a.dateTime = :dateTime and a.id < :id))"
+            + " and (:tutorId is null or a.tutorId = :tutorId)"
+            + " and (:studentId is null or :studentId member of a.studentIds)"
+            + " order by a.dateTime desc, a.id desc")
+    List<ConsultationSummary> findByUserBefore(@Param("dateTime") LocalDateTime dateTime, @Param("id") int id,
+                                               @Param("tutorId") Integer tutorId, @Param("studentId") Integer studentId,
+                                               Pageable pageable);
+
+    /**
+     * Returns archived consultations of tutor or registered student with provided ID, positioned after provided
+     * (dateTime, id) key, in ascending order. Tutor and student filters are ignored when null.
+     */
+    @Query(SUMMARY_SELECT + " where (a.dateTime > :dateTime or (a.dateTime = :dateTime and a.id > :id))"
+            + " and (:tutorId is null or a.tutorId = :tutorId)"
+            + " and (:studentId is null or :studentId member of a.studentIds)"
+            + " order by a.dateTime asc, a.id asc")
+    List<ConsultationSummary> findByUserAfter(@Param("dateTime") LocalDateTime dateTime, @Param("id") int id,
+                                              @Param("tutorId") Integer tutorId, @Param("studentId") Integer studentId,
+                                              Pageable pageable);
+
+    /**
+     * Returns archived consultations positioned after provided (dateTime, id) key, in ascending order.
+     */
+    @Query(SUMMARY_SELECT + " where a.dateTime > :dateTime or (a.dateTime = :dateTime and a.id > :id)"
+            + " order by a.dateTime asc, a.id asc")
+    List<ConsultationSummary> findAfter(@Param("dateTime") LocalDateTime dateTime, @Param("id") int id, Pageable pageable);
+
+    /**
+     * Returns summary of archived consultation with provided ID.
+     */
+    @Query(SUMMARY_SELECT + " where a.id = :id")
+    Optional<ConsultationSummary> findSummaryById(@Param("id") int id);
+
+    /**
+     * Returns summaries of archived consultations with provided IDs, in no particular order.
+     */
+    @Query(SUMMARY_SELECT + " where a.id in (:ids)")
+    List<ConsultationSummary> findSummariesByIds(@Param("ids") List<Integer> ids);
+
+    /**
+     * Deletes archived consultations of tutor with provided ID.
+     */
+    void deleteAllByTutorId(int tutorId);
+
+    /**
+     * Deletes archived registrations of student with provided ID.
+     */
+    @Modifying
+    @Query(value = "delete from ARCHIVED_USER_CONSULTATION where USER_ID = :studentId", nativeQuery = true)
+    void deleteRegistrationsByStudentId(@Param("studentId") int studentId);
+}
@@ -1,13 +1,274 @@
 package com.tutoring.portal.repository;
 
+import com.tutoring.portal.dto.CalendarEvent;
+import com.tutoring.portal.dto.CalendarVersion;
+import com.tutoring.portal.dto.ConsultationSlot;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.dto.ConsultationVersion;
 import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.ConsultationUtilization;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * JPA repository for Consultation.
  */
 @Repository
-public interface ConsultationRepository extends JpaRepository<Consultation, Integer> {
+public interface ConsultationRepository extends JpaRepository<Consultation, Integer>, ConsultationRepositoryCustom {
+
+    String SUMMARY_SELECT = "select new com.tutoring.portal.dto.ConsultationSummary(c.id, c.dateTime, c.description,"
+            + " c.maxStudentsNumber, c.registeredCount, s.id, s.subjectName, t.id, t.name, t.surname,"
+            + " a.street, a.streetNumber, a.city, a.country)"
+            + " from Consultation c join c.subject s join c.tutor t join c.address a";
+
+    String USER_CALENDAR_CONDITION = "(c.tutor.id = :userId or c.id in"
+            + " (select rc.id from Consultation rc join rc.students st where st.id = :userId))";
+
+    /**
+     * Returns future consultations positioned after provided (dateTime, id) key, in ascending order.
+     * Subject and tutor filters are ignored when null.
+     */
+    @Query(SUMMARY_SELECT + " where c.dateTime > :now"
+            + " and (c.dateTime > :dateTime or (c.dateTime = :dateTime and c.id > :id))"
+            + " and (:subjectId is null or c.subject.id = :subjectId)"
+            + " and (:tutorId is null or c.tutor.id = :tutorId)"
+            + " order by c.dateTime asc, c.id asc")
+    List<ConsultationSummary> findFutureAfter(@Param("now") LocalDateTime now, @Param("dateTime") LocalDateTime dateTime,
+                                              @Param("id") int id, @Param("subjectId") Integer subjectId,
+                                              @Param("tutorId") Integer tutorId, Pageable pageable);
+
+    /**
+     * Returns future consultations positioned before provided (dateTime, id) key, in descending order.
+     * Subject and tutor filters are ignored when null.
+     */
+    @Query(SUMMARY_SELECT + " where c.dateTime > :now"
+            + " and (c.dateTime < :dateTime or (c.dateTime = :dateTime and c.id < :id))"
+            + " and (:subjectId is null or c.subject.id = :subjectId)"
+            + " and (:tutorId is null or c.tutor.id = :tutorId)"
+            + " order by c.dateTime desc, c.id desc")
+    List<ConsultationSummary> findFutureBefore(@Param("now") LocalDateTime now, @Param("dateTime") LocalDateTime dateTime,
+                                               @Param("id") int id, @Param("subjectId") Integer subjectId,
+                                               @Param("tutorId") Integer tutorId, Pageable pageable);
+
+    /**
+     * Returns future consultations at provided addresses positioned after provided (dateTime, id) key,
+     * in ascending order.
+     */
+    @Query(SUMMARY_SELECT + " where c.dateTime > :now and a.id in :addressIds"
+            + " and (c.dateTime > :dateTime or (c.dateTime = :dateTime and c.id > :id))"
+            + " order by c.dateTime asc, c.id asc")
+    List<ConsultationSummary> findFutureAtAddressesAfter(@Param("now") LocalDateTime now,
+                                                         @Param("addressIds") Collection<Integer> addressIds,
+                                                         @Param("dateTime") LocalDateTime dateTime,
+                                                         @Param("id") int id, Pageable pageable);
+
+    /**
+     * Returns future consultations at provided addresses positioned before provided (dateTime, id) key,
+     * in descending order.
+     */
+    @Query(SUMMARY_SELECT + " where c.dateTime > :now and a.id in :addressIds"
+            + " and (c.dateTime < :dateTime or (c.dateTime = :dateTime and c.id < :id))"
+            + " order by c.dateTime desc, c.id desc")
+    List<ConsultationSummary> findFutureAtAddressesBefore(@Param("now") LocalDateTime now,
+                                                          @Param("addressIds") Collection<Integer> addressIds,
+                                                          @Param("dateTime") LocalDateTime dateTime,
+                                                          @Param("id") int id, Pageable pageable);
+
+    /**
+     * Returns current utilization contribution of consultation with provided ID.
+     */
+    @Query("select new com.tutoring.portal.model.ConsultationUtilization(c.id, c.tutor.id, c.subject.id, c.dateTime,"
+            + " c.maxStudentsNumber, c.registeredCount) from Consultation c where c.id = :id")
+    Optional<ConsultationUtilization> findUtilizationById(@Param("id") int id);
+
+    /**
+     * Returns IDs of consultations not counted in utilization statistics with ID greater than provided one,
+     * in ascending order.
+     */
+    @Query("select c.id from Consultation c where c.id > :id and not exists"
+            + " (select u.consultationId from ConsultationUtilization u where u.consultationId = c.id)"
+            + " order by c.id asc")
+    List<Integer> findIdsWithoutUtilization(@Param("id") int id, Pageable pageable);
+
+    /**
+     * Returns past consultations positioned before provided (dateTime, id) key, in descending order.
+     * Tutor and registered student filters are ignored when null.
+     */
+    @Query(SUMMARY_SELECT + " where c.dateTime < :now"
+            + " and (c.dateTime < :dateTime or (c.dateTime = :dateTime and c.id < :id))"
+            + " and (:tutorId is null or c.tutor.id = :tutorId)"
+            + " and (:studentId is null or c.id in"
+            + " (select rc.id from Consultation rc join rc.students st where st.id = :studentId))"
+            + " order by c.dateTime desc, c.id desc")
+    List<ConsultationSummary> findPastBefore(@Param("now") LocalDateTime now, @Param("dateTime") LocalDateTime dateTime,
+                                             @Param("id") int id, @Param("tutorId") Integer tutorId,
+                                             @Param("studentId") Integer studentId, Pageable pageable);
+
+    /**
+     * Returns past consultations positioned after provided (dateTime, id) key, in ascending order.
+     * Tutor and registered student filters are ignored when null.
+     */
+    @Query(SUMMARY_SELECT + " where c.dateTime < :now"
+            + " and (c.dateTime > :dateTime or (c.dateTime = :dateTime and c.id > :id))"
+            + " and (:tutorId is null or c.tutor.id = :tutorId)"
+            + " and (:studentId is null or c.id in"
+            + " (select rc.id from Consultation rc join rc.students st where st.id = :studentId))"
+            + " order by c.dateTime asc, c.id asc")
+    List<ConsultationSummary> findPastAfter(@Param("now") LocalDateTime now, @Param("dateTime") LocalDateTime dateTime,
+                                            @Param("id") int id, @Param("tutorId") Integer tutorId,
+                                            @Param("studentId") Integer studentId, Pageable pageable);
+
+    /**
+     * Returns consultations created by or registered to by user with provided ID, which start after provided
+     * date and time, nearest first.
+     */
+    @Query(SUMMARY_SELECT + " where c.dateTime > :now and " + USER_CALENDAR_CONDITION + " order by c.dateTime asc, c.id asc")
+    List<ConsultationSummary> findFutureByUser(@Param("userId") int userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Returns oldest consultations, which started before provided date and time.
+     */
+    List<Consultation> findByDateTimeBeforeOrderByDateTimeAsc(LocalDateTime dateTime, Pageable pageable);
+
+    /**
+     * Returns slots of tutor's consultations starting in the provided open interval, except consultation with provided ID.
+     * Backed by (USER_ID, DATE_TIME) index.
+     */
+    @Query("select new com.tutoring.portal.dto.ConsultationSlot(c.id, c.dateTime, c.duration) from Consultation c"
+            + " where c.tutor.id = :tutorId and c.dateTime > :from and c.dateTime < :to and c.id <> :id")
+    List<ConsultationSlot> findTutorSlots(@Param("tutorId") int tutorId, @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to, @Param("id") int id);
+
+    /**
+     * Returns slots of consultations at address starting in the provided open interval, except consultation with provided ID.
+     * Backed by (ADDRESS_ID, DATE_TIME) index.
+     */
+    @Query("select new com.tutoring.portal.dto.ConsultationSlot(c.id, c.dateTime, c.duration) from Consultation c"
+            + " where c.address.id = :addressId and c.dateTime > :from and c.dateTime < :to and c.id <> :id")
+    List<ConsultationSlot> findAddressSlots(@Param("addressId") int addressId, @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to, @Param("id") int id);
+
+    /**
+     * Returns summary of consultation with provided ID.
+     */
+    @Query(SUMMARY_SELECT + " where c.id = :id")
+    Optional<ConsultationSummary> findSummaryById(@Param("id") int id);
+
+    /**
+     * Returns summaries of consultations with provided IDs, in no particular order.
+     */
+    @Query(SUMMARY_SELECT + " where c.id in (:ids)")
+    List<ConsultationSummary> findSummariesByIds(@Param("ids") List<Integer> ids);
+
+    /**
+     * Returns consultations positioned after provided (dateTime, id) key, in ascending order.
+     */
+    @Query(SUMMARY_SELECT + " where c.dateTime > :dateTime or (c.dateTime = :dateTime and c.id > :id)"
+            + " order by c.dateTime asc, c.id asc")
+    List<ConsultationSummary> findSummariesAfter(@Param("dateTime") LocalDateTime dateTime, @Param("id") int id,
+                                                 Pageable pageable);
+
+    /**
+     * Returns summaries of all consultations of tutor with provided ID.
+     */
+    @Query(SUMMARY_SELECT + " where t.id = :tutorId")
+    List<ConsultationSummary> findSummariesByTutor(@Param("tutorId") int tutorId);
+
+    /**
+     * Returns summaries of all consultations of subject with provided ID.
+     */
+    @Query(SUMMARY_SELECT + " where s.id = :subjectId")
+    List<ConsultationSummary> findSummariesBySubject(@Param("subjectId") int subjectId);
+
+    /**
+     * Returns version of consultation's detail page, without loading consultation's entity graph.
+     */
+    @Query("select new com.tutoring.portal.dto.ConsultationVersion(c.id, c.version, c.lastModified, s.subjectName,"
+            + " t.name, t.surname, a.street, a.streetNumber, a.city, a.country)"
+            + " from Consultation c join c.subject s join c.tutor t join c.address a where c.id = :id")
+    Optional<ConsultationVersion> findVersionById(@Param("id") int id);
+
+    /**
+     * Returns consultation with provided ID and increments its version on commit,
+     * so that the transaction conflicts with concurrent registration changes.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select c from Consultation c where c.id = :id")
+    Optional<Consultation> findByIdForUpdate(@Param("id") int id);
+
+    /**
+     * Returns consultations created by or registered to by user with provided ID, positioned after provided
+     * (dateTime, id) key, in ascending order.
+     */
+    @Query("select new com.tutoring.portal.dto.CalendarEvent(c.id, c.dateTime, c.duration, c.description,"
+            + " s.subjectName, t.name, t.surname, a.street, a.streetNumber, a.city, a.country, c.lastModified)"
+            + " from Consultation c join c.subject s join c.tutor t join c.address a"
+            + " where " + USER_CALENDAR_CONDITION
+            + " and (c.dateTime > :dateTime or (c.dateTime = :dateTime and c.id > :id))"
+            + " order by c.dateTime asc, c.id asc")
+    List<CalendarEvent> findCalendarEventsAfter(@Param("userId") int userId, @Param("dateTime") LocalDateTime dateTime,
+                                                @Param("id") int id, Pageable pageable);
+
+    /**
+     * Returns version of calendar of user with provided ID, computed without loading consultations.
+     */
+    @Query("select new com.tutoring.portal.dto.CalendarVersion(count(c), coalesce(sum(c.version), 0),"
+            + " coalesce(sum(c.id), 0), max(c.lastModified)) from Consultation c where " + USER_CALENDAR_CONDITION)
+    CalendarVersion findCalendarVersion(@Param("userId") int userId);
+
+    /**
+     * Sets last modification date and time of subject's consultations, so calendars showing subject's name are changed.
+     */
+    @Modifying
+    @Query("update Consultation c set c.lastModified = :now where c.subject.id = :subjectId")
+    int touchBySubject(@Param("subjectId") int subjectId, @Param("now") LocalDateTime now);
+
+    /**
+     * Sets last modification date and time of consultations at address, so calendars showing the address are changed.
+     */
+    @Modifying
+    @Query("update Consultation c set c.lastModified = :now where c.address.id = :addressId")
+    int touchByAddress(@Param("addressId") int addressId, @Param("now") LocalDateTime now);
+
+    /**
+     * Sets last modification date and time of tutor's consultations, so calendars showing tutor's name are changed.
+     */
+    @Modifying
+    @Query("update Consultation c set c.lastModified = :now where c.tutor.id = :tutorId")
+    int touchByTutor(@Param("tutorId") int tutorId, @Param("now") LocalDateTime now);
+
+    /**
+     * Returns consultations, where user with provided ID is registered as a student.
+     */
+    List<Consultation> findAllByStudentsId(int userId);
+
+    /**
+     * Returns IDs of consultations, where registered students counter differs from the actual number of registrations.
+     */
+    @Query(value = "select c.CONSULTATION_ID from CONSULTATION c where c.REGISTERED_COUNT <>"
+            + " (select count(*) from USER_CONSULTATION uc where uc.CONSULTATION_ID = c.CONSULTATION_ID)",
+            nativeQuery = true)
+    List<Integer> findIdsWithRegisteredCountDrift();
 
-}
\ No newline at end of file
+    /**
+     * Recalculates registered students counter of consultations with provided IDs from actual registrations.
+     * Version is incremented, so concurrent registrations based on the old counter are retried.
+     */
+    @Modifying
+    @Query(value = "update CONSULTATION c set c.REGISTERED_COUNT ="
+            + " (select count(*) from USER_CONSULTATION uc where uc.CONSULTATION_ID = c.CONSULTATION_ID),"
+            + " c.VERSION = c.VERSION + 1, c.LAST_MODIFIED = CURRENT_TIMESTAMP where c.CONSULTATION_ID in (:ids)",
+            nativeQuery = true)
+    int reconcileRegisteredCount(@Param("ids") List<Integer> ids);
+}
@@ -0,0 +1,27 @@
+package com.tutoring.portal.repository;
+
+import com.tutoring.portal.dto.ConsultationCursor;
+import com.tutoring.portal.dto.ConsultationFacets;
+import com.tutoring.portal.dto.ConsultationFilter;
+import com.tutoring.portal.dto.ConsultationSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Consultation queries built dynamically from listing filters.
+ */
+public interface ConsultationRepositoryCustom {
+
+    /**
+     * Returns future consultations matching provided filter, positioned after (ascending) or before (descending)
+     * provided (dateTime, id) key.
+     */
+    List<ConsultationSummary> findFutureFiltered(ConsultationFilter filter, LocalDateTime now, ConsultationCursor cursor,
+                                                 boolean ascending, int limit);
+
+    /**
+     * Returns subject, city and tutor counts of future consultations matching provided filter.
+     */
+    ConsultationFacets countFutureFacets(ConsultationFilter filter, LocalDateTime now);
+}
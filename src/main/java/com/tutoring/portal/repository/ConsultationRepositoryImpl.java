@@ -0,0 +1,129 @@
+package com.tutoring.portal.repository;
+
+import com.tutoring.portal.dto.ConsultationCursor;
+import com.tutoring.portal.dto.ConsultationFacets;
+import com.tutoring.portal.dto.ConsultationFilter;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.model.Address;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.Subject;
+import com.tutoring.portal.model.User;
+import com.tutoring.portal.util.Locations;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria API implementation of filtered consultation queries.
+ * Every filter becomes a predicate of one query, so filtering happens in the database and uses its indexes.
+ */
+public class ConsultationRepositoryImpl implements ConsultationRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ConsultationSummary> findFutureFiltered(ConsultationFilter filter, LocalDateTime now,
+                                                        ConsultationCursor cursor, boolean ascending, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ConsultationSummary> query = cb.createQuery(ConsultationSummary.class);
+        Root<Consultation> consultation = query.from(Consultation.class);
+        Join<Consultation, Subject> subject = consultation.join("subject");
+        Join<Consultation, User> tutor = consultation.join("tutor");
+        Join<Consultation, Address> address = consultation.join("address");
+
+        List<Predicate> predicates = filterPredicates(cb, consultation, address, filter, now);
+        Expression<LocalDateTime> dateTime = consultation.get("dateTime");
+        Expression<Integer> id = consultation.get("id");
+        if (ascending) {
+            predicates.add(cb.or(cb.greaterThan(dateTime, cursor.getDateTime()),
+                    cb.and(cb.equal(dateTime, cursor.getDateTime()), cb.greaterThan(id, cursor.getId()))));
+        } else {
+            predicates.add(cb.or(cb.lessThan(dateTime, cursor.getDateTime()),
+                    cb.and(cb.equal(dateTime, cursor.getDateTime()), cb.lessThan(id, cursor.getId()))));
+        }
+
+        query.select(cb.construct(ConsultationSummary.class, id, dateTime, consultation.get("description"),
+                consultation.get("maxStudentsNumber"), consultation.get("registeredCount"), subject.get("id"),
+                subject.get("subjectName"), tutor.get("id"), tutor.get("name"), tutor.get("surname"),
+                address.get("street"), address.get("streetNumber"), address.get("city"), address.get("country")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(ascending ? cb.asc(dateTime) : cb.desc(dateTime), ascending ? cb.asc(id) : cb.desc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public ConsultationFacets countFutureFacets(ConsultationFilter filter, LocalDateTime now) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Consultation> consultation = query.from(Consultation.class);
+        Join<Consultation, Subject> subject = consultation.join("subject");
+        Join<Consultation, User> tutor = consultation.join("tutor");
+        Join<Consultation, Address> address = consultation.join("address");
+
+        Expression<Integer> freeSeats = cb.<Integer>selectCase()
+                .when(cb.lessThan(consultation.get("registeredCount"), consultation.<Integer>get("maxStudentsNumber")), 1)
+                .otherwise(0);
+        List<Expression<?>> groups = List.of(subject.get("id"), subject.get("subjectName"), address.get("cityKey"),
+                address.get("city"), tutor.get("id"), tutor.get("name"), tutor.get("surname"));
+        query.multiselect(subject.get("id"), subject.get("subjectName"), address.get("cityKey"), address.get("city"),
+                tutor.get("id"), tutor.get("name"), tutor.get("surname"), cb.count(consultation), cb.sum(freeSeats))
+                .where(filterPredicates(cb, consultation, address, filter, now).toArray(new Predicate[0]))
+                .groupBy(groups);
+
+        ConsultationFacets facets = new ConsultationFacets();
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            facets.add(row.get(0, Integer.class), row.get(1, String.class), row.get(2, String.class),
+                    row.get(3, String.class), row.get(4, Integer.class),
+                    row.get(5, String.class) + " " + row.get(6, String.class), row.get(7, Long.class),
+                    row.get(8, Number.class).longValue());
+        }
+        return facets;
+    }
+
+    /**
+     * Returns predicates of provided filter and of future consultations.
+     * @param cb criteria builder
+     * @param consultation consultation root
+     * @param address address join
+     * @param filter filter
+     * @param now current date and time
+     * @return predicates list
+     */
+    private List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Consultation> consultation,
+                                             Join<Consultation, Address> address, ConsultationFilter filter,
+                                             LocalDateTime now) {
+        List<Predicate> predicates = new ArrayList<>();
+        Expression<LocalDateTime> dateTime = consultation.get("dateTime");
+        predicates.add(cb.greaterThan(dateTime, now));
+        if (filter.getSubjectId() != null) {
+            predicates.add(cb.equal(consultation.get("subject").get("id"), filter.getSubjectId()));
+        }
+        if (filter.getTutorId() != null) {
+            predicates.add(cb.equal(consultation.get("tutor").get("id"), filter.getTutorId()));
+        }
+        if (filter.hasCity()) {
+            predicates.add(cb.equal(address.get("cityKey"), Locations.key(filter.getCity())));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(dateTime, filter.getFrom().atStartOfDay()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(dateTime, filter.getTo().plusDays(1).atStartOfDay()));
+        }
+        if (filter.isFreeSeats()) {
+            predicates.add(cb.lessThan(consultation.get("registeredCount"), consultation.<Integer>get("maxStudentsNumber")));
+        }
+        return predicates;
+    }
+}
@@ -0,0 +1,13 @@
+package com.tutoring.portal.repository;
+
+import com.tutoring.portal.model.ConsultationUtilization;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JPA repository for ConsultationUtilization.
+ */
+@Repository
+public interface ConsultationUtilizationRepository extends JpaRepository<ConsultationUtilization, Integer> {
+
+}
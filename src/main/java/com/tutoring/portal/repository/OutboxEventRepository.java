@@ -0,0 +1,25 @@
+package com.tutoring.portal.repository;
+
+import com.tutoring.portal.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * JPA repository for OutboxEvent.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Integer> {
+
+    /**
+     * Returns the oldest events, which aren't dead-lettered.
+     */
+    List<OutboxEvent> findByDeadLetteredFalseOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Returns number of dead-lettered events.
+     */
+    long countByDeadLetteredTrue();
+}
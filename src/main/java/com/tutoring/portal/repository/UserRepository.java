@@ -1,13 +1,82 @@
-package com.tutoring.portal.repository;
-
-import com.tutoring.portal.model.User;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-/**
- * JPA repository for User.
- */
-@Repository
-public interface UserRepository extends JpaRepository<User, Integer> {
-    User findByEmail(String email);
-}
+package com.tutoring.portal.repository;
+
+import com.tutoring.portal.dto.UserSummary;
+import com.tutoring.portal.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JPA repository for User.
+ */
+@Repository
+public interface UserRepository extends JpaRepository<User, Integer> {
+
+    /**
+     * Returns user with provided ID, locking its row until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findByIdForUpdate(@Param("id") int id);
+    User findByEmail(String email);
+
+    User findByCalendarToken(String calendarToken);
+
+    /**
+     * Returns page of users' summaries without their roles.
+     */
+    @Query(value = "select new com.tutoring.portal.dto.UserSummary(u.id, u.name, u.surname, u.email, u.active) from User u",
+            countQuery = "select count(u) from User u")
+    Page<UserSummary> findSummaries(Pageable pageable);
+
+    /**
+     * Returns page of IDs of users with provided role, read through the user-role join table.
+     */
+    @Query(value = "select u.id from User u join u.roles r where r.role = :role",
+            countQuery = "select count(u) from User u join u.roles r where r.role = :role")
+    Page<Integer> findIdsByRole(@Param("role") String role, Pageable pageable);
+
+    /**
+     * Returns page of IDs of users with provided role, who teach subject with provided ID.
+     */
+    @Query(value = "select u.id from User u join u.roles r join u.subjects s where r.role = :role and s.id = :subjectId",
+            countQuery = "select count(u) from User u join u.roles r join u.subjects s"
+                    + " where r.role = :role and s.id = :subjectId")
+    Page<Integer> findIdsByRoleAndSubjectId(@Param("role") String role, @Param("subjectId") int subjectId,
+                                            Pageable pageable);
+
+    /**
+     * Returns users with provided IDs together with their subjects, read by one query.
+     */
+    @Query("select distinct u from User u left join fetch u.subjects where u.id in :ids")
+    List<User> findWithSubjectsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Returns pairs of user's ID and role name for users with provided IDs.
+     */
+    @Query("select u.id, r.role from User u join u.roles r where u.id in :ids")
+    List<Object[]> findRoleNamesByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Returns user with provided email together with its roles, read by one query.
+     */
+    @Query("select u from User u left join fetch u.roles where u.email = :email")
+    Optional<User> findWithRolesByEmail(@Param("email") String email);
+
+    /**
+     * Replaces encoded password of user with provided email.
+     */
+    @Modifying
+    @Query("update User u set u.password = :password where u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
+}
@@ -0,0 +1,43 @@
+package com.tutoring.portal.repository;
+
+import com.tutoring.portal.dto.UtilizationSummary;
+import com.tutoring.portal.model.UtilizationStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JPA repository for UtilizationStat.
+ * Summaries are read from the statistics table only, subject and tutor are joined by primary key for their names.
+ */
+@Repository
+public interface UtilizationStatRepository extends JpaRepository<UtilizationStat, Integer> {
+
+    String SUMS = " sum(u.slots), sum(u.fullSlots), sum(u.capacity), sum(u.registrations), sum(u.cancelled))";
+
+    /**
+     * Returns statistics row of provided tutor, subject and date.
+     */
+    Optional<UtilizationStat> findByTutorIdAndSubjectIdAndDate(int tutorId, int subjectId, LocalDate date);
+
+    /**
+     * Returns utilization totals per subject between provided dates, inclusive.
+     */
+    @Query("select new com.tutoring.portal.dto.UtilizationSummary(s.id, s.subjectName," + SUMS
+            + " from UtilizationStat u, Subject s where s.id = u.subjectId and u.date between :from and :to"
+            + " group by s.id, s.subjectName order by s.subjectName")
+    List<UtilizationSummary> summarizeBySubject(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Returns utilization totals per tutor between provided dates, inclusive.
+     */
+    @Query("select new com.tutoring.portal.dto.UtilizationSummary(t.id, concat(t.name, ' ', t.surname)," + SUMS
+            + " from UtilizationStat u, User t where t.id = u.tutorId and u.date between :from and :to"
+            + " group by t.id, t.name, t.surname order by t.surname, t.name")
+    List<UtilizationSummary> summarizeByTutor(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,34 @@
+package com.tutoring.portal.repository;
+
+import com.tutoring.portal.model.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * JPA repository for WaitlistEntry.
+ */
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Integer> {
+
+    /**
+     * Returns the oldest waitlist entry of consultation with provided ID.
+     */
+    Optional<WaitlistEntry> findFirstByConsultationIdOrderByIdAsc(int consultationId);
+
+    /**
+     * Returns waitlist entry of user with provided ID for consultation with provided ID.
+     */
+    Optional<WaitlistEntry> findByConsultationIdAndUserId(int consultationId, int userId);
+
+    /**
+     * Returns number of consultation's waitlist entries up to and including entry with provided ID.
+     */
+    int countByConsultationIdAndIdLessThanEqual(int consultationId, int id);
+
+    /**
+     * Deletes all waitlist entries of user with provided ID.
+     */
+    void deleteAllByUserId(int userId);
+}
@@ -2,17 +2,62 @@ package com.tutoring.portal.service;
 
 import com.tutoring.portal.model.Address;
 import com.tutoring.portal.repository.AddressRepository;
+import com.tutoring.portal.repository.ConsultationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Service
 public class AddressService {
 
+    /**
+     * Number of addresses updated by one transaction while filling missing location keys.
+     */
+    static final int KEYS_BATCH_SIZE = 100;
+
+    private static final Logger logger = LoggerFactory.getLogger(AddressService.class);
+
     @Autowired
     private AddressRepository addressRepository;
 
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    /**
+     * Fills location keys of addresses written without them, e.g. by SQL scripts, when application is started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillLocationKeys() {
+        int filled = 0;
+        int lastId = 0;
+        List<Address> addresses;
+        do {
+            addresses = addressRepository.findByCityKeyIsNullAndIdGreaterThanOrderByIdAsc(lastId,
+                    PageRequest.of(0, KEYS_BATCH_SIZE));
+            if (!addresses.isEmpty()) {
+                addresses.forEach(Address::updateLocationKeys);
+                addressRepository.saveAll(addresses);
+                lastId = addresses.get(addresses.size() - 1).getId();
+                filled += addresses.size();
+            }
+        } while (addresses.size() == KEYS_BATCH_SIZE);
+        if (filled > 0) {
+            logger.info("Filled location keys of {} addresses", filled);
+        }
+    }
+
     /**
      * Returns address with provided ID or null, if address wasn't found.
      * @param id address ID
@@ -28,15 +73,23 @@ public class AddressService {
      * @param address address
      * @return saved address
      */
+    @Transactional
     public Address saveAddress(Address address) {
-        return addressRepository.save(address);
+        Address saved = addressRepository.save(address);
+        // address is shown in calendars
+        consultationRepository.touchByAddress(saved.getId(), LocalDateTime.now());
+        return saved;
     }
 
     /**
-     * Deletes address with provided ID.
+     * Deletes address with provided ID together with its consultations.
      * @param id address ID
      */
+    @Transactional
     public void deleteAddress(int id) {
+        // address's consultations are deleted by cascade
+        addressRepository.findById(id).ifPresent(address ->
+                address.getConsultations().forEach(consultationService::recordCascadeDeletion));
         addressRepository.deleteById(id);
     }
 }
@@ -0,0 +1,181 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.CalendarEvent;
+import com.tutoring.portal.dto.CalendarVersion;
+import com.tutoring.portal.model.User;
+import com.tutoring.portal.repository.ConsultationRepository;
+import com.tutoring.portal.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+
+@Service
+public class CalendarService {
+
+    /**
+     * Number of consultations read by one query while writing a calendar.
+     */
+    static final int PAGE_SIZE = 200;
+
+    private static final int TOKEN_BYTES = 32;
+
+    private static final LocalDateTime CALENDAR_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private static final String CRLF = "\r\n";
+
+    private static final DateTimeFormatter UTC_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Returns calendar token of provided user, generating it on first use.
+     * @param user user
+     * @return calendar token
+     */
+    public String getCalendarToken(User user) {
+        if (user.getCalendarToken() == null) {
+            byte[] bytes = new byte[TOKEN_BYTES];
+            random.nextBytes(bytes);
+            user.setCalendarToken(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+            userRepository.save(user);
+        }
+        return user.getCalendarToken();
+    }
+
+    /**
+     * Returns active user with provided calendar token or null, if token is unknown.
+     * @param token calendar token
+     * @return user with provided calendar token
+     */
+    public User findUserByCalendarToken(String token) {
+        User user = userRepository.findByCalendarToken(token);
+        return user != null && user.getActive() == 1 ? user : null;
+    }
+
+    /**
+     * Returns version of calendar of user with provided ID.
+     * @param userId user's ID
+     * @return calendar version
+     */
+    public CalendarVersion getCalendarVersion(int userId) {
+        return consultationRepository.findCalendarVersion(userId);
+    }
+
+    /**
+     * Writes consultations created by or registered to by user with provided ID as iCalendar.
+     * Consultations are read page by page, so the whole calendar is never held in memory.
+     * @param userId user's ID
+     * @param writer writer
+     * @throws IOException if writing fails
+     */
+    public void writeCalendar(int userId, Writer writer) throws IOException {
+        writeLine(writer, "BEGIN:VCALENDAR");
+        writeLine(writer, "VERSION:2.0");
+        writeLine(writer, "PRODID:-//Tutoring Portal//Consultations//EN");
+        writeLine(writer, "CALSCALE:GREGORIAN");
+        writeLine(writer, "METHOD:PUBLISH");
+        writeLine(writer, "X-WR-CALNAME:Tutoring consultations");
+        LocalDateTime dateTime = CALENDAR_START;
+        int id = 0;
+        List<CalendarEvent> events;
+        do {
+            events = consultationRepository.findCalendarEventsAfter(userId, dateTime, id, PageRequest.of(0, PAGE_SIZE));
+            for (CalendarEvent event : events) {
+                writeEvent(writer, event);
+            }
+            if (!events.isEmpty()) {
+                CalendarEvent last = events.get(events.size() - 1);
+                dateTime = last.getDateTime();
+                id = last.getId();
+            }
+            writer.flush();
+        } while (events.size() == PAGE_SIZE);
+        writeLine(writer, "END:VCALENDAR");
+        writer.flush();
+    }
+
+    /**
+     * Writes provided consultation as VEVENT.
+     * @param writer writer
+     * @param event consultation
+     * @throws IOException if writing fails
+     */
+    private void writeEvent(Writer writer, CalendarEvent event) throws IOException {
+        writeLine(writer, "BEGIN:VEVENT");
+        writeLine(writer, "UID:consultation-" + event.getId() + "@tutoring-portal");
+        writeLine(writer, "DTSTAMP:" + formatUtc(event.getLastModified()));
+        writeLine(writer, "LAST-MODIFIED:" + formatUtc(event.getLastModified()));
+        writeLine(writer, "DTSTART:" + formatUtc(event.getDateTime()));
+        writeLine(writer, "DTEND:" + formatUtc(event.getEndDateTime()));
+        writeLine(writer, "SUMMARY:" + escape(event.getSubjectName()));
+        writeLine(writer, "DESCRIPTION:" + escape(event.getDescription() + "\nTutor: " + event.getTutorName()));
+        writeLine(writer, "LOCATION:" + escape(event.getAddress()));
+        writeLine(writer, "END:VEVENT");
+    }
+
+    /**
+     * Writes content line, folding it into lines of at most 75 octets as required by RFC 5545.
+     * @param writer writer
+     * @param line content line
+     * @throws IOException if writing fails
+     */
+    private void writeLine(Writer writer, String line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); i += Character.charCount(line.codePointAt(i))) {
+            String character = new String(Character.toChars(line.codePointAt(i)));
+            int length = character.getBytes(StandardCharsets.UTF_8).length;
+            if (octets + length > MAX_LINE_OCTETS) {
+                writer.write(CRLF);
+                writer.write(' ');
+                octets = 1;
+            }
+            writer.write(character);
+            octets += length;
+        }
+        writer.write(CRLF);
+    }
+
+    /**
+     * Escapes text value according to RFC 5545.
+     * @param value text
+     * @return escaped text
+     */
+    private String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    /**
+     * Formats provided local date and time as UTC date and time.
+     * @param dateTime local date and time
+     * @return formatted date and time
+     */
+    private String formatUtc(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).format(UTC_FORMATTER);
+    }
+}
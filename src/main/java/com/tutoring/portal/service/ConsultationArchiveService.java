@@ -0,0 +1,120 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.model.ArchivedConsultation;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.User;
+import com.tutoring.portal.repository.ArchivedConsultationRepository;
+import com.tutoring.portal.repository.ConsultationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class ConsultationArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsultationArchiveService.class);
+
+    @Value("${consultation.archive.horizon-days}")
+    private int horizonDays;
+
+    @Value("${consultation.archive.batch-size}")
+    private int batchSize;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private ArchivedConsultationRepository archivedConsultationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate batchTransaction;
+
+    /**
+     * Creates transaction template for archive batches, so every batch is committed separately.
+     */
+    @PostConstruct
+    void initBatchTransaction() {
+        batchTransaction = new TransactionTemplate(transactionManager);
+        batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Moves consultations older than archive horizon with their registrations to archive tables.
+     * Consultations are moved in bounded batches, each in its own transaction, to keep locks and memory usage small.
+     * @return number of archived consultations
+     */
+    @Scheduled(initialDelayString = "${consultation.archive.delay}", fixedDelayString = "${consultation.archive.delay}")
+    public int archivePastConsultations() {
+        LocalDateTime horizon = LocalDateTime.now().minusDays(horizonDays);
+        int archived = 0;
+        int moved;
+        do {
+            moved = batchTransaction.execute(status -> archiveBatch(horizon));
+            archived += moved;
+        } while (moved == batchSize);
+        if (archived > 0) {
+            logger.info("Archived {} consultations older than {}", archived, horizon);
+        }
+        return archived;
+    }
+
+    /**
+     * Moves one batch of the oldest consultations started before provided date and time to archive tables.
+     * Waitlist entries of moved consultations are deleted with them.
+     * @param horizon archive horizon
+     * @return number of moved consultations
+     */
+    private int archiveBatch(LocalDateTime horizon) {
+        List<Consultation> consultations = consultationRepository.findByDateTimeBeforeOrderByDateTimeAsc(horizon,
+                PageRequest.of(0, batchSize));
+        LocalDateTime now = LocalDateTime.now();
+        archivedConsultationRepository.saveAll(consultations.stream()
+                .map(consultation -> toArchived(consultation, now))
+                .collect(Collectors.toList()));
+        consultationRepository.deleteAll(consultations);
+        return consultations.size();
+    }
+
+    /**
+     * Copies consultation with its related data to a new archived consultation.
+     * @param consultation consultation
+     * @param now archiving date and time
+     * @return archived consultation
+     */
+    private ArchivedConsultation toArchived(Consultation consultation, LocalDateTime now) {
+        ArchivedConsultation archived = new ArchivedConsultation();
+        archived.setId(consultation.getId());
+        archived.setDescription(consultation.getDescription());
+        archived.setMaxStudentsNumber(consultation.getMaxStudentsNumber());
+        archived.setDuration(consultation.getDuration());
+        archived.setDateTime(consultation.getDateTime());
+        archived.setRegisteredCount(consultation.getStudents().size());
+        archived.setSubjectId(consultation.getSubject().getId());
+        archived.setSubjectName(consultation.getSubject().getSubjectName());
+        archived.setTutorId(consultation.getTutor().getId());
+        archived.setTutorName(consultation.getTutor().getName());
+        archived.setTutorSurname(consultation.getTutor().getSurname());
+        archived.setStreet(consultation.getAddress().getStreet());
+        archived.setStreetNumber(consultation.getAddress().getStreetNumber());
+        archived.setCity(consultation.getAddress().getCity());
+        archived.setCountry(consultation.getAddress().getCountry());
+        archived.setStudentIds(consultation.getStudents().stream().map(User::getId).collect(Collectors.toSet()));
+        archived.setArchived(now);
+        return archived;
+    }
+}
@@ -0,0 +1,28 @@
+package com.tutoring.portal.service;
+
+/**
+ * Thrown when consultation's maximum number of students is set below the number of already registered students.
+ */
+public class ConsultationCapacityException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int registeredCount;
+
+    /**
+     * Constructor with number of registered students.
+     * @param registeredCount number of students registered to consultation
+     */
+    public ConsultationCapacityException(int registeredCount) {
+        super("Consultation already has " + registeredCount + " registered students");
+        this.registeredCount = registeredCount;
+    }
+
+    /**
+     * Getter for registeredCount.
+     * @return registeredCount
+     */
+    public int getRegisteredCount() {
+        return registeredCount;
+    }
+}
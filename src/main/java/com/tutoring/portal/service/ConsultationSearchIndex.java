@@ -0,0 +1,376 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.ConsultationCursor;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.repository.ArchivedConsultationRepository;
+import com.tutoring.portal.repository.ConsultationRepository;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Embedded Lucene index over consultations' descriptions, subject names and tutor names, used for full-text search.
+ * Index covers both current and archived consultations. It is rebuilt from the database when application is started
+ * and updated after every committed change of indexed data.
+ */
+@Service
+public class ConsultationSearchIndex {
+
+    /**
+     * Number of most relevant consultations, which can be paged through.
+     */
+    static final int MAX_RESULT_WINDOW = 10000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsultationSearchIndex.class);
+
+    private static final String ID = "id";
+
+    private static final String TUTOR_ID = "tutorId";
+
+    private static final String SUBJECT = "subject";
+
+    private static final String TUTOR = "tutor";
+
+    private static final String DESCRIPTION = "description";
+
+    private static final float SUBJECT_BOOST = 3f;
+
+    private static final float TUTOR_BOOST = 2f;
+
+    private static final LocalDateTime INDEX_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private final ConcurrentHashMap<Integer, Boolean> refreshing = new ConcurrentHashMap<>();
+
+    private final Set<Integer> refreshedWhileBuilding = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean building = true;
+
+    @Value("${consultation.search.index-path}")
+    private String indexPath;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private ArchivedConsultationRepository archivedConsultationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readTransaction;
+
+    private Directory directory;
+
+    private IndexWriter writer;
+
+    private SearcherManager searcherManager;
+
+    /**
+     * Opens an empty index, in memory or in the configured directory.
+     * @throws IOException if index cannot be opened
+     */
+    @PostConstruct
+    void open() throws IOException {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+
+        directory = indexPath.isEmpty() ? new ByteBuffersDirectory() : FSDirectory.open(Paths.get(indexPath));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    /**
+     * Closes the index when application is stopped.
+     * @throws IOException if index cannot be closed
+     */
+    @PreDestroy
+    void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Indexes all consultations when application is started.
+     * Consultations refreshed while indexing are newer than loaded ones, so they are kept.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        int indexed = buildFrom((cursor, limit) -> consultationRepository.findSummariesAfter(cursor.getDateTime(),
+                cursor.getId(), limit));
+        indexed += buildFrom((cursor, limit) -> archivedConsultationRepository.findAfter(cursor.getDateTime(),
+                cursor.getId(), limit));
+        building = false;
+        refreshedWhileBuilding.clear();
+        maybeRefreshSearcher();
+        logger.info("Indexed {} consultations for search in {} ms", indexed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns IDs of consultations matching all words of provided text, most relevant first.
+     * Matches in subject name rank higher than matches in tutor's name, which rank higher than matches in description.
+     * Only the first {@link #MAX_RESULT_WINDOW} consultations are returned.
+     * @param text search text
+     * @param offset number of skipped consultations
+     * @param limit maximum number of consultations
+     * @return consultations' IDs
+     */
+    public List<Integer> search(String text, int offset, int limit) {
+        Query query = buildQuery(text);
+        int hits = (int) Math.min((long) offset + limit, MAX_RESULT_WINDOW);
+        if (query == null || offset >= hits) {
+            return Collections.emptyList();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, hits);
+                List<Integer> ids = new ArrayList<>();
+                for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                    ids.add(Integer.valueOf(searcher.doc(scoreDoc.doc, Collections.singleton(ID)).get(ID)));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reindexes consultation with provided ID once the current transaction commits,
+     * or immediately, if there is no transaction.
+     * @param id consultation's ID
+     */
+    public void refreshAfterCommit(int id) {
+        afterCommit(() -> {
+            refresh(id);
+            maybeRefreshSearcher();
+        });
+    }
+
+    /**
+     * Reindexes consultations of tutor with provided ID once the current transaction commits, e.g. after tutor is renamed.
+     * @param tutorId tutor's ID
+     */
+    public void refreshTutorAfterCommit(int tutorId) {
+        afterCommit(() -> {
+            readTransaction.execute(status -> consultationRepository.findSummariesByTutor(tutorId))
+                    .forEach(summary -> refresh(summary.getId()));
+            maybeRefreshSearcher();
+        });
+    }
+
+    /**
+     * Reindexes consultations of subject with provided ID once the current transaction commits, e.g. after subject is renamed.
+     * @param subjectId subject's ID
+     */
+    public void refreshSubjectAfterCommit(int subjectId) {
+        afterCommit(() -> {
+            readTransaction.execute(status -> consultationRepository.findSummariesBySubject(subjectId))
+                    .forEach(summary -> refresh(summary.getId()));
+            maybeRefreshSearcher();
+        });
+    }
+
+    /**
+     * Removes all consultations of tutor with provided ID from the index once the current transaction commits.
+     * @param tutorId tutor's ID
+     */
+    public void removeTutorAfterCommit(int tutorId) {
+        afterCommit(() -> {
+            try {
+                writer.deleteDocuments(new Term(TUTOR_ID, String.valueOf(tutorId)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            maybeRefreshSearcher();
+        });
+    }
+
+    /**
+     * Reloads consultation with provided ID from the database, falling back to archive, and reindexes it.
+     * Reload happens under the consultation's lock, so concurrent refreshes of one consultation are applied in order.
+     * @param id consultation's ID
+     */
+    void refresh(int id) {
+        refreshing.compute(id, (key, ignored) -> {
+            Optional<ConsultationSummary> summary = readTransaction.execute(status -> {
+                Optional<ConsultationSummary> current = consultationRepository.findSummaryById(id);
+                return current.isPresent() ? current : archivedConsultationRepository.findSummaryById(id);
+            });
+            try {
+                if (summary.isPresent()) {
+                    writer.updateDocument(new Term(ID, String.valueOf(id)), toDocument(summary.get()));
+                } else {
+                    writer.deleteDocuments(new Term(ID, String.valueOf(id)));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (building) {
+                refreshedWhileBuilding.add(id);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Indexes all consultations returned by provided keyset query in batches.
+     * @param query query returning consultations after the cursor in ascending order
+     * @return number of indexed consultations
+     */
+    private int buildFrom(BiFunction<ConsultationCursor, PageRequest, List<ConsultationSummary>> query) {
+        int indexed = 0;
+        ConsultationCursor cursor = new ConsultationCursor(INDEX_START, 0);
+        List<ConsultationSummary> batch;
+        do {
+            ConsultationCursor from = cursor;
+            batch = readTransaction.execute(status -> query.apply(from,
+                    PageRequest.of(0, UpcomingConsultationIndex.LOAD_BATCH_SIZE)));
+            for (ConsultationSummary summary : batch) {
+                refreshing.compute(summary.getId(), (key, ignored) -> {
+                    if (!refreshedWhileBuilding.contains(key)) {
+                        try {
+                            writer.updateDocument(new Term(ID, String.valueOf(key)), toDocument(summary));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    return null;
+                });
+            }
+            indexed += batch.size();
+            if (!batch.isEmpty()) {
+                cursor = ConsultationCursor.of(batch.get(batch.size() - 1));
+            }
+        } while (batch.size() == UpcomingConsultationIndex.LOAD_BATCH_SIZE);
+        return indexed;
+    }
+
+    /**
+     * Builds query requiring every word of provided text to match subject name, tutor's name or description.
+     * @param text search text
+     * @return query or null, if text has no searchable words
+     */
+    private Query buildQuery(String text) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        boolean empty = true;
+        try (TokenStream tokens = analyzer.tokenStream(DESCRIPTION, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                String word = term.toString();
+                Query anyField = new BooleanQuery.Builder()
+                        .add(new BoostQuery(new TermQuery(new Term(SUBJECT, word)), SUBJECT_BOOST), BooleanClause.Occur.SHOULD)
+                        .add(new BoostQuery(new TermQuery(new Term(TUTOR, word)), TUTOR_BOOST), BooleanClause.Occur.SHOULD)
+                        .add(new TermQuery(new Term(DESCRIPTION, word)), BooleanClause.Occur.SHOULD)
+                        .build();
+                query.add(anyField, BooleanClause.Occur.MUST);
+                empty = false;
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return empty ? null : query.build();
+    }
+
+    /**
+     * Creates index document of provided consultation. Only ID is stored, everything else is read from the database.
+     * @param summary consultation
+     * @return document
+     */
+    private Document toDocument(ConsultationSummary summary) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(summary.getId()), Field.Store.YES));
+        document.add(new StringField(TUTOR_ID, String.valueOf(summary.getTutorId()), Field.Store.NO));
+        document.add(new TextField(SUBJECT, summary.getSubjectName(), Field.Store.NO));
+        document.add(new TextField(TUTOR, summary.getTutorName(), Field.Store.NO));
+        if (summary.getDescription() != null) {
+            document.add(new TextField(DESCRIPTION, summary.getDescription(), Field.Store.NO));
+        }
+        return document;
+    }
+
+    /**
+     * Makes committed index changes visible to searches.
+     */
+    private void maybeRefreshSearcher() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs provided action once the current transaction commits, or immediately, if there is no transaction.
+     * @param action action
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,52 +1,901 @@
-package com.tutoring.portal.service;
-
-import com.tutoring.portal.model.Consultation;
-import com.tutoring.portal.repository.ConsultationRepository;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-
-@Service
-public class ConsultationService {
-
-    @Autowired
-    private ConsultationRepository consultationRepository;
-
-    /**
-     * Returns list with all consultations from the database.
-     * @return consultations list
-     */
-    public List<Consultation> getAllConsultations() {
-        return new ArrayList<>(consultationRepository.findAll());
-    }
-
-    /**
-     * Returns consultation with provided ID or null, if consultation wasn't found.
-     * @param id consultation's ID
-     * @return consultation with provided ID
-     */
-    public Consultation getConsultationById(int id) {
-        Optional<Consultation> consultation = consultationRepository.findById(id);
-        return consultation.orElse(null);
-    }
-
-    /**
-     * Saves provided consultation and returns it.
-     * @param consultation consultation
-     * @return saved consultation
-     */
-    public Consultation saveConsultation(Consultation consultation) {
-        return consultationRepository.save(consultation);
-    }
-
-    /**
-     * Deletes consultation with provided ID.
-     * @param id consultation's ID
-     */
-    public void deleteConsultation(int id) {
-        consultationRepository.deleteById(id);
-    }
-}
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.AddressLocation;
+import com.tutoring.portal.dto.ConsultationCursor;
+import com.tutoring.portal.dto.ConsultationDashboard;
+import com.tutoring.portal.dto.ConsultationFacets;
+import com.tutoring.portal.dto.ConsultationFilter;
+import com.tutoring.portal.dto.ConsultationPage;
+import com.tutoring.portal.dto.ConsultationSlot;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.dto.ConsultationVersion;
+import com.tutoring.portal.event.ConsultationCancelled;
+import com.tutoring.portal.event.ConsultationCreated;
+import com.tutoring.portal.event.ConsultationEventOutbox;
+import com.tutoring.portal.event.ConsultationRegistered;
+import com.tutoring.portal.event.ConsultationUnregistered;
+import com.tutoring.portal.event.ConsultationUpdated;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.User;
+import com.tutoring.portal.model.WaitlistEntry;
+import com.tutoring.portal.repository.AddressRepository;
+import com.tutoring.portal.repository.ArchivedConsultationRepository;
+import com.tutoring.portal.repository.ConsultationRepository;
+import com.tutoring.portal.repository.UserRepository;
+import com.tutoring.portal.repository.WaitlistEntryRepository;
+import com.tutoring.portal.util.Locations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Service
+public class ConsultationService {
+
+    /**
+     * Maximum number of consultations on one page.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Maximum number of attempts for registration and unregistration when consultation is modified concurrently.
+     */
+    static final int MAX_REGISTRATION_ATTEMPTS = 10;
+
+    /**
+     * Number of past consultations of each kind shown on user's dashboard.
+     */
+    public static final int DASHBOARD_PAST_PAGE_SIZE = 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsultationService.class);
+
+    private static final Comparator<ConsultationSummary> MOST_RECENT_FIRST =
+            Comparator.comparing(ConsultationCursor::of, Comparator.reverseOrder());
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private ArchivedConsultationRepository archivedConsultationRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private UpcomingConsultationIndex upcomingConsultationIndex;
+
+    @Autowired
+    private ConsultationSearchIndex consultationSearchIndex;
+
+    @Autowired
+    private ConsultationEventOutbox consultationEventOutbox;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate registrationTransaction;
+
+    /**
+     * Creates transaction template for registrations.
+     * Every attempt runs in a new transaction with its own persistence context, so retries read fresh data.
+     */
+    @PostConstruct
+    void initRegistrationTransaction() {
+        registrationTransaction = new TransactionTemplate(transactionManager);
+        registrationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Returns list with all consultations from the database.
+     * @return consultations list
+     */
+    public List<Consultation> getAllConsultations() {
+        return new ArrayList<>(consultationRepository.findAll());
+    }
+
+    /**
+     * Returns page of past consultations, most recent first.
+     * Cursor 'after' moves to older consultations, cursor 'before' moves back to more recent ones.
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size requested page size
+     * @return consultations page
+     */
+    public ConsultationPage getPastConsultationsPage(String after, String before, int size) {
+        return getPastConsultationsPage(null, null, after, before, size);
+    }
+
+    /**
+     * Returns page of past consultations of provided tutor or student, most recent first.
+     * Cursor 'after' moves to older consultations, cursor 'before' moves back to more recent ones.
+     * @param tutorId tutor's ID or null to include consultations of all tutors
+     * @param studentId registered student's ID or null to include consultations of all students
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size requested page size
+     * @return consultations page
+     */
+    public ConsultationPage getPastConsultationsPage(Integer tutorId, Integer studentId, String after, String before,
+                                                     int size) {
+        LocalDateTime now = LocalDateTime.now();
+        return getPastConsultationsPage(now, tutorId, studentId, after, before, size);
+    }
+
+    /**
+     * Returns consultations created by and registered to by user with provided ID.
+     * Future consultations of both kinds are read by one query and split in one pass, past consultations
+     * are limited to the first page, so the dashboard stays cheap for users with long history.
+     * @param userId user's ID
+     * @return user's consultations
+     */
+    public ConsultationDashboard getDashboard(int userId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ConsultationSummary> createdFuture = new ArrayList<>();
+        List<ConsultationSummary> registeredFuture = new ArrayList<>();
+        for (ConsultationSummary consultation : consultationRepository.findFutureByUser(userId, now)) {
+            // tutor can't register to own consultation, so every row belongs to exactly one list
+            (consultation.getTutorId() == userId ? createdFuture : registeredFuture).add(consultation);
+        }
+        return new ConsultationDashboard(
+                getPastConsultationsPage(now, userId, null, null, null, DASHBOARD_PAST_PAGE_SIZE), createdFuture,
+                getPastConsultationsPage(now, null, userId, null, null, DASHBOARD_PAST_PAGE_SIZE), registeredFuture);
+    }
+
+    /**
+     * Returns version of detail page of consultation with provided ID or null, if it wasn't found.
+     * @param id consultation's ID
+     * @return consultation's version
+     */
+    public ConsultationVersion getConsultationVersion(int id) {
+        return consultationRepository.findVersionById(id).orElse(null);
+    }
+
+    /**
+     * Returns summary of archived consultation with provided ID or null, if it wasn't found.
+     * @param id consultation's ID
+     * @return archived consultation's summary
+     */
+    public ConsultationSummary getArchivedConsultationById(int id) {
+        return archivedConsultationRepository.findSummaryById(id).orElse(null);
+    }
+
+    /**
+     * Returns page of future consultations, nearest first.
+     * Subject and tutor filters are optional. Page is read from the upcoming consultations index once it is loaded.
+     * @param subjectId subject's ID or null
+     * @param tutorId tutor's ID or null
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size requested page size
+     * @return consultations page
+     */
+    public ConsultationPage getFutureConsultationsPage(Integer subjectId, Integer tutorId, String after, String before, int size) {
+        LocalDateTime now = LocalDateTime.now();
+        if (upcomingConsultationIndex.isReady()) {
+            return getPage(new ConsultationCursor(now, Integer.MAX_VALUE),
+                    (cursor, limit) -> upcomingConsultationIndex.findAfter(now, cursor, subjectId, tutorId, limit.getPageSize()),
+                    (cursor, limit) -> upcomingConsultationIndex.findBefore(now, cursor, subjectId, tutorId, limit.getPageSize()),
+                    after, before, size);
+        }
+        return getPage(new ConsultationCursor(now, Integer.MAX_VALUE),
+                (cursor, limit) -> consultationRepository.findFutureAfter(now, cursor.getDateTime(), cursor.getId(), subjectId, tutorId, limit),
+                (cursor, limit) -> consultationRepository.findFutureBefore(now, cursor.getDateTime(), cursor.getId(), subjectId, tutorId, limit),
+                after, before, size);
+    }
+
+    /**
+     * Returns page of future consultations matching provided filter, nearest first.
+     * Filters by subject and tutor only are answered like unfiltered listing, other filters are pushed down into one
+     * dynamic database query.
+     * @param filter filter
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size requested page size
+     * @return consultations page
+     */
+    public ConsultationPage getFutureConsultationsPage(ConsultationFilter filter, String after, String before, int size) {
+        if (!filter.hasExtendedFilters()) {
+            return getFutureConsultationsPage(filter.getSubjectId(), filter.getTutorId(), after, before, size);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return getPage(new ConsultationCursor(now, Integer.MAX_VALUE),
+                (cursor, limit) -> consultationRepository.findFutureFiltered(filter, now, cursor, true, limit.getPageSize()),
+                (cursor, limit) -> consultationRepository.findFutureFiltered(filter, now, cursor, false, limit.getPageSize()),
+                after, before, size);
+    }
+
+    /**
+     * Returns subject, city and tutor counts of future consultations matching provided filter.
+     * @param filter filter
+     * @return facet counts
+     */
+    public ConsultationFacets getFutureConsultationFacets(ConsultationFilter filter) {
+        return consultationRepository.countFutureFacets(filter, LocalDateTime.now());
+    }
+
+    /**
+     * Returns page of future consultations at addresses within provided radius from provided point, nearest in time
+     * first. Candidate addresses are read from the grid cell index and checked by exact distance, then consultations
+     * are paged by their address IDs, so addresses and consultations are never loaded as entities.
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @param radiusKm radius in kilometers, limited to {@link Locations#MAX_RADIUS_KM}
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size requested page size
+     * @return consultations page
+     */
+    public ConsultationPage getFutureConsultationsNear(double latitude, double longitude, double radiusKm,
+                                                       String after, String before, int size) {
+        double radius = Math.max(0, Math.min(radiusKm, Locations.MAX_RADIUS_KM));
+        List<Integer> addressIds = addressRepository.findLocationsInCells(Locations.cellsWithin(latitude, longitude, radius))
+                .stream()
+                .filter(location -> location.distanceKm(latitude, longitude) <= radius)
+                .map(AddressLocation::getId)
+                .collect(Collectors.toList());
+        if (addressIds.isEmpty()) {
+            return new ConsultationPage(Collections.emptyList(), null, null, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return getPage(new ConsultationCursor(now, Integer.MAX_VALUE),
+                (cursor, limit) -> consultationRepository.findFutureAtAddressesAfter(now, addressIds,
+                        cursor.getDateTime(), cursor.getId(), limit),
+                (cursor, limit) -> consultationRepository.findFutureAtAddressesBefore(now, addressIds,
+                        cursor.getDateTime(), cursor.getId(), limit),
+                after, before, size);
+    }
+
+    /**
+     * Returns page of current and archived consultations matching provided search text, most relevant first.
+     * Cursors of search pages are offsets in the ranked results.
+     * @param text search text
+     * @param after offset of the page to continue from, optional
+     * @param before offset of the page to go back from, optional
+     * @param size requested page size
+     * @return consultations page
+     */
+    public ConsultationPage searchConsultations(String text, String after, String before, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int offset = 0;
+        Integer beforeOffset = parseOffset(before);
+        Integer afterOffset = parseOffset(after);
+        if (beforeOffset != null) {
+            offset = Math.max(0, beforeOffset - pageSize);
+        } else if (afterOffset != null) {
+            offset = afterOffset;
+        }
+        List<Integer> ids = consultationSearchIndex.search(text, offset, pageSize + 1);
+        boolean hasNext = ids.size() > pageSize;
+        if (hasNext) {
+            ids = ids.subList(0, pageSize);
+        }
+
+        Map<Integer, ConsultationSummary> found = new HashMap<>();
+        if (!ids.isEmpty()) {
+            consultationRepository.findSummariesByIds(ids).forEach(summary -> found.put(summary.getId(), summary));
+            archivedConsultationRepository.findSummariesByIds(ids).forEach(summary -> found.putIfAbsent(summary.getId(), summary));
+        }
+        // keep ranking order, consultations deleted after search are skipped
+        List<ConsultationSummary> consultations = ids.stream().map(found::get).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new ConsultationPage(consultations, offset > 0 ? String.valueOf(offset) : null,
+                hasNext ? String.valueOf(offset + pageSize) : null, pageSize);
+    }
+
+    /**
+     * Returns consultation with provided ID or null, if consultation wasn't found.
+     * @param id consultation's ID
+     * @return consultation with provided ID
+     */
+    public Consultation getConsultationById(int id) {
+        Optional<Consultation> consultation = consultationRepository.findById(id);
+        return consultation.orElse(null);
+    }
+
+    /**
+     * Saves provided consultation and returns it.
+     * @param consultation consultation
+     * @return saved consultation
+     */
+    @Transactional
+    public Consultation saveConsultation(Consultation consultation) {
+        boolean created = consultation.getId() == 0;
+        Consultation saved = consultationRepository.save(consultation);
+        int tutorId = saved.getTutor().getId();
+        consultationEventOutbox.record(created ? new ConsultationCreated(saved.getId(), tutorId)
+                : new ConsultationUpdated(saved.getId(), tutorId));
+        upcomingConsultationIndex.refreshAfterCommit(saved.getId());
+        consultationSearchIndex.refreshAfterCommit(saved.getId());
+        return saved;
+    }
+
+    /**
+     * Saves provided new consultation, if neither its tutor nor its address is booked at its time.
+     * The check and the insert run under schedule locks, so concurrent bookings of the same slot can't both succeed.
+     * @param consultation new consultation
+     * @return schedule conflicts, empty if consultation was saved
+     */
+    @Transactional
+    public Set<ScheduleConflict> scheduleConsultation(Consultation consultation) {
+        lockSchedule(consultation);
+        Set<ScheduleConflict> conflicts = findConflicts(consultation);
+        if (conflicts.isEmpty()) {
+            saveConsultation(consultation);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Updates consultation with data of provided consultation, if neither its tutor nor its address is booked
+     * at its new time.
+     * Registered students are kept, and users are registered from the waitlist, if places become available.
+     * @param consultation consultation with updated data and version, which was updated
+     * @return schedule conflicts, empty if consultation was updated
+     * @throws ObjectOptimisticLockingFailureException if consultation was changed or deleted after provided version
+     * @throws ConsultationCapacityException if maximum number of students is less than number of registered students
+     */
+    @Transactional
+    public Set<ScheduleConflict> updateConsultation(Consultation consultation) {
+        int id = consultation.getId();
+        Consultation current = consultationRepository.findById(id)
+                .orElseThrow(() -> new ObjectOptimisticLockingFailureException(Consultation.class, id));
+        if (current.getVersion() != consultation.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Consultation.class, id);
+        }
+        if (consultation.getMaxStudentsNumber() < current.getRegisteredCount()) {
+            throw new ConsultationCapacityException(current.getRegisteredCount());
+        }
+        // tutor can't be changed, conflicts are checked before the loaded consultation is modified
+        consultation.setTutor(current.getTutor());
+        lockSchedule(consultation);
+        Set<ScheduleConflict> conflicts = findConflicts(consultation);
+        if (!conflicts.isEmpty()) {
+            return conflicts;
+        }
+        current.setSubject(consultation.getSubject());
+        current.setAddress(consultation.getAddress());
+        current.setDescription(consultation.getDescription());
+        current.setMaxStudentsNumber(consultation.getMaxStudentsNumber());
+        current.setDuration(consultation.getDuration());
+        current.setDateTime(consultation.getDateTime());
+        consultationEventOutbox.record(new ConsultationUpdated(id, current.getTutor().getId()));
+        promoteFromWaitlist(current);
+        // version check on flush detects registrations made after consultation was loaded
+        consultationRepository.saveAndFlush(current);
+        upcomingConsultationIndex.refreshAfterCommit(id);
+        consultationSearchIndex.refreshAfterCommit(id);
+        return conflicts;
+    }
+
+    /**
+     * Saves copies of provided consultation starting at provided dates and times in one transaction,
+     * if none of them overlaps with another consultation of the same tutor or at the same address.
+     * The check and the insert run under the same schedule locks as single consultations.
+     * Rows are inserted in JDBC batches.
+     * @param consultation consultation used as a template
+     * @param dates start date and time of every consultation in ascending order
+     * @return conflicting dates and times, empty if series was saved
+     */
+    @Transactional
+    public List<LocalDateTime> saveConsultationSeries(Consultation consultation, List<LocalDateTime> dates) {
+        lockSchedule(consultation);
+        List<LocalDateTime> conflicts = findScheduleConflicts(consultation, dates);
+        if (!conflicts.isEmpty()) {
+            return conflicts;
+        }
+        List<Consultation> series = new ArrayList<>();
+        for (LocalDateTime dateTime : dates) {
+            Consultation occurrence = new Consultation();
+            occurrence.setDescription(consultation.getDescription());
+            occurrence.setMaxStudentsNumber(consultation.getMaxStudentsNumber());
+            occurrence.setDuration(consultation.getDuration());
+            occurrence.setSubject(consultation.getSubject());
+            occurrence.setTutor(consultation.getTutor());
+            occurrence.setAddress(consultation.getAddress());
+            occurrence.setDateTime(dateTime);
+            series.add(occurrence);
+        }
+        List<Consultation> saved = consultationRepository.saveAll(series);
+        saved.forEach(occurrence -> {
+            consultationEventOutbox.record(new ConsultationCreated(occurrence.getId(), occurrence.getTutor().getId()));
+            upcomingConsultationIndex.refreshAfterCommit(occurrence.getId());
+            consultationSearchIndex.refreshAfterCommit(occurrence.getId());
+        });
+        return conflicts;
+    }
+
+    /**
+     * Deletes consultation with provided ID.
+     * @param id consultation's ID
+     */
+    @Transactional
+    public void deleteConsultation(int id) {
+        consultationRepository.findById(id).ifPresent(consultation -> {
+            List<Integer> studentIds = consultation.getStudents().stream().map(User::getId).sorted()
+                    .collect(Collectors.toList());
+            consultationEventOutbox.record(new ConsultationCancelled(id, consultation.getTutor().getId(), studentIds));
+            consultationRepository.delete(consultation);
+        });
+        upcomingConsultationIndex.refreshAfterCommit(id);
+        consultationSearchIndex.refreshAfterCommit(id);
+    }
+
+    /**
+     * Records cancellation of consultation, which is deleted by cascade together with its subject or address,
+     * and refreshes indexes once the deleting transaction commits.
+     * @param consultation consultation
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCascadeDeletion(Consultation consultation) {
+        List<Integer> studentIds = consultation.getStudents().stream().map(User::getId).sorted()
+                .collect(Collectors.toList());
+        consultationEventOutbox.record(new ConsultationCancelled(consultation.getId(), consultation.getTutor().getId(),
+                studentIds));
+        upcomingConsultationIndex.refreshAfterCommit(consultation.getId());
+        consultationSearchIndex.refreshAfterCommit(consultation.getId());
+    }
+
+    /**
+     * Checks if consultation's tutor has another consultation overlapping with it.
+     * Only consultations starting at most maximum duration earlier can overlap, so the check is a bounded index range scan.
+     * @param consultation consultation
+     * @return true or false
+     */
+    public boolean hasTutorConflict(Consultation consultation) {
+        return hasConflict(consultation, (from, to) -> consultationRepository.findTutorSlots(
+                consultation.getTutor().getId(), from, to, consultation.getId()));
+    }
+
+    /**
+     * Checks if there is another consultation at the same address overlapping with provided consultation.
+     * @param consultation consultation
+     * @return true or false
+     */
+    public boolean hasAddressConflict(Consultation consultation) {
+        return hasConflict(consultation, (from, to) -> consultationRepository.findAddressSlots(
+                consultation.getAddress().getId(), from, to, consultation.getId()));
+    }
+
+    /**
+     * Returns those of provided start dates and times, at which a copy of consultation would overlap with
+     * another consultation of the same tutor or at the same address.
+     * Existing consultations of the whole period are loaded with one query per tutor and address.
+     * @param consultation consultation used as a template
+     * @param dates start date and time of every consultation in ascending order
+     * @return conflicting dates and times
+     */
+    public List<LocalDateTime> findScheduleConflicts(Consultation consultation, List<LocalDateTime> dates) {
+        if (dates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDateTime from = dates.get(0).minusMinutes(Consultation.MAX_DURATION_MINUTES);
+        LocalDateTime to = dates.get(dates.size() - 1).plusMinutes(consultation.getDuration());
+        NavigableMap<LocalDateTime, List<ConsultationSlot>> slots = new TreeMap<>();
+        List<ConsultationSlot> existing = new ArrayList<>(consultationRepository.findTutorSlots(
+                consultation.getTutor().getId(), from, to, consultation.getId()));
+        existing.addAll(consultationRepository.findAddressSlots(consultation.getAddress().getId(), from, to, consultation.getId()));
+        for (ConsultationSlot slot : existing) {
+            slots.computeIfAbsent(slot.getDateTime(), dateTime -> new ArrayList<>()).add(slot);
+        }
+
+        List<LocalDateTime> conflicts = new ArrayList<>();
+        for (LocalDateTime start : dates) {
+            LocalDateTime end = start.plusMinutes(consultation.getDuration());
+            boolean overlaps = slots.subMap(start.minusMinutes(Consultation.MAX_DURATION_MINUTES), false, end, false)
+                    .values().stream().flatMap(List::stream).anyMatch(slot -> slot.overlaps(start, end));
+            if (overlaps) {
+                conflicts.add(start);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Registers user to consultation, if consultation has available places.
+     * Capacity check and registration are done in one transaction protected by consultation's version,
+     * so concurrent registrations never exceed maximum number of students.
+     * @param consultationId consultation's ID
+     * @param userId user's ID
+     * @return registration status
+     */
+    public RegistrationStatus registerUser(int consultationId, int userId) {
+        return retryOnConflict(() -> registrationTransaction.execute(status -> {
+            Consultation consultation = consultationRepository.findById(consultationId).orElse(null);
+            if (consultation == null) {
+                return RegistrationStatus.NOT_FOUND;
+            }
+            if (consultation.getDateTime().isBefore(LocalDateTime.now())) {
+                return RegistrationStatus.PAST;
+            }
+            if (consultation.getTutor().getId() == userId) {
+                return RegistrationStatus.OWN_CONSULTATION;
+            }
+            if (isRegistered(consultation, userId)) {
+                return RegistrationStatus.ALREADY_REGISTERED;
+            }
+            if (consultation.getAvailablePlaces() <= 0) {
+                return RegistrationStatus.FULL;
+            }
+            consultation.getStudents().add(userRepository.getOne(userId));
+            consultation.setRegisteredCount(consultation.getRegisteredCount() + 1);
+            waitlistEntryRepository.findByConsultationIdAndUserId(consultationId, userId)
+                    .ifPresent(waitlistEntryRepository::delete);
+            consultationRepository.saveAndFlush(consultation);
+            consultationEventOutbox.record(new ConsultationRegistered(consultationId, userId));
+            upcomingConsultationIndex.refreshAfterCommit(consultationId);
+            return RegistrationStatus.REGISTERED;
+        }));
+    }
+
+    /**
+     * Unregisters user from consultation.
+     * @param consultationId consultation's ID
+     * @param userId user's ID
+     * @return registration status
+     */
+    public RegistrationStatus unregisterUser(int consultationId, int userId) {
+        return retryOnConflict(() -> registrationTransaction.execute(status -> {
+            Consultation consultation = consultationRepository.findById(consultationId).orElse(null);
+            if (consultation == null) {
+                return RegistrationStatus.NOT_FOUND;
+            }
+            if (consultation.getDateTime().isBefore(LocalDateTime.now())) {
+                return RegistrationStatus.PAST;
+            }
+            if (!consultation.getStudents().removeIf(student -> student.getId() == userId)) {
+                return RegistrationStatus.NOT_REGISTERED;
+            }
+            consultation.setRegisteredCount(consultation.getRegisteredCount() - 1);
+            consultationEventOutbox.record(new ConsultationUnregistered(consultationId, userId));
+            promoteFromWaitlist(consultation);
+            consultationRepository.saveAndFlush(consultation);
+            upcomingConsultationIndex.refreshAfterCommit(consultationId);
+            return RegistrationStatus.UNREGISTERED;
+        }));
+    }
+
+    /**
+     * Adds user to the end of consultation's waitlist, if consultation has no available places.
+     * Consultation's version is incremented, so joining can't interleave with an unregistration
+     * and leave user waiting for a place that is already free.
+     * @param consultationId consultation's ID
+     * @param userId user's ID
+     * @return registration status
+     */
+    public RegistrationStatus joinWaitlist(int consultationId, int userId) {
+        return retryOnConflict(() -> registrationTransaction.execute(status -> {
+            Consultation consultation = consultationRepository.findByIdForUpdate(consultationId).orElse(null);
+            if (consultation == null) {
+                return RegistrationStatus.NOT_FOUND;
+            }
+            if (consultation.getDateTime().isBefore(LocalDateTime.now())) {
+                return RegistrationStatus.PAST;
+            }
+            if (consultation.getTutor().getId() == userId) {
+                return RegistrationStatus.OWN_CONSULTATION;
+            }
+            if (isRegistered(consultation, userId)) {
+                return RegistrationStatus.ALREADY_REGISTERED;
+            }
+            if (waitlistEntryRepository.findByConsultationIdAndUserId(consultationId, userId).isPresent()) {
+                return RegistrationStatus.ALREADY_WAITLISTED;
+            }
+            if (consultation.getAvailablePlaces() > 0) {
+                return RegistrationStatus.NOT_FULL;
+            }
+            WaitlistEntry entry = new WaitlistEntry();
+            entry.setConsultation(consultation);
+            entry.setUser(userRepository.getOne(userId));
+            entry.setCreated(LocalDateTime.now());
+            waitlistEntryRepository.saveAndFlush(entry);
+            return RegistrationStatus.WAITLISTED;
+        }));
+    }
+
+    /**
+     * Removes user from consultation's waitlist.
+     * Consultation's version is incremented, because waitlist positions of other users change.
+     * @param consultationId consultation's ID
+     * @param userId user's ID
+     * @return registration status
+     */
+    public RegistrationStatus leaveWaitlist(int consultationId, int userId) {
+        return retryOnConflict(() -> registrationTransaction.execute(status -> {
+            // consultation is locked before the entry loads it, otherwise the lock isn't applied
+            consultationRepository.findByIdForUpdate(consultationId);
+            Optional<WaitlistEntry> entry = waitlistEntryRepository.findByConsultationIdAndUserId(consultationId, userId);
+            if (!entry.isPresent()) {
+                status.setRollbackOnly();
+                return RegistrationStatus.NOT_WAITLISTED;
+            }
+            waitlistEntryRepository.delete(entry.get());
+            return RegistrationStatus.LEFT_WAITLIST;
+        }));
+    }
+
+    /**
+     * Returns user's position on consultation's waitlist or null, if user is not waiting.
+     * @param consultationId consultation's ID
+     * @param userId user's ID
+     * @return waitlist position starting from 1 or null
+     */
+    public Integer getWaitlistPosition(int consultationId, int userId) {
+        return waitlistEntryRepository.findByConsultationIdAndUserId(consultationId, userId)
+                .map(entry -> waitlistEntryRepository.countByConsultationIdAndIdLessThanEqual(consultationId, entry.getId()))
+                .orElse(null);
+    }
+
+    /**
+     * Registers users from the head of consultation's waitlist while consultation has available places.
+     * Must be called in the transaction that freed the places, after the registered students counter was updated.
+     * @param consultation consultation
+     */
+    void promoteFromWaitlist(Consultation consultation) {
+        while (consultation.getAvailablePlaces() > 0) {
+            Optional<WaitlistEntry> head = waitlistEntryRepository.findFirstByConsultationIdOrderByIdAsc(consultation.getId());
+            if (!head.isPresent()) {
+                return;
+            }
+            User user = head.get().getUser();
+            waitlistEntryRepository.delete(head.get());
+            waitlistEntryRepository.flush();
+            consultation.getStudents().add(user);
+            consultation.setRegisteredCount(consultation.getRegisteredCount() + 1);
+            consultationEventOutbox.record(new ConsultationRegistered(consultation.getId(), user.getId()));
+            logger.info("Promoted user with ID {} from waitlist to consultation with ID: {}", user.getId(), consultation.getId());
+        }
+    }
+
+    /**
+     * Finds consultations, where registered students counter drifted from actual registrations, and fixes them.
+     * Counter is maintained by registration methods, so drift means data was changed outside of them.
+     * Fixed consultations are published as updated, so listeners see the actual counts.
+     * @return number of fixed consultations
+     */
+    @Scheduled(initialDelayString = "${consultation.reconciliation.initial-delay}",
+            fixedDelayString = "${consultation.reconciliation.delay}")
+    @Transactional
+    public int reconcileRegisteredCounts() {
+        List<Integer> ids = consultationRepository.findIdsWithRegisteredCountDrift();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        logger.warn("Registered students counter drifted for consultations with IDs: {}", ids);
+        ids.forEach(upcomingConsultationIndex::refreshAfterCommit);
+        ids.forEach(id -> consultationEventOutbox.record(
+                new ConsultationUpdated(id, consultationRepository.getOne(id).getTutor().getId())));
+        return consultationRepository.reconcileRegisteredCount(ids);
+    }
+
+    /**
+     * Checks if any slot returned by provided query overlaps with consultation.
+     * @param consultation consultation
+     * @param slots query returning slots starting in provided open interval
+     * @return true or false
+     */
+    /**
+     * Returns conflicts of provided consultation with other consultations of its tutor and at its address.
+     * @param consultation consultation
+     * @return schedule conflicts
+     */
+    private Set<ScheduleConflict> findConflicts(Consultation consultation) {
+        Set<ScheduleConflict> conflicts = EnumSet.noneOf(ScheduleConflict.class);
+        if (hasTutorConflict(consultation)) {
+            conflicts.add(ScheduleConflict.TUTOR);
+        }
+        if (hasAddressConflict(consultation)) {
+            conflicts.add(ScheduleConflict.ADDRESS);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Locks rows of consultation's tutor and address until the end of the transaction, so schedule checks and
+     * changes of consultations sharing the tutor or the address run one at a time.
+     * Tutor is always locked first, so two transactions can't wait for each other.
+     * @param consultation consultation
+     */
+    private void lockSchedule(Consultation consultation) {
+        userRepository.findByIdForUpdate(consultation.getTutor().getId());
+        addressRepository.findByIdForUpdate(consultation.getAddress().getId());
+    }
+
+    private boolean hasConflict(Consultation consultation,
+                                BiFunction<LocalDateTime, LocalDateTime, List<ConsultationSlot>> slots) {
+        LocalDateTime start = consultation.getDateTime();
+        LocalDateTime end = consultation.getEndDateTime();
+        return slots.apply(start.minusMinutes(Consultation.MAX_DURATION_MINUTES), end).stream()
+                .anyMatch(slot -> slot.overlaps(start, end));
+    }
+
+    /**
+     * Runs provided registration attempt until it doesn't conflict with concurrent modifications
+     * or maximum number of attempts is reached.
+     * @param attempt registration attempt
+     * @return registration status or BUSY, if all attempts failed
+     */
+    private RegistrationStatus retryOnConflict(Supplier<RegistrationStatus> attempt) {
+        for (int i = 1; i <= MAX_REGISTRATION_ATTEMPTS; i++) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException e) {
+                logger.debug("Consultation was modified concurrently, attempt {} failed", i);
+                try {
+                    // randomized backoff spreads competing retries
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5L * i + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        logger.error("Registration failed after {} attempts because of concurrent modifications", MAX_REGISTRATION_ATTEMPTS);
+        return RegistrationStatus.BUSY;
+    }
+
+    /**
+     * Checks if user with provided ID is registered to consultation.
+     * @param consultation consultation
+     * @param userId user's ID
+     * @return true or false
+     */
+    private boolean isRegistered(Consultation consultation, int userId) {
+        return consultation.getStudents().stream().anyMatch(student -> student.getId() == userId);
+    }
+
+    /**
+     * Returns page of past consultations of provided tutor or student from both current and archive tables.
+     * @param now current date and time
+     * @param tutorId tutor's ID or null
+     * @param studentId registered student's ID or null
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size requested page size
+     * @return consultations page
+     */
+    private ConsultationPage getPastConsultationsPage(LocalDateTime now, Integer tutorId, Integer studentId,
+                                                      String after, String before, int size) {
+        return getPage(new ConsultationCursor(now, Integer.MIN_VALUE),
+                (cursor, limit) -> merge(
+                        consultationRepository.findPastBefore(now, cursor.getDateTime(), cursor.getId(),
+                                tutorId, studentId, limit),
+                        archivedConsultationRepository.findByUserBefore(cursor.getDateTime(), cursor.getId(),
+                                tutorId, studentId, limit),
+                        MOST_RECENT_FIRST, limit.getPageSize()),
+                (cursor, limit) -> merge(
+                        consultationRepository.findPastAfter(now, cursor.getDateTime(), cursor.getId(),
+                                tutorId, studentId, limit),
+                        archivedConsultationRepository.findByUserAfter(cursor.getDateTime(), cursor.getId(),
+                                tutorId, studentId, limit),
+                        MOST_RECENT_FIRST.reversed(), limit.getPageSize()),
+                after, before, size);
+    }
+
+    /**
+     * Fetches one keyset page. Both queries fetch one row more than the page size to find out if there are more rows.
+     * @param start cursor positioned just before the first row in display order
+     * @param forward query returning rows after the cursor in display order
+     * @param backward query returning rows before the cursor in reverse display order
+     * @param after cursor of the page to continue after, optional
+     * @param before cursor of the page to go back from, optional
+     * @param size requested page size
+     * @return consultations page
+     */
+    private ConsultationPage getPage(ConsultationCursor start,
+                                     BiFunction<ConsultationCursor, Pageable, List<ConsultationSummary>> forward,
+                                     BiFunction<ConsultationCursor, Pageable, List<ConsultationSummary>> backward,
+                                     String after, String before, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        ConsultationCursor beforeCursor = ConsultationCursor.parse(before);
+        if (beforeCursor != null) {
+            List<ConsultationSummary> rows = backward.apply(beforeCursor, limit);
+            // fewer rows than requested means we reached the beginning, so return a full first page instead
+            if (rows.size() > pageSize) {
+                List<ConsultationSummary> consultations = new ArrayList<>(rows.subList(0, pageSize));
+                Collections.reverse(consultations);
+                return new ConsultationPage(consultations, cursorOf(consultations.get(0)),
+                        cursorOf(consultations.get(consultations.size() - 1)), pageSize);
+            }
+        }
+
+        ConsultationCursor afterCursor = beforeCursor == null ? ConsultationCursor.parse(after) : null;
+        List<ConsultationSummary> rows = forward.apply(afterCursor != null ? afterCursor : start, limit);
+        boolean hasNext = rows.size() > pageSize;
+        List<ConsultationSummary> consultations = hasNext ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        String previousCursor = afterCursor != null && !consultations.isEmpty() ? cursorOf(consultations.get(0)) : null;
+        String nextCursor = hasNext ? cursorOf(consultations.get(consultations.size() - 1)) : null;
+        return new ConsultationPage(consultations, previousCursor, nextCursor, pageSize);
+    }
+
+    /**
+     * Merges two lists sorted in provided order into one sorted list of limited size.
+     * Consultation moved to archive between the two queries may appear in both lists, so duplicates are skipped.
+     * @param first first list
+     * @param second second list
+     * @param order order of both lists
+     * @param limit maximum size of merged list
+     * @return merged list
+     */
+    private List<ConsultationSummary> merge(List<ConsultationSummary> first, List<ConsultationSummary> second,
+                                            Comparator<ConsultationSummary> order, int limit) {
+        List<ConsultationSummary> merged = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < first.size() || j < second.size())) {
+            ConsultationSummary next;
+            if (j >= second.size() || (i < first.size() && order.compare(first.get(i), second.get(j)) <= 0)) {
+                next = first.get(i++);
+            } else {
+                next = second.get(j++);
+            }
+            if (merged.isEmpty() || merged.get(merged.size() - 1).getId() != next.getId()) {
+                merged.add(next);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Parses search page offset or returns null, if value is empty, malformed or beyond the search result window.
+     * @param value offset string
+     * @return offset or null
+     */
+    private Integer parseOffset(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            int offset = Integer.parseInt(value);
+            return offset >= 0 && offset < ConsultationSearchIndex.MAX_RESULT_WINDOW ? offset : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns string cursor of provided consultation.
+     * @param consultation consultation
+     * @return cursor string
+     */
+    private String cursorOf(ConsultationSummary consultation) {
+        return ConsultationCursor.of(consultation).toString();
+    }
+}
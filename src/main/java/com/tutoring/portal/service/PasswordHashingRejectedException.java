@@ -0,0 +1,17 @@
+package com.tutoring.portal.service;
+
+/**
+ * Thrown when a password can't be hashed or verified, because the password hashing queue is full.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor with message.
+     * @param message exception's message
+     */
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,144 @@
+package com.tutoring.portal.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class PasswordHashingService implements PasswordEncoder {
+
+    @Autowired
+    private BCryptPasswordEncoder bCryptPasswordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${password.hashing.threads}")
+    private int threads;
+
+    @Value("${password.hashing.queue-capacity}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer encodeTimer;
+
+    private Timer matchesTimer;
+
+    private Counter rejectedCounter;
+
+    /**
+     * Creates hashing threads, one per processor unless configured otherwise, and registers metrics.
+     * Hashing is CPU bound, so more threads than processors would only make every hash slower.
+     */
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("password.hashing.queue", executor, e -> e.getQueue().size())
+                .description("Password hashing tasks waiting for a thread").register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks running").register(meterRegistry);
+        encodeTimer = Timer.builder("password.hashing.time").tag("operation", "encode")
+                .description("Time spent hashing passwords").register(meterRegistry);
+        matchesTimer = Timer.builder("password.hashing.time").tag("operation", "matches")
+                .description("Time spent hashing passwords").register(meterRegistry);
+        rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Password hashing tasks rejected, because the queue was full").register(meterRegistry);
+    }
+
+    /**
+     * Encodes provided raw password on a hashing thread.
+     * @param rawPassword raw password
+     * @return encoded password
+     * @throws PasswordHashingRejectedException if hashing queue is full
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> encodeTimer.record(() -> bCryptPasswordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Checks on a hashing thread if provided raw password matches encoded password.
+     * @param rawPassword raw password
+     * @param encodedPassword encoded password
+     * @return true if passwords match, false otherwise
+     * @throws PasswordHashingRejectedException if hashing queue is full
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> matchesTimer.record(() -> bCryptPasswordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Checks if provided encoded password was hashed with lower strength than the calibrated one.
+     * Doesn't hash anything, so it runs on the calling thread.
+     * @param encodedPassword encoded password
+     * @return true if password should be encoded again, false otherwise
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bCryptPasswordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Runs provided task on a hashing thread and waits for its result.
+     * Tasks are rejected at once when the queue is full, instead of tying up more request threads.
+     * @param task hashing task
+     * @param <T> result's type
+     * @return task's result
+     */
+    <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException("Password hashing queue is full");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stops hashing threads.
+     */
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
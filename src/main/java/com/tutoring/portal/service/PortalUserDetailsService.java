@@ -0,0 +1,51 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.UserCredentials;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+@Service
+public class PortalUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Returns user details of user with provided email, read from cached credentials.
+     * A new instance is returned for every login, because authentication erases its password afterwards.
+     * @param email user's email
+     * @return user details
+     * @throws UsernameNotFoundException if there is no user with provided email
+     */
+    @Override
+    public UserDetails loadUserByUsername(String email) {
+        UserCredentials credentials = userService.getUserCredentials(email);
+        if (credentials == null) {
+            throw new UsernameNotFoundException("No user with email " + email);
+        }
+        return User.withUsername(credentials.getEmail())
+                .password(credentials.getPassword())
+                .disabled(!credentials.isActive())
+                .authorities(AuthorityUtils.createAuthorityList(credentials.getRoles().toArray(new String[0])))
+                .build();
+    }
+
+    /**
+     * Stores password of user, who has just logged in, encoded again because its strength is lower than the
+     * calibrated one, and returns user details with the new password.
+     * @param user user details
+     * @param newPassword newly encoded password
+     * @return updated user details
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userService.replaceEncodedPassword(user.getUsername(), newPassword);
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.tutoring.portal.service;
+
+/**
+ * Outcome of registering a user to a consultation, unregistering a user from it or changing its waitlist.
+ */
+public enum RegistrationStatus {
+
+    /**
+     * User was registered to consultation.
+     */
+    REGISTERED,
+
+    /**
+     * User was unregistered from consultation.
+     */
+    UNREGISTERED,
+
+    /**
+     * Consultation doesn't exist.
+     */
+    NOT_FOUND,
+
+    /**
+     * Consultation has already taken place.
+     */
+    PAST,
+
+    /**
+     * User is consultation's tutor.
+     */
+    OWN_CONSULTATION,
+
+    /**
+     * User is already registered to consultation.
+     */
+    ALREADY_REGISTERED,
+
+    /**
+     * User is not registered to consultation.
+     */
+    NOT_REGISTERED,
+
+    /**
+     * Consultation has no available places.
+     */
+    FULL,
+
+    /**
+     * Consultation still has available places, so user should register instead of joining the waitlist.
+     */
+    NOT_FULL,
+
+    /**
+     * User joined consultation's waitlist.
+     */
+    WAITLISTED,
+
+    /**
+     * User is already on consultation's waitlist.
+     */
+    ALREADY_WAITLISTED,
+
+    /**
+     * User left consultation's waitlist.
+     */
+    LEFT_WAITLIST,
+
+    /**
+     * User is not on consultation's waitlist.
+     */
+    NOT_WAITLISTED,
+
+    /**
+     * Consultation kept being modified concurrently and all attempts failed.
+     */
+    BUSY
+}
@@ -0,0 +1,17 @@
+package com.tutoring.portal.service;
+
+/**
+ * Reason, why consultation can't be scheduled at its date and time.
+ */
+public enum ScheduleConflict {
+
+    /**
+     * Tutor has another consultation overlapping with it.
+     */
+    TUTOR,
+
+    /**
+     * Another consultation at the same address overlaps with it.
+     */
+    ADDRESS
+}
@@ -2,11 +2,14 @@ package com.tutoring.portal.service;
 
 import com.tutoring.portal.model.Subject;
 import com.tutoring.portal.model.User;
+import com.tutoring.portal.repository.ConsultationRepository;
 import com.tutoring.portal.repository.SubjectRepository;
 import com.tutoring.portal.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -20,6 +23,15 @@ public class SubjectService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private ConsultationSearchIndex consultationSearchIndex;
+
+    @Autowired
+    private ConsultationService consultationService;
+
     /**
      * Returns list with all subjects from the database.
      * @return subjects list
@@ -43,16 +55,25 @@ public class SubjectService {
      * @param subject subject
      * @return saved subject
      */
+    @Transactional
     public Subject saveSubject(Subject subject) {
-        return subjectRepository.save(subject);
+        Subject saved = subjectRepository.save(subject);
+        // subject's name is shown in calendars
+        consultationRepository.touchBySubject(saved.getId(), LocalDateTime.now());
+        // subject's name is indexed for search
+        consultationSearchIndex.refreshSubjectAfterCommit(saved.getId());
+        return saved;
     }
 
     /**
-     * Deletes subject with provided ID.
+     * Deletes subject with provided ID together with its consultations.
      * @param id subject's ID
      */
+    @Transactional
     public void deleteSubject(int id) {
         Subject subject = getSubjectById(id);
+        // subject's consultations are deleted by cascade
+        subject.getConsultations().forEach(consultationService::recordCascadeDeletion);
         List<User> users = userRepository.findAll();
         // delete subject's relationships
         for (User user : users) {
@@ -0,0 +1,267 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.ConsultationCursor;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.repository.ConsultationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of upcoming consultations ordered by (dateTime, id), used to answer future consultation listings.
+ * Entries are reloaded from the database after every committed change, and a periodic check repairs entries
+ * changed outside of consultation services, e.g. renamed subjects or tutors.
+ */
+@Service
+public class UpcomingConsultationIndex {
+
+    /**
+     * Number of consultations loaded by one query during warm-up and consistency checks.
+     */
+    static final int LOAD_BATCH_SIZE = 500;
+
+    private static final Logger logger = LoggerFactory.getLogger(UpcomingConsultationIndex.class);
+
+    private final ConcurrentSkipListMap<ConsultationCursor, ConsultationSummary> consultations = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentHashMap<Integer, ConsultationCursor> keys = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readTransaction;
+
+    /**
+     * Creates transaction template for reloading entries.
+     * Reloads may run right after another transaction's commit, so they always use a new read-only transaction.
+     */
+    @PostConstruct
+    void initReadTransaction() {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Loads all upcoming consultations when application is started.
+     * Entries refreshed while loading are newer than loaded ones, so they are kept.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        Map<Integer, ConsultationSummary> loaded = loadUpcoming(LocalDateTime.now());
+        for (ConsultationSummary summary : loaded.values()) {
+            keys.computeIfAbsent(summary.getId(), id -> {
+                ConsultationCursor key = ConsultationCursor.of(summary);
+                consultations.put(key, summary);
+                return key;
+            });
+        }
+        ready = true;
+        logger.info("Loaded {} upcoming consultations in {} ms", loaded.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Checks if index was loaded and can answer queries.
+     * @return true or false
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns upcoming consultations positioned after provided cursor, in ascending order.
+     * @param now current date and time
+     * @param cursor cursor
+     * @param subjectId subject's ID or null
+     * @param tutorId tutor's ID or null
+     * @param limit maximum number of consultations
+     * @return consultations list
+     */
+    public List<ConsultationSummary> findAfter(LocalDateTime now, ConsultationCursor cursor, Integer subjectId,
+                                               Integer tutorId, int limit) {
+        ConsultationCursor from = max(cursor, new ConsultationCursor(now, Integer.MAX_VALUE));
+        return consultations.tailMap(from, false).values().stream()
+                .filter(matches(subjectId, tutorId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns upcoming consultations positioned before provided cursor, in descending order.
+     * @param now current date and time
+     * @param cursor cursor
+     * @param subjectId subject's ID or null
+     * @param tutorId tutor's ID or null
+     * @param limit maximum number of consultations
+     * @return consultations list
+     */
+    public List<ConsultationSummary> findBefore(LocalDateTime now, ConsultationCursor cursor, Integer subjectId,
+                                                Integer tutorId, int limit) {
+        ConsultationCursor from = new ConsultationCursor(now, Integer.MAX_VALUE);
+        if (cursor.compareTo(from) <= 0) {
+            return Collections.emptyList();
+        }
+        return consultations.subMap(from, false, cursor, false).descendingMap().values().stream()
+                .filter(matches(subjectId, tutorId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reloads consultation with provided ID once the current transaction commits,
+     * or immediately, if there is no transaction.
+     * @param id consultation's ID
+     */
+    public void refreshAfterCommit(int id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                refresh(id);
+            }
+        });
+    }
+
+    /**
+     * Compares index with the database, repairs drifted entries and evicts consultations that have already started.
+     * @return number of repaired entries
+     */
+    @Scheduled(initialDelayString = "${consultation.index.check-delay}",
+            fixedDelayString = "${consultation.index.check-delay}")
+    public int checkConsistency() {
+        if (!ready) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, ConsultationSummary> actual = loadUpcoming(now);
+        List<Integer> drifted = new ArrayList<>();
+        for (ConsultationSummary summary : actual.values()) {
+            ConsultationCursor key = keys.get(summary.getId());
+            if (key == null || !summary.equals(consultations.get(key))) {
+                drifted.add(summary.getId());
+            }
+        }
+        for (Map.Entry<Integer, ConsultationCursor> entry : keys.entrySet()) {
+            if (actual.containsKey(entry.getKey())) {
+                continue;
+            }
+            // started consultations simply leave the index, anything else missing from the database has drifted
+            if (entry.getValue().getDateTime().isAfter(now)) {
+                drifted.add(entry.getKey());
+            } else {
+                evict(entry.getKey());
+            }
+        }
+        drifted.forEach(this::refresh);
+        if (!drifted.isEmpty()) {
+            logger.warn("Upcoming consultations index drifted for consultations with IDs: {}", drifted);
+        }
+        return drifted.size();
+    }
+
+    /**
+     * Reloads consultation with provided ID from the database.
+     * Reload happens under the entry's lock, so concurrent refreshes of one consultation are applied in order.
+     * @param id consultation's ID
+     */
+    void refresh(int id) {
+        keys.compute(id, (key, oldKey) -> {
+            Optional<ConsultationSummary> summary = readTransaction.execute(status -> consultationRepository.findSummaryById(id));
+            ConsultationCursor newKey = null;
+            if (summary.isPresent() && summary.get().getDateTime().isAfter(LocalDateTime.now())) {
+                newKey = ConsultationCursor.of(summary.get());
+                consultations.put(newKey, summary.get());
+            }
+            if (oldKey != null && !oldKey.equals(newKey)) {
+                consultations.remove(oldKey);
+            }
+            return newKey;
+        });
+    }
+
+    /**
+     * Removes consultation with provided ID from the index.
+     * @param id consultation's ID
+     */
+    private void evict(int id) {
+        keys.computeIfPresent(id, (key, oldKey) -> {
+            consultations.remove(oldKey);
+            return null;
+        });
+    }
+
+    /**
+     * Loads summaries of all upcoming consultations in batches.
+     * @param now current date and time
+     * @return summaries by consultation's ID
+     */
+    private Map<Integer, ConsultationSummary> loadUpcoming(LocalDateTime now) {
+        Map<Integer, ConsultationSummary> loaded = new LinkedHashMap<>();
+        ConsultationCursor cursor = new ConsultationCursor(now, Integer.MAX_VALUE);
+        List<ConsultationSummary> batch;
+        do {
+            ConsultationCursor from = cursor;
+            batch = readTransaction.execute(status -> consultationRepository.findFutureAfter(now, from.getDateTime(),
+                    from.getId(), null, null, PageRequest.of(0, LOAD_BATCH_SIZE)));
+            batch.forEach(summary -> loaded.put(summary.getId(), summary));
+            if (!batch.isEmpty()) {
+                cursor = ConsultationCursor.of(batch.get(batch.size() - 1));
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        return loaded;
+    }
+
+    /**
+     * Returns filter by optional subject and tutor.
+     * @param subjectId subject's ID or null
+     * @param tutorId tutor's ID or null
+     * @return filter
+     */
+    private Predicate<ConsultationSummary> matches(Integer subjectId, Integer tutorId) {
+        return summary -> (subjectId == null || summary.getSubjectId() == subjectId)
+                && (tutorId == null || summary.getTutorId() == tutorId);
+    }
+
+    /**
+     * Returns greater of two cursors.
+     * @param first first cursor
+     * @param second second cursor
+     * @return greater cursor
+     */
+    private ConsultationCursor max(ConsultationCursor first, ConsultationCursor second) {
+        return first.compareTo(second) >= 0 ? first : second;
+    }
+}
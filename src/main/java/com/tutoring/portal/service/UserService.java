@@ -1,25 +1,53 @@
 package com.tutoring.portal.service;
 
+import com.tutoring.portal.dto.UserCredentials;
+import com.tutoring.portal.dto.UserSummary;
+import com.tutoring.portal.event.ConsultationCancelled;
+import com.tutoring.portal.event.ConsultationEventOutbox;
+import com.tutoring.portal.event.ConsultationUnregistered;
 import com.tutoring.portal.model.Consultation;
 import com.tutoring.portal.model.Role;
 import com.tutoring.portal.model.User;
+import com.tutoring.portal.repository.ArchivedConsultationRepository;
 import com.tutoring.portal.repository.ConsultationRepository;
 import com.tutoring.portal.repository.RoleRepository;
 import com.tutoring.portal.repository.UserRepository;
+import com.tutoring.portal.repository.WaitlistEntryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
 
+    /**
+     * Name of the cache of users listing pages.
+     */
+    public static final String USER_PAGES_CACHE = "userPages";
+
+    /**
+     * Name of the cache of users' credentials used by login, keyed by email.
+     */
+    public static final String USER_CREDENTIALS_CACHE = "userCredentials";
+
     @Autowired
     private UserRepository userRepository;
 
@@ -30,7 +58,25 @@ public class UserService {
     private ConsultationRepository consultationRepository;
 
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private ArchivedConsultationRepository archivedConsultationRepository;
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private UpcomingConsultationIndex upcomingConsultationIndex;
+
+    @Autowired
+    private ConsultationSearchIndex consultationSearchIndex;
+
+    @Autowired
+    private ConsultationEventOutbox consultationEventOutbox;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
 
     /**
      * Returns user with provided email.
@@ -41,6 +87,21 @@ public class UserService {
         return userRepository.findByEmail(email);
     }
 
+    /**
+     * Returns credentials, state and role names of user with provided email, read by one query and cached.
+     * Unknown emails aren't cached, so they can't push out other users' credentials.
+     * @param email user's email
+     * @return user's credentials or null, if there is no user with provided email
+     */
+    @Cacheable(cacheNames = USER_CREDENTIALS_CACHE, unless = "#result == null")
+    public UserCredentials getUserCredentials(String email) {
+        return userRepository.findWithRolesByEmail(email)
+                .map(user -> new UserCredentials(user.getId(), user.getEmail(), user.getPassword(),
+                        user.getActive() == 1, user.getName() + " " + user.getSurname(),
+                        user.getRoles().stream().map(Role::getRole).collect(Collectors.toSet())))
+                .orElse(null);
+    }
+
     /**
      * Returns list with all users from the database.
      * @return users list
@@ -50,18 +111,49 @@ public class UserService {
     }
 
     /**
-     * Returns list with all users with tutor role.
-     * @return tutors list
+     * Returns page of users' summaries ordered by ID.
+     * Pages are cached until any user is changed.
+     * @param page page number starting from 0
+     * @param size requested page size
+     * @return users page
      */
-    public List<User> getAllUsersWithTutorRole() {
-        List<User> users = new ArrayList<>(userRepository.findAll());
-        List<User> tutors = new ArrayList<>();
-        for (User user : users) {
-            if (user.isTutor()) {
-                tutors.add(user);
+    @Cacheable(cacheNames = USER_PAGES_CACHE)
+    public Page<UserSummary> getUsersPage(int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, ConsultationService.MAX_PAGE_SIZE));
+        Page<UserSummary> users = userRepository.findSummaries(PageRequest.of(Math.max(page, 0), pageSize, Sort.by("id")));
+        if (users.hasContent()) {
+            Map<Integer, UserSummary> byId = users.stream().collect(Collectors.toMap(UserSummary::getId, user -> user));
+            for (Object[] role : userRepository.findRoleNamesByIds(byId.keySet())) {
+                byId.get((Integer) role[0]).addRole((String) role[1]);
             }
         }
-        return tutors;
+        return users;
+    }
+
+    /**
+     * Returns page of tutors with their subjects ordered by surname and name, optionally only tutors who teach
+     * subject with provided ID. Tutors are found through their role and read by a constant number of queries:
+     * one page of IDs, its count and the tutors with subjects.
+     * @param subjectId subject's ID, optional
+     * @param page page number starting from 0
+     * @param size requested page size
+     * @return tutors page
+     */
+    public Page<User> getTutorsPage(Integer subjectId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, ConsultationService.MAX_PAGE_SIZE));
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), pageSize, Sort.by("surname", "name", "id"));
+        Page<Integer> ids = subjectId == null
+                ? userRepository.findIdsByRole("TUTOR", pageRequest)
+                : userRepository.findIdsByRoleAndSubjectId("TUTOR", subjectId, pageRequest);
+        if (!ids.hasContent()) {
+            return new PageImpl<>(Collections.emptyList(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<Integer, User> byId = userRepository.findWithSubjectsByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        // fetch join doesn't keep the order of the page, so tutors are put back in it
+        List<User> tutors = ids.getContent().stream().map(byId::get).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(tutors, ids.getPageable(), ids.getTotalElements());
     }
 
     /**
@@ -79,9 +171,13 @@ public class UserService {
      * @param user user
      * @return saved user
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USER_PAGES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, key = "#user.email")
+    })
     public User saveUser(User user) {
         // encode password
-        user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         // set as active
         user.setActive(1);
         // grant student role
@@ -95,8 +191,17 @@ public class UserService {
      * @param user updated user
      * @return saved user
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USER_PAGES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, allEntries = true)
+    })
+    @Transactional
     public User updateUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // tutor's name is indexed for search and shown in calendars
+        consultationSearchIndex.refreshTutorAfterCommit(saved.getId());
+        consultationRepository.touchByTutor(saved.getId(), LocalDateTime.now());
+        return saved;
     }
 
     /**
@@ -104,29 +209,62 @@ public class UserService {
      * @param user updated user
      * @return saved user
      */
+    @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, key = "#user.email")
     public User updatePassword(User user) {
-        user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         return userRepository.save(user);
     }
 
+    /**
+     * Replaces password of user with provided email with provided already encoded password.
+     * Used when password is encoded again with a higher strength after a successful login.
+     * @param email user's email
+     * @param encodedPassword encoded password
+     */
+    @Transactional
+    @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, key = "#email")
+    public void replaceEncodedPassword(String email, String encodedPassword) {
+        userRepository.updatePassword(email, encodedPassword);
+    }
+
     /**
      * Deletes user with provided ID.
+     * Registrations are removed in the same transaction, so consultations' registered students counters stay in sync.
      * @param id user's ID
      * @return deleted user's ID
      */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USER_PAGES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, allEntries = true)
+    })
     public int deleteUser(int id) {
         User user = getUserById(id);
-        List<Consultation> consultations = consultationRepository.findAll();
         // delete user's relationships
-        for (Consultation consultation : consultations) {
-            if (consultation.getStudents().contains(user)) {
-                consultation.getStudents().remove(user);
-                consultationRepository.save(consultation);
+        waitlistEntryRepository.deleteAllByUserId(id);
+        archivedConsultationRepository.deleteRegistrationsByStudentId(id);
+        archivedConsultationRepository.deleteAllByTutorId(id);
+        for (Consultation consultation : consultationRepository.findAllByStudentsId(id)) {
+            consultation.getStudents().removeIf(student -> student.getId() == id);
+            consultation.setRegisteredCount(consultation.getRegisteredCount() - 1);
+            consultationEventOutbox.record(new ConsultationUnregistered(consultation.getId(), id));
+            if (consultation.getDateTime().isAfter(LocalDateTime.now())) {
+                consultationService.promoteFromWaitlist(consultation);
             }
+            consultationRepository.save(consultation);
+            upcomingConsultationIndex.refreshAfterCommit(consultation.getId());
+        }
+        // created consultations are deleted together with the user
+        for (Consultation consultation : user.getCreatedConsultations()) {
+            List<Integer> studentIds = consultation.getStudents().stream().map(User::getId).sorted()
+                    .collect(Collectors.toList());
+            consultationEventOutbox.record(new ConsultationCancelled(consultation.getId(), id, studentIds));
+            upcomingConsultationIndex.refreshAfterCommit(consultation.getId());
         }
         user.setRoles(null);
         userRepository.save(user);
         userRepository.deleteById(id);
+        consultationSearchIndex.removeTutorAfterCommit(id);
         return id;
     }
 
@@ -135,6 +273,10 @@ public class UserService {
      * @param user user
      * @return updated user
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USER_PAGES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, key = "#user.email")
+    })
     public User addAdminRole(User user) {
         Role adminRole = roleRepository.findByRole("ADMIN");
         Set<Role> userRoles = user.getRoles();
@@ -148,6 +290,10 @@ public class UserService {
      * @param user user
      * @return updated user
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USER_PAGES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, key = "#user.email")
+    })
     public User removeAdminRole(User user) {
         Role adminRole = roleRepository.findByRole("ADMIN");
         Set<Role> userRoles = user.getRoles();
@@ -161,6 +307,10 @@ public class UserService {
      * @param user user
      * @return updated user
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USER_PAGES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, key = "#user.email")
+    })
     public User addTutorRole(User user) {
         Role tutorRole = roleRepository.findByRole("TUTOR");
         Set<Role> userRoles = user.getRoles();
@@ -174,6 +324,10 @@ public class UserService {
      * @param user user
      * @return updated user
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USER_PAGES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, key = "#user.email")
+    })
     public User removeTutorRole(User user) {
         Role tutorRole = roleRepository.findByRole("TUTOR");
         Set<Role> userRoles = user.getRoles();
@@ -187,6 +341,10 @@ public class UserService {
      * @param user user
      * @return updated user
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USER_PAGES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, key = "#user.email")
+    })
     public User blockUser(User user) {
         user.setActive(0);
         return userRepository.save(user);
@@ -197,6 +355,10 @@ public class UserService {
      * @param user user
      * @return updated user
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = USER_PAGES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = USER_CREDENTIALS_CACHE, key = "#user.email")
+    })
     public User unblockUser(User user) {
         user.setActive(1);
         return userRepository.save(user);
@@ -0,0 +1,184 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.UtilizationSummary;
+import com.tutoring.portal.event.ConsultationEvent;
+import com.tutoring.portal.event.ConsultationEventType;
+import com.tutoring.portal.model.ConsultationUtilization;
+import com.tutoring.portal.model.UtilizationStat;
+import com.tutoring.portal.repository.ConsultationRepository;
+import com.tutoring.portal.repository.ConsultationUtilizationRepository;
+import com.tutoring.portal.repository.UtilizationStatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class UtilizationStatisticsService {
+
+    /**
+     * Number of consultations counted by one transaction when statistics are completed on start.
+     */
+    static final int BATCH_SIZE = 100;
+
+    private static final Logger logger = LoggerFactory.getLogger(UtilizationStatisticsService.class);
+
+    @Autowired
+    private ConsultationRepository consultationRepository;
+
+    @Autowired
+    private ConsultationUtilizationRepository consultationUtilizationRepository;
+
+    @Autowired
+    private UtilizationStatRepository utilizationStatRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate batchTransaction;
+
+    /**
+     * Creates transaction template for completing statistics.
+     */
+    @PostConstruct
+    void initBatchTransaction() {
+        batchTransaction = new TransactionTemplate(transactionManager);
+        batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Applies consultation event to statistics.
+     * Cancellation removes the consultation's contribution, any other event replaces it with the consultation's
+     * current state. Both are idempotent, so an event published again after a failure isn't counted twice.
+     * Events don't have to arrive in order either: a skipped dead-lettered event is made up for by any later event
+     * of the same consultation, except for a dead-lettered cancellation, whose consultation keeps its contribution.
+     * @param event consultation event
+     */
+    @EventListener
+    @Transactional
+    public void onConsultationEvent(ConsultationEvent event) {
+        if (event.getType() == ConsultationEventType.CANCELLED) {
+            cancel(event.getConsultationId());
+        } else {
+            refresh(event.getConsultationId());
+        }
+    }
+
+    /**
+     * Counts consultations, which aren't in statistics yet, when application is started,
+     * e.g. consultations inserted by SQL scripts or created before statistics existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void countMissing() {
+        int counted = 0;
+        int lastId = 0;
+        List<Integer> ids;
+        do {
+            ids = consultationRepository.findIdsWithoutUtilization(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+            List<Integer> batch = ids;
+            try {
+                batchTransaction.executeWithoutResult(status -> batch.forEach(this::refresh));
+                counted += batch.size();
+            } catch (DataAccessException e) {
+                // consultations counted concurrently by an event, which has precedence
+                logger.warn("Cannot count consultations up to ID {} in utilization statistics", lastId, e);
+            }
+        } while (ids.size() == BATCH_SIZE);
+        if (counted > 0) {
+            logger.info("Counted {} consultations in utilization statistics", counted);
+        }
+    }
+
+    /**
+     * Returns utilization totals per subject between provided dates, inclusive.
+     * @param from first date
+     * @param to last date
+     * @return totals per subject
+     */
+    public List<UtilizationSummary> getSubjectStatistics(LocalDate from, LocalDate to) {
+        return utilizationStatRepository.summarizeBySubject(from, to);
+    }
+
+    /**
+     * Returns utilization totals per tutor between provided dates, inclusive.
+     * @param from first date
+     * @param to last date
+     * @return totals per tutor
+     */
+    public List<UtilizationSummary> getTutorStatistics(LocalDate from, LocalDate to) {
+        return utilizationStatRepository.summarizeByTutor(from, to);
+    }
+
+    /**
+     * Replaces contribution of consultation with provided ID with its current state.
+     * Consultations moved to archive aren't found and keep their last contribution.
+     * @param consultationId consultation's ID
+     */
+    private void refresh(int consultationId) {
+        Optional<ConsultationUtilization> current = consultationRepository.findUtilizationById(consultationId);
+        if (!current.isPresent()) {
+            return;
+        }
+        Optional<ConsultationUtilization> previous = consultationUtilizationRepository.findById(consultationId);
+        if (previous.isPresent()) {
+            if (previous.get().isSameAs(current.get())) {
+                return;
+            }
+            apply(previous.get(), -1, 0);
+        }
+        apply(current.get(), 1, 0);
+        consultationUtilizationRepository.save(current.get());
+    }
+
+    /**
+     * Removes contribution of cancelled consultation with provided ID and counts the cancellation.
+     * @param consultationId consultation's ID
+     */
+    private void cancel(int consultationId) {
+        Optional<ConsultationUtilization> previous = consultationUtilizationRepository.findById(consultationId);
+        if (previous.isPresent()) {
+            apply(previous.get(), -1, 1);
+            consultationUtilizationRepository.delete(previous.get());
+        }
+    }
+
+    /**
+     * Adds or subtracts provided contribution to statistics of its tutor, subject and date.
+     * @param contribution consultation's contribution
+     * @param sign 1 to add, -1 to subtract
+     * @param cancelled number of cancelled consultations to add
+     */
+    private void apply(ConsultationUtilization contribution, int sign, int cancelled) {
+        UtilizationStat stat = utilizationStatRepository.findByTutorIdAndSubjectIdAndDate(contribution.getTutorId(),
+                contribution.getSubjectId(), contribution.getDate()).orElseGet(() -> {
+                    UtilizationStat created = new UtilizationStat();
+                    created.setTutorId(contribution.getTutorId());
+                    created.setSubjectId(contribution.getSubjectId());
+                    created.setDate(contribution.getDate());
+                    return created;
+                });
+        stat.setSlots(stat.getSlots() + sign);
+        stat.setFullSlots(stat.getFullSlots() + (contribution.isFull() ? sign : 0));
+        stat.setCapacity(stat.getCapacity() + sign * contribution.getCapacity());
+        stat.setRegistrations(stat.getRegistrations() + sign * contribution.getRegistrations());
+        stat.setCancelled(stat.getCancelled() + cancelled);
+        utilizationStatRepository.save(stat);
+    }
+}
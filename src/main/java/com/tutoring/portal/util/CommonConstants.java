@@ -51,6 +51,11 @@ public class CommonConstants {
      */
     public static final String CONSULTATION_VIEW = "consultation";
 
+    /**
+     * Constant for archived consultation view.
+     */
+    public static final String ARCHIVED_CONSULTATION_VIEW = "archived-consultation";
+
     /**
      * Constant for consultations view.
      */
@@ -66,6 +71,11 @@ public class CommonConstants {
      */
     public static final String ADMIN_SUBJECTS_VIEW = "admin/subjects";
 
+    /**
+     * Constant for admin users view URL.
+     */
+    public static final String USERS_VIEW_URL = "admin/users";
+
     /**
      * Constant for update-user view.
      */
@@ -121,6 +131,66 @@ public class CommonConstants {
      */
     public static final String ADDRESSES = "addresses";
 
+    /**
+     * Constant for consultations page.
+     */
+    public static final String PAGE = "page";
+
+    /**
+     * Constant for URL of the paged view.
+     */
+    public static final String PAGE_URL = "pageUrl";
+
+    /**
+     * Constant for default page size.
+     */
+    public static final String DEFAULT_PAGE_SIZE = "20";
+
+    /**
+     * Constant for user's waitlist position.
+     */
+    public static final String WAITLIST_POSITION = "waitlistPosition";
+
+    /**
+     * Constant for consultation's recurrence rule.
+     */
+    public static final String RECURRENCE = "recurrence";
+
+    /**
+     * Constant for user's calendar feed URL.
+     */
+    public static final String CALENDAR_URL = "calendarUrl";
+
+    /**
+     * Constant for consultations search text.
+     */
+    public static final String SEARCH_QUERY = "query";
+
+    /**
+     * Constant for consultations filter.
+     */
+    public static final String FILTER = "filter";
+
+    /**
+     * Constant for consultations facet counts.
+     */
+    public static final String FACETS = "facets";
+
+    /**
+     * Constant for location of the consultations near me search.
+     */
+    public static final String NEAR = "near";
+
+    /**
+     * Constant for default radius of the consultations near me search in kilometers.
+     */
+    public static final String DEFAULT_RADIUS_KM = "10";
+
+    /**
+     * Constant for admin statistics view.
+     */
+    public static final String STATISTICS_VIEW = "admin/statistics";
+
     /**
      * Constant for consultation error.
      */
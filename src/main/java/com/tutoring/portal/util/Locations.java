@@ -0,0 +1,140 @@
+package com.tutoring.portal.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Location keys used to look addresses up through indexes.
+ * Country and city names are reduced to normalized keys, coordinates are reduced to cells of a fixed degree grid.
+ */
+public class Locations {
+
+    /**
+     * Size of one grid cell in degrees, about 11 km of latitude.
+     */
+    public static final double CELL_DEGREES = 0.1;
+
+    /**
+     * Maximum search radius in kilometers.
+     */
+    public static final double MAX_RADIUS_KM = 100;
+
+    private static final int LATITUDE_CELLS = (int) Math.round(180 / CELL_DEGREES);
+
+    private static final int LONGITUDE_CELLS = (int) Math.round(360 / CELL_DEGREES);
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Private constructor.
+     */
+    private Locations() {
+    }
+
+    /**
+     * Returns normalized key of provided country or city name: lower case, without accents and punctuation,
+     * words separated by single spaces. Returns null for null names.
+     * @param name country or city name
+     * @return normalized key
+     */
+    public static String key(String name) {
+        if (name == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        String plain = MARKS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Returns grid cell containing provided coordinates.
+     * @param latitude latitude in degrees
+     * @param longitude longitude in degrees
+     * @return grid cell
+     */
+    public static int cell(double latitude, double longitude) {
+        return cell(latitudeRow(latitude), longitudeColumn(longitude));
+    }
+
+    /**
+     * Returns grid cells overlapping the square around provided point that contains the circle with provided radius.
+     * Cells wrap around the antimeridian.
+     * @param latitude latitude in degrees
+     * @param longitude longitude in degrees
+     * @param radiusKm radius in kilometers
+     * @return grid cells
+     */
+    public static List<Integer> cellsWithin(double latitude, double longitude, double radiusKm) {
+        double latitudeSpan = radiusKm / KM_PER_DEGREE;
+        int minRow = latitudeRow(Math.max(-90, latitude - latitudeSpan));
+        int maxRow = latitudeRow(Math.min(90, latitude + latitudeSpan));
+        // meridians converge towards the poles, so the widest row of the square defines the longitude span
+        double widestLatitude = Math.min(90, Math.abs(latitude) + latitudeSpan);
+        double cos = Math.cos(Math.toRadians(widestLatitude));
+        int columns = cos <= 0 ? LONGITUDE_CELLS
+                : Math.min(LONGITUDE_CELLS, 2 * (int) Math.ceil(latitudeSpan / cos / CELL_DEGREES) + 1);
+        int firstColumn = longitudeColumn(longitude) - columns / 2;
+
+        List<Integer> cells = new ArrayList<>();
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int i = 0; i < columns; i++) {
+                cells.add(cell(row, Math.floorMod(firstColumn + i, LONGITUDE_CELLS)));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Returns great-circle distance between two points in kilometers.
+     * @param latitude1 latitude of first point
+     * @param longitude1 longitude of first point
+     * @param latitude2 latitude of second point
+     * @param longitude2 longitude of second point
+     * @return distance in kilometers
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Returns grid row of provided latitude.
+     * @param latitude latitude in degrees
+     * @return grid row
+     */
+    private static int latitudeRow(double latitude) {
+        return Math.min(LATITUDE_CELLS - 1, (int) Math.floor((latitude + 90) / CELL_DEGREES));
+    }
+
+    /**
+     * Returns grid column of provided longitude.
+     * @param longitude longitude in degrees
+     * @return grid column
+     */
+    private static int longitudeColumn(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), LONGITUDE_CELLS);
+    }
+
+    /**
+     * Returns grid cell of provided row and column.
+     * @param row grid row
+     * @param column grid column
+     * @return grid cell
+     */
+    private static int cell(int row, int column) {
+        return row * LONGITUDE_CELLS + column;
+    }
+}
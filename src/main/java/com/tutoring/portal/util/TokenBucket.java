@@ -0,0 +1,47 @@
+package com.tutoring.portal.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, which holds up to a capacity of tokens and gets one token back per interval.
+ * The whole state is one timestamp, the time when the bucket will be full again, updated by compare-and-set.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+
+    private final long capacityNanos;
+
+    private final AtomicLong fullAt;
+
+    /**
+     * Constructor, creates a full bucket.
+     * @param capacity maximum number of tokens
+     * @param intervalNanos time to get one token back in nanoseconds
+     * @param nowNanos current time in nanoseconds
+     */
+    public TokenBucket(int capacity, long intervalNanos, long nowNanos) {
+        this.intervalNanos = intervalNanos;
+        this.capacityNanos = capacity * intervalNanos;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token, if there is any.
+     * @param nowNanos current time in nanoseconds
+     * @return 0 if token was taken, otherwise time in nanoseconds until a token is available
+     */
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long overdraft = next - nowNanos - capacityNanos;
+            if (overdraft > 0) {
+                return overdraft;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -3,28 +3,63 @@ package com.tutoring.portal.util;
 import com.tutoring.portal.model.User;
 import com.tutoring.portal.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * Common methods for user authentication.
+ * The current user is loaded at most once per request and is looked up by the ID carried by {@link UserPrincipal}.
+ * Sessions created before principals were introduced are upgraded to {@link UserPrincipal} when the user is first loaded.
  */
 @Component
 public class UserAuthentication {
 
+    private static final String CURRENT_USER = UserAuthentication.class.getName() + ".currentUser";
+
     @Autowired
     UserService userService;
 
+    /**
+     * Returns principal of user, who is currently authenticated, without loading the user.
+     * For sessions created before principals were introduced, the user is loaded once and the session is upgraded.
+     *
+     * @return current user's principal or null, if user is anonymous
+     */
+    public UserPrincipal getCurrentPrincipal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        if (!(auth.getPrincipal() instanceof UserPrincipal) && getCurrentUser() != null) {
+            auth = SecurityContextHolder.getContext().getAuthentication();
+        }
+        return auth.getPrincipal() instanceof UserPrincipal ? (UserPrincipal) auth.getPrincipal() : null;
+    }
+
     /**
      * Returns user, who is currently authenticated.
+     * The user is remembered until the end of the request, so repeated calls don't query the database.
      *
-     * @return current user
+     * @return current user or null, if user is anonymous
      */
     public User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return userService.findUserByEmail(auth.getName());
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            User user = (User) request.getAttribute(CURRENT_USER, RequestAttributes.SCOPE_REQUEST);
+            if (user != null) {
+                return user;
+            }
+        }
+        User user = loadCurrentUser();
+        if (request != null && user != null) {
+            request.setAttribute(CURRENT_USER, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
     }
 
     /**
@@ -33,8 +68,35 @@ public class UserAuthentication {
      * @param user current user
      */
     public void updateAuthentication(User user) {
-        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user.getEmail(), user.getPassword(),
-                SecurityContextHolder.getContext().getAuthentication().getAuthorities());
+        Authentication current = SecurityContextHolder.getContext().getAuthentication();
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                UserPrincipal.of(user, current.getAuthorities()), null, current.getAuthorities());
+        authentication.setDetails(current.getDetails());
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(CURRENT_USER, user, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Loads user, who is currently authenticated, by principal's ID or, for older sessions, by email.
+     * Older sessions get {@link UserPrincipal}, so following requests don't need the user to be loaded.
+     *
+     * @return current user or null, if user is anonymous
+     */
+    private User loadCurrentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        if (auth.getPrincipal() instanceof UserPrincipal) {
+            return userService.getUserById(((UserPrincipal) auth.getPrincipal()).getId());
+        }
+        User user = userService.findUserByEmail(auth.getName());
+        if (user != null) {
+            updateAuthentication(user);
+        }
+        return user;
     }
 }
@@ -0,0 +1,115 @@
+package com.tutoring.portal.util;
+
+import com.tutoring.portal.model.User;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Authenticated user kept in the security context for the whole session.
+ * Carries what views and access checks need, so they don't have to load the user from the database.
+ */
+public class UserPrincipal implements AuthenticatedPrincipal, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+
+    private final String email;
+
+    private final String displayName;
+
+    private final Set<String> roles;
+
+    /**
+     * Constructor with all fields.
+     * @param id user's ID
+     * @param email user's email
+     * @param displayName user's name and surname
+     * @param roles user's role names
+     */
+    public UserPrincipal(int id, String email, String displayName, Set<String> roles) {
+        this.id = id;
+        this.email = email;
+        this.displayName = displayName;
+        this.roles = Collections.unmodifiableSet(roles);
+    }
+
+    /**
+     * Creates principal of provided user with provided authorities as roles.
+     * @param user user
+     * @param authorities granted authorities
+     * @return principal
+     */
+    public static UserPrincipal of(User user, Collection<? extends GrantedAuthority> authorities) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getName() + " " + user.getSurname(),
+                authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Returns user's email, the name used to log in.
+     * @return email
+     */
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    /**
+     * Checks if user has ADMIN role.
+     * @return true or false
+     */
+    public boolean isAdmin() {
+        return roles.contains("ADMIN");
+    }
+
+    /**
+     * Checks if user has TUTOR role.
+     * @return true or false
+     */
+    public boolean isTutor() {
+        return roles.contains("TUTOR");
+    }
+
+    /**
+     * Getter for id.
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for email.
+     * @return email
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Getter for displayName.
+     * @return displayName
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Getter for roles.
+     * @return roles
+     */
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
@@ -0,0 +1,112 @@
+package com.tutoring.portal.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LoginThrottlingFilterTests {
+
+    private LoginThrottlingFilter filter;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new LoginThrottlingFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "ipCapacity", 4);
+        ReflectionTestUtils.setField(filter, "ipRefillSeconds", 60L);
+        ReflectionTestUtils.setField(filter, "accountCapacity", 2);
+        ReflectionTestUtils.setField(filter, "accountRefillSeconds", 60L);
+        filter.init();
+    }
+
+    /**
+     * Tests that attempts for one email are limited, regardless of case, and don't reach the login filter.
+     */
+    @Test
+    void testThrottleAccount() throws ServletException, IOException {
+        assertEquals(200, login("1.1.1.1", "e@example.com").getStatus());
+        assertEquals(200, login("1.1.1.2", "E@example.com ").getStatus());
+
+        MockHttpServletResponse response = login("1.1.1.3", "e@example.com");
+        assertEquals(429, response.getStatus());
+        assertEquals("60", response.getHeader("Retry-After"));
+        assertEquals(200, login("1.1.1.3", "other@example.com").getStatus());
+        assertEquals(1, meterRegistry.get("login.throttled").tag("key", "account").counter().count());
+    }
+
+    /**
+     * Tests that attempts from one IP are limited across emails.
+     */
+    @Test
+    void testThrottleIp() throws ServletException, IOException {
+        for (int i = 0; i < 4; i++) {
+            assertEquals(200, login("1.1.1.1", i + "@example.com").getStatus());
+        }
+        assertEquals(429, login("1.1.1.1", "new@example.com").getStatus());
+        assertEquals(200, login("1.1.1.2", "new@example.com").getStatus());
+        assertEquals(1, meterRegistry.get("login.throttled").tag("key", "ip").counter().count());
+    }
+
+    /**
+     * Tests that attempts for many other emails and IPs don't evict bucket of the attacked account.
+     */
+    @Test
+    void testThrottledAccountSurvivesSpraying() throws ServletException, IOException {
+        login("1.1.1.1", "victim@example.com");
+        login("1.1.1.2", "victim@example.com");
+        for (int i = 0; i < 20000; i++) {
+            login("10." + (i >> 16) + "." + ((i >> 8) & 255) + "." + (i & 255), i + "@example.com");
+        }
+        assertEquals(429, login("1.1.1.3", "victim@example.com").getStatus());
+    }
+
+    /**
+     * Tests that other requests than login form submissions aren't throttled.
+     */
+    @Test
+    void testOtherRequestsNotThrottled() throws ServletException, IOException {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/login");
+            request.setServletPath("/login");
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            assertNotNull(chain.getRequest());
+        }
+    }
+
+    /**
+     * Submits login form from provided IP with provided email.
+     * @param ip client IP
+     * @param email email
+     * @return response
+     */
+    private MockHttpServletResponse login(String ip, String email) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setRemoteAddr(ip);
+        request.setParameter("email", email);
+        request.setParameter("password", "password");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (response.getStatus() == 429) {
+            assertNull(chain.getRequest());
+        }
+        return response;
+    }
+}
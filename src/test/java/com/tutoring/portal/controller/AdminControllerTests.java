@@ -0,0 +1,162 @@
+package com.tutoring.portal.controller;
+
+import com.tutoring.portal.dto.UserSummary;
+import com.tutoring.portal.model.User;
+import com.tutoring.portal.service.CommentService;
+import com.tutoring.portal.service.PasswordHashingService;
+import com.tutoring.portal.service.SubjectService;
+import com.tutoring.portal.service.UserService;
+import com.tutoring.portal.service.UtilizationStatisticsService;
+import com.tutoring.portal.util.UserAuthentication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.servlet.mvc.support.RedirectAttributesModelMap;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AdminControllerTests {
+
+    @InjectMocks
+    AdminController adminController;
+
+    @Mock
+    UserService userService;
+
+    @Mock
+    SubjectService subjectService;
+
+    @Mock
+    CommentService commentService;
+
+    @Mock
+    UserAuthentication userAuthentication;
+
+    @Mock
+    PasswordHashingService passwordHashingService;
+
+    @Mock
+    UtilizationStatisticsService utilizationStatisticsService;
+
+    @Mock
+    Model model;
+
+    @Mock
+    BindingResult result;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    /**
+     * Tests getAllUsers method.
+     */
+    @Test
+    void testGetAllUsers() {
+        Page<UserSummary> page = new PageImpl<>(Collections.singletonList(
+                new UserSummary(1, "Mark", "Smith", "e@example.com", 1)), PageRequest.of(0, 20), 1);
+        when(userService.getUsersPage(0, 20)).thenReturn(page);
+        assertEquals("users", adminController.getAllUsers(0, 20, model));
+        verify(model).addAttribute("users", page.getContent());
+    }
+
+    /**
+     * Tests getStatistics method.
+     */
+    @Test
+    void testGetStatistics() {
+        LocalDate from = LocalDate.of(2020, 1, 1);
+        LocalDate to = LocalDate.of(2020, 1, 31);
+        assertEquals("admin/statistics", adminController.getStatistics(from, to, model));
+        verify(utilizationStatisticsService).getSubjectStatistics(from, to);
+        verify(utilizationStatisticsService).getTutorStatistics(from, to);
+        verify(model).addAttribute("from", from);
+    }
+
+    /**
+     * Tests getAllUsers method with page after the last one.
+     */
+    @Test
+    void testGetAllUsersAfterLastPage() {
+        when(userService.getUsersPage(3, 20)).thenReturn(new PageImpl<>(Collections.emptyList(), PageRequest.of(3, 20), 20));
+        when(userService.getUsersPage(0, 20)).thenReturn(new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 20), 20));
+        assertEquals("users", adminController.getAllUsers(3, 20, model));
+        verify(userService).getUsersPage(0, 20);
+    }
+
+    /**
+     * Tests that blockUser method redirects to the same users page with success message.
+     */
+    @Test
+    void testBlockUser() {
+        User user = createUser();
+        when(userService.getUserById(1)).thenReturn(user);
+        RedirectAttributesModelMap redirectAttributes = new RedirectAttributesModelMap();
+        assertEquals("redirect:/admin/users", adminController.blockUser(1, 2, redirectAttributes));
+        verify(userService).blockUser(user);
+        assertEquals("2", redirectAttributes.get("page"));
+        assertEquals("Successfully blocked user with ID: 1", redirectAttributes.getFlashAttributes().get("successMessage"));
+    }
+
+    /**
+     * Tests deleteUser method with invalid ID.
+     */
+    @Test
+    void testDeleteUserWithInvalidId() {
+        when(userService.getUserById(1)).thenReturn(null);
+        assertEquals("errors/error-404", adminController.deleteUser(1, 0, new RedirectAttributesModelMap()));
+        verify(userService, never()).deleteUser(1);
+    }
+
+    /**
+     * Tests that saveUser method redirects to users view.
+     */
+    @Test
+    void testSaveUser() {
+        User user = createUser();
+        when(userService.findUserByEmail(user.getEmail())).thenReturn(null);
+        when(result.hasErrors()).thenReturn(false);
+        assertEquals("redirect:/admin/users", adminController.saveUser(user, result, new RedirectAttributesModelMap()));
+        verify(userService).saveUser(user);
+    }
+
+    /**
+     * Tests saveUser method with invalid user.
+     */
+    @Test
+    void testSaveUserWithErrors() {
+        User user = createUser();
+        when(result.hasErrors()).thenReturn(true);
+        assertEquals("admin/register-user", adminController.saveUser(user, result, new RedirectAttributesModelMap()));
+        verify(userService, never()).saveUser(user);
+    }
+
+    /**
+     * Helper method for user creation.
+     *
+     * @return new user
+     */
+    public User createUser() {
+        User user = new User();
+        user.setId(1);
+        user.setName("Mark");
+        user.setSurname("Smith");
+        user.setPassword("password");
+        user.setEmail("e@example.com");
+        return user;
+    }
+}
@@ -1,5 +1,6 @@
 package com.tutoring.portal.controller;
 
+import com.tutoring.portal.dto.ConsultationPage;
 import com.tutoring.portal.model.Role;
 import com.tutoring.portal.model.Subject;
 import com.tutoring.portal.model.User;
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.ui.Model;
 
 import java.util.ArrayList;
@@ -61,8 +63,8 @@ class SubjectControllerTests {
     @Test
     void testGetAllTutorsBySubject() {
         when(subjectService.getSubjectById(1)).thenReturn(createSubject());
-        when(userService.getAllUsersWithTutorRole()).thenReturn(new ArrayList<>(Collections.singletonList(createUser())));
-        assertEquals("tutors", subjectController.getAllTutorsBySubject(1, model));
+        when(userService.getTutorsPage(1, 0, 20)).thenReturn(new PageImpl<>(Collections.singletonList(createUser())));
+        assertEquals("tutors", subjectController.getAllTutorsBySubject(1, 0, 20, model));
     }
 
     /**
@@ -71,7 +73,7 @@ class SubjectControllerTests {
     @Test
     void testGetAllTutorsBySubjectWithNullSubject() {
         when(subjectService.getSubjectById(1)).thenReturn(null);
-        assertEquals("errors/error-404", subjectController.getAllTutorsBySubject(1, model));
+        assertEquals("errors/error-404", subjectController.getAllTutorsBySubject(1, 0, 20, model));
     }
 
     /**
@@ -80,9 +82,10 @@ class SubjectControllerTests {
     @Test
     void testGetAllConsultationsBySubject() {
         when(subjectService.getSubjectById(1)).thenReturn(createSubject());
-        when(consultationService.getAllConsultations()).thenReturn(new ArrayList<>());
+        when(consultationService.getFutureConsultationsPage(1, null, null, null, 20))
+                .thenReturn(new ConsultationPage(new ArrayList<>(), null, null, 20));
         when(userAuthentication.getCurrentUser()).thenReturn(createUser());
-        assertEquals("consultations", subjectController.getAllConsultationsBySubject(1, model));
+        assertEquals("consultations", subjectController.getAllConsultationsBySubject(1, null, null, 20, model));
     }
 
     /**
@@ -91,7 +94,7 @@ class SubjectControllerTests {
     @Test
     void testGetAllConsultationsBySubjectWithNullSubject() {
         when(subjectService.getSubjectById(1)).thenReturn(null);
-        assertEquals("errors/error-404", subjectController.getAllConsultationsBySubject(1, model));
+        assertEquals("errors/error-404", subjectController.getAllConsultationsBySubject(1, null, null, 20, model));
     }
 
     /**
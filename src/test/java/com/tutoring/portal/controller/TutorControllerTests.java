@@ -1,8 +1,11 @@
 package com.tutoring.portal.controller;
 
+import com.tutoring.portal.dto.ConsultationPage;
 import com.tutoring.portal.model.Comment;
 import com.tutoring.portal.model.Role;
 import com.tutoring.portal.model.User;
+import com.tutoring.portal.service.CommentService;
+import com.tutoring.portal.service.ConsultationService;
 import com.tutoring.portal.service.UserService;
 import com.tutoring.portal.util.UserAuthentication;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,9 +13,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 
@@ -27,6 +32,12 @@ class TutorControllerTests {
     @Mock
     UserService userService;
 
+    @Mock
+    CommentService commentService;
+
+    @Mock
+    ConsultationService consultationService;
+
     @Mock
     UserAuthentication userAuthentication;
 
@@ -46,8 +57,8 @@ class TutorControllerTests {
      */
     @Test
     void testGetAllTutors() {
-        when(userService.getAllUsersWithTutorRole()).thenReturn(null);
-        assertEquals("tutors", tutorController.getAllTutors(model));
+        when(userService.getTutorsPage(null, 0, 20)).thenReturn(new PageImpl<>(new ArrayList<>()));
+        assertEquals("tutors", tutorController.getAllTutors(0, 20, model));
     }
 
     /**
@@ -58,7 +69,9 @@ class TutorControllerTests {
         User user = createUser();
         when(userService.getUserById(1)).thenReturn(user);
         when(userAuthentication.getCurrentUser()).thenReturn(user);
-        assertEquals("consultations", tutorController.getTutorConsultations(1, model));
+        when(consultationService.getFutureConsultationsPage(null, 1, null, null, 20))
+                .thenReturn(new ConsultationPage(new ArrayList<>(), null, null, 20));
+        assertEquals("consultations", tutorController.getTutorConsultations(1, null, null, 20, model));
     }
 
     /**
@@ -67,7 +80,7 @@ class TutorControllerTests {
     @Test
     void testGetTutorConsultationsWithNullTutor() {
         when(userService.getUserById(1)).thenReturn(null);
-        assertEquals("errors/error-404", tutorController.getTutorConsultations(1, model));
+        assertEquals("errors/error-404", tutorController.getTutorConsultations(1, null, null, 20, model));
     }
 
     /**
@@ -78,7 +91,7 @@ class TutorControllerTests {
         User user = createUser();
         user.setRoles(new HashSet<>());
         when(userService.getUserById(1)).thenReturn(user);
-        assertEquals("errors/error-404", tutorController.getTutorConsultations(1, model));
+        assertEquals("errors/error-404", tutorController.getTutorConsultations(1, null, null, 20, model));
     }
 
     /**
@@ -3,6 +3,7 @@ package com.tutoring.portal.controller;
 import com.tutoring.portal.model.Comment;
 import com.tutoring.portal.model.User;
 import com.tutoring.portal.service.CommentService;
+import com.tutoring.portal.service.PasswordHashingService;
 import com.tutoring.portal.service.UserService;
 import com.tutoring.portal.util.UserAuthentication;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,7 +11,6 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 
@@ -32,7 +32,7 @@ class UserControllerTests {
     UserAuthentication userAuthentication;
 
     @Mock
-    BCryptPasswordEncoder bCryptPasswordEncoder;
+    PasswordHashingService passwordHashingService;
 
     @Mock
     Model model;
@@ -269,8 +269,8 @@ class UserControllerTests {
     void testSaveUpdatedPassword() {
         User user = createUser();
         when(userAuthentication.getCurrentUser()).thenReturn(user);
-        when(bCryptPasswordEncoder.matches("password", user.getPassword())).thenReturn(true);
-        when(bCryptPasswordEncoder.matches("newPassword", user.getPassword())).thenReturn(false);
+        when(passwordHashingService.matches("password", user.getPassword())).thenReturn(true);
+        when(passwordHashingService.matches("newPassword", user.getPassword())).thenReturn(false);
         assertEquals("update-password", userController.saveUpdatedPassword("password", "newPassword", model));
     }
 
@@ -281,7 +281,7 @@ class UserControllerTests {
     void testSaveUpdatedPasswordWithOldPasswordError() {
         User user = createUser();
         when(userAuthentication.getCurrentUser()).thenReturn(user);
-        when(bCryptPasswordEncoder.matches("password1", user.getPassword())).thenReturn(false);
+        when(passwordHashingService.matches("password1", user.getPassword())).thenReturn(false);
         assertEquals("update-password", userController.saveUpdatedPassword("password1", "newPassword", model));
     }
 
@@ -292,8 +292,8 @@ class UserControllerTests {
     void testSaveUpdatedPasswordWithNewPasswordError() {
         User user = createUser();
         when(userAuthentication.getCurrentUser()).thenReturn(user);
-        when(bCryptPasswordEncoder.matches("password", user.getPassword())).thenReturn(true);
-        when(bCryptPasswordEncoder.matches("password", user.getPassword())).thenReturn(true);
+        when(passwordHashingService.matches("password", user.getPassword())).thenReturn(true);
+        when(passwordHashingService.matches("password", user.getPassword())).thenReturn(true);
         assertEquals("update-password", userController.saveUpdatedPassword("password", "password", model));
     }
 
@@ -304,8 +304,8 @@ class UserControllerTests {
     void testSaveUpdatedPasswordWithShortNewPasswordError() {
         User user = createUser();
         when(userAuthentication.getCurrentUser()).thenReturn(user);
-        when(bCryptPasswordEncoder.matches("password", user.getPassword())).thenReturn(true);
-        when(bCryptPasswordEncoder.matches("pass", user.getPassword())).thenReturn(false);
+        when(passwordHashingService.matches("password", user.getPassword())).thenReturn(true);
+        when(passwordHashingService.matches("pass", user.getPassword())).thenReturn(false);
         assertEquals("update-password", userController.saveUpdatedPassword("password", "pass", model));
     }
 
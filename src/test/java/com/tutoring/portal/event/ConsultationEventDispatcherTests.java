@@ -0,0 +1,335 @@
+package com.tutoring.portal.event;
+
+import com.tutoring.portal.model.Address;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.OutboxEvent;
+import com.tutoring.portal.model.Subject;
+import com.tutoring.portal.model.User;
+import com.tutoring.portal.repository.OutboxEventRepository;
+import com.tutoring.portal.repository.UserRepository;
+import com.tutoring.portal.service.AddressService;
+import com.tutoring.portal.service.ConsultationService;
+import com.tutoring.portal.service.SubjectService;
+import com.tutoring.portal.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class ConsultationEventDispatcherTests {
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private ConsultationEventOutbox consultationEventOutbox;
+
+    @Autowired
+    private ConsultationEventDispatcher consultationEventDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecordingListener listener;
+
+    private User tutor;
+
+    private Subject subject;
+
+    private Address address;
+
+    @BeforeEach
+    void setup() {
+        tutor = userService.saveUser(createUser("tutor@example.com"));
+        subject = subjectService.saveSubject(createSubject());
+        address = addressService.saveAddress(createAddress(tutor));
+    }
+
+    /**
+     * Tests that consultation lifecycle events are published in order after commit and removed from the outbox.
+     */
+    @Test
+    void testLifecycleEventsArePublished() throws Exception {
+        Consultation consultation = createConsultation(LocalDateTime.now().plusDays(1));
+        consultation.setMaxStudentsNumber(1);
+        int id = consultationService.saveConsultation(consultation).getId();
+        int first = userService.saveUser(createUser("student1@example.com")).getId();
+        int second = userService.saveUser(createUser("student2@example.com")).getId();
+        consultationService.registerUser(id, first);
+        consultationService.joinWaitlist(id, second);
+        consultationService.unregisterUser(id, first);
+        consultationService.deleteConsultation(id);
+
+        ConsultationCreated created = (ConsultationCreated) next();
+        assertEquals(id, created.getConsultationId());
+        assertEquals(tutor.getId(), created.getTutorId());
+        assertEquals(first, ((ConsultationRegistered) next()).getStudentId());
+        assertEquals(first, ((ConsultationUnregistered) next()).getStudentId());
+        assertEquals(second, ((ConsultationRegistered) next()).getStudentId());
+        ConsultationCancelled cancelled = (ConsultationCancelled) next();
+        assertEquals(Collections.singletonList(second), cancelled.getStudentIds());
+        assertNull(listener.events.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    /**
+     * Tests that consultations deleted by cascade together with their subject or address are reported as cancelled.
+     */
+    @Test
+    void testCascadeDeletionsArePublished() throws Exception {
+        int first = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        Address other = addressService.saveAddress(createAddress(tutor));
+        Consultation consultation = createConsultation(LocalDateTime.now().plusDays(2));
+        consultation.setSubject(subjectService.saveSubject(createSubject()));
+        consultation.setAddress(other);
+        int second = consultationService.saveConsultation(consultation).getId();
+        int student = userService.saveUser(createUser("student@example.com")).getId();
+        consultationService.registerUser(first, student);
+        subjectService.deleteSubject(subject.getId());
+        addressService.deleteAddress(other.getId());
+
+        assertEquals(first, next().getConsultationId());
+        assertEquals(second, next().getConsultationId());
+        assertEquals(student, ((ConsultationRegistered) next()).getStudentId());
+        ConsultationCancelled cancelled = (ConsultationCancelled) next();
+        assertEquals(first, cancelled.getConsultationId());
+        assertEquals(Collections.singletonList(student), cancelled.getStudentIds());
+        cancelled = (ConsultationCancelled) next();
+        assertEquals(second, cancelled.getConsultationId());
+        assertTrue(cancelled.getStudentIds().isEmpty());
+        assertNull(listener.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests that cancellation of consultation with a student list longer than a character column is stored and published.
+     */
+    @Test
+    void testLargeCancellationIsPublished() throws Exception {
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            students.add(createUser("student" + i + "@example.com"));
+        }
+        Consultation consultation = createConsultation(LocalDateTime.now().plusDays(1));
+        consultation.setMaxStudentsNumber(students.size());
+        consultation.setStudents(new HashSet<>(userRepository.saveAll(students)));
+        int id = consultationService.saveConsultation(consultation).getId();
+        consultationService.deleteConsultation(id);
+
+        assertEquals(ConsultationEventType.CREATED, next().getType());
+        ConsultationCancelled cancelled = (ConsultationCancelled) next();
+        assertEquals(students.size(), cancelled.getStudentIds().size());
+        assertTrue(cancelled.getPayload().length() > 4000);
+        assertNull(consultationService.getConsultationById(id));
+    }
+
+    /**
+     * Tests that events of rolled back transactions are never stored.
+     */
+    @Test
+    void testRolledBackEventsAreDiscarded() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            consultationEventOutbox.record(new ConsultationRegistered(1, 2));
+            status.setRollbackOnly();
+        });
+        consultationEventDispatcher.dispatch();
+
+        assertNull(listener.events.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    /**
+     * Tests that an event whose listener fails stays in the outbox, blocks newer events and is retried.
+     */
+    @Test
+    void testFailedEventIsRetriedInOrder() throws Exception {
+        listener.failing.set(true);
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        Consultation updated = consultationService.getConsultationById(id);
+        updated.setDescription("Updated consultation description");
+        consultationService.saveConsultation(updated);
+        assertTrue(listener.failures.poll(5, TimeUnit.SECONDS) instanceof ConsultationCreated);
+        assertEquals(2, outboxEventRepository.count());
+
+        listener.failing.set(false);
+        consultationEventDispatcher.dispatch();
+        assertEquals(Arrays.asList(ConsultationEventType.CREATED, ConsultationEventType.UPDATED),
+                Arrays.asList(next().getType(), next().getType()));
+    }
+
+    /**
+     * Tests that an event, which keeps failing, is dead-lettered, reported and no longer blocks newer events.
+     */
+    @Test
+    void testExhaustedEventIsDeadLettered() throws Exception {
+        listener.failing.set(true);
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        for (int i = 1; i < ConsultationEventDispatcher.MAX_ATTEMPTS; i++) {
+            assertTrue(listener.failures.poll(5, TimeUnit.SECONDS) instanceof ConsultationCreated);
+            consultationEventDispatcher.dispatch();
+        }
+        assertTrue(listener.failures.poll(5, TimeUnit.SECONDS) instanceof ConsultationCreated);
+
+        listener.failing.set(false);
+        Consultation updated = consultationService.getConsultationById(id);
+        updated.setDescription("Updated consultation description");
+        consultationService.saveConsultation(updated);
+        assertEquals(ConsultationEventType.UPDATED, next().getType());
+        assertNull(listener.failures.poll(200, TimeUnit.MILLISECONDS));
+        OutboxEvent row = outboxEventRepository.findAll().get(0);
+        assertEquals(ConsultationEventType.CREATED, row.getType());
+        assertTrue(row.isDeadLettered());
+        assertEquals(1, outboxEventRepository.count());
+        assertEquals(1, meterRegistry.get("consultation.events.dead.lettered").gauge().value());
+    }
+
+    /**
+     * Returns next published event, waiting for the dispatcher.
+     * @return event
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private ConsultationEvent next() throws InterruptedException {
+        ConsultationEvent event = listener.events.poll(5, TimeUnit.SECONDS);
+        assertTrue(event != null, "event was not published");
+        return event;
+    }
+
+    /**
+     * Helper method for consultation creation.
+     * @param dateTime consultation's date and time
+     * @return new consultation
+     */
+    public Consultation createConsultation(LocalDateTime dateTime) {
+        Consultation consultation = new Consultation();
+        consultation.setDescription("Consultation description");
+        consultation.setMaxStudentsNumber(5);
+        consultation.setDateTime(dateTime);
+        consultation.setSubject(subject);
+        consultation.setTutor(tutor);
+        consultation.setAddress(address);
+        return consultation;
+    }
+
+    /**
+     * Helper method for user creation.
+     * @param email user's email
+     * @return new user
+     */
+    public User createUser(String email) {
+        User user = new User();
+        user.setName("Mark");
+        user.setSurname("Smith");
+        user.setPassword("password");
+        user.setEmail(email);
+        return user;
+    }
+
+    /**
+     * Helper method for subject creation.
+     * @return new subject
+     */
+    public Subject createSubject() {
+        Subject subject = new Subject();
+        subject.setSubjectName("Math");
+        return subject;
+    }
+
+    /**
+     * Helper method for address creation.
+     * @param user address owner
+     * @return new address
+     */
+    public Address createAddress(User user) {
+        Address address = new Address();
+        address.setCountry("Latvia");
+        address.setCity("Riga");
+        address.setStreet("Slokas");
+        address.setStreetNumber("1a");
+        address.setUser(user);
+        return address;
+    }
+
+    /**
+     * Listener, which collects published events and can be switched to fail.
+     */
+    static class RecordingListener {
+
+        private final BlockingQueue<ConsultationEvent> events = new LinkedBlockingQueue<>();
+
+        private final BlockingQueue<ConsultationEvent> failures = new LinkedBlockingQueue<>();
+
+        private final AtomicBoolean failing = new AtomicBoolean();
+
+        /**
+         * Collects provided event or fails, if failing is switched on.
+         * @param event event
+         */
+        @EventListener
+        public void onEvent(ConsultationEvent event) {
+            if (failing.get()) {
+                failures.add(event);
+                throw new IllegalStateException("Listener failure");
+            }
+            events.add(event);
+        }
+    }
+
+    @TestConfiguration
+    static class ListenerConfiguration {
+
+        /**
+         * Registers recording listener.
+         * @return listener
+         */
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.CalendarVersion;
+import com.tutoring.portal.model.Address;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.Subject;
+import com.tutoring.portal.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class CalendarServiceTests {
+
+    @Autowired
+    private CalendarService calendarService;
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private AddressService addressService;
+
+    private User tutor;
+
+    private Subject subject;
+
+    private Address address;
+
+    @BeforeEach
+    void setup() {
+        tutor = userService.saveUser(createUser("tutor@example.com"));
+        subject = subjectService.saveSubject(createSubject());
+        address = addressService.saveAddress(createAddress(tutor));
+    }
+
+    /**
+     * Tests that calendar token is generated once and resolves to its user.
+     */
+    @Test
+    void testCalendarToken() {
+        String token = calendarService.getCalendarToken(tutor);
+
+        assertEquals(token, calendarService.getCalendarToken(userService.getUserById(tutor.getId())));
+        assertEquals(tutor.getId(), calendarService.findUserByCalendarToken(token).getId());
+        assertNull(calendarService.findUserByCalendarToken("unknown"));
+
+        userService.blockUser(userService.getUserById(tutor.getId()));
+        assertNull(calendarService.findUserByCalendarToken(token));
+    }
+
+    /**
+     * Tests that calendar contains created and registered consultations across several pages.
+     */
+    @Test
+    void testWriteCalendar() throws IOException {
+        User student = userService.saveUser(createUser("student@example.com"));
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        for (int i = 0; i < CalendarService.PAGE_SIZE + 1; i++) {
+            consultationService.saveConsultation(createConsultation(base.plusHours(i)));
+        }
+        int registered = consultationService.saveConsultation(createConsultation(base.minusHours(5))).getId();
+        consultationService.registerUser(registered, student.getId());
+
+        StringWriter tutorCalendar = new StringWriter();
+        calendarService.writeCalendar(tutor.getId(), tutorCalendar);
+        StringWriter studentCalendar = new StringWriter();
+        calendarService.writeCalendar(student.getId(), studentCalendar);
+
+        assertEquals(CalendarService.PAGE_SIZE + 2, tutorCalendar.toString().split("BEGIN:VEVENT", -1).length - 1);
+        assertTrue(tutorCalendar.toString().startsWith("BEGIN:VCALENDAR\r\n"));
+        assertTrue(tutorCalendar.toString().endsWith("END:VCALENDAR\r\n"));
+        assertEquals(1, studentCalendar.toString().split("BEGIN:VEVENT", -1).length - 1);
+        assertTrue(studentCalendar.toString().contains("UID:consultation-" + registered + "@tutoring-portal"));
+        assertTrue(studentCalendar.toString().contains("LOCATION:Slokas 1a\\, Riga\\, Latvia"));
+    }
+
+    /**
+     * Tests that calendar lines are folded at 75 octets.
+     */
+    @Test
+    void testWriteCalendarFoldsLongLines() throws IOException {
+        Consultation consultation = createConsultation(LocalDateTime.now().plusDays(1));
+        consultation.setDescription("Ā".repeat(100));
+        consultationService.saveConsultation(consultation);
+
+        StringWriter calendar = new StringWriter();
+        calendarService.writeCalendar(tutor.getId(), calendar);
+
+        for (String line : calendar.toString().split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75);
+        }
+        assertTrue(calendar.toString().replace("\r\n ", "").contains("DESCRIPTION:" + "Ā".repeat(100)));
+    }
+
+    /**
+     * Tests that calendar version changes when consultations are added, changed or leave the calendar.
+     */
+    @Test
+    void testCalendarVersion() {
+        User student = userService.saveUser(createUser("student@example.com"));
+        CalendarVersion empty = calendarService.getCalendarVersion(student.getId());
+        assertNull(empty.getLastModified());
+
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        assertEquals(empty.getETag(), calendarService.getCalendarVersion(student.getId()).getETag());
+
+        consultationService.registerUser(id, student.getId());
+        CalendarVersion registered = calendarService.getCalendarVersion(student.getId());
+        assertNotEquals(empty.getETag(), registered.getETag());
+        assertEquals(registered.getETag(), calendarService.getCalendarVersion(student.getId()).getETag());
+
+        CalendarVersion tutorVersion = calendarService.getCalendarVersion(tutor.getId());
+        consultationService.unregisterUser(id, student.getId());
+        assertEquals(empty.getETag(), calendarService.getCalendarVersion(student.getId()).getETag());
+        assertNotEquals(tutorVersion.getETag(), calendarService.getCalendarVersion(tutor.getId()).getETag());
+        assertFalse(calendarService.getCalendarVersion(tutor.getId()).getLastModified().isBefore(tutorVersion.getLastModified()));
+    }
+
+    /**
+     * Tests that calendar version changes when subject, address or tutor shown in the calendar are changed.
+     */
+    @Test
+    void testCalendarVersionFollowsRelatedChanges() {
+        User student = userService.saveUser(createUser("student@example.com"));
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        consultationService.registerUser(id, student.getId());
+        List<String> tags = new ArrayList<>();
+        tags.add(calendarService.getCalendarVersion(student.getId()).getETag());
+
+        subject.setSubjectName("Physics");
+        subjectService.saveSubject(subject);
+        tags.add(calendarService.getCalendarVersion(student.getId()).getETag());
+        Address updatedAddress = addressService.getAddressById(address.getId());
+        updatedAddress.setStreet("Brivibas");
+        addressService.saveAddress(updatedAddress);
+        tags.add(calendarService.getCalendarVersion(student.getId()).getETag());
+        User updatedTutor = userService.getUserById(tutor.getId());
+        updatedTutor.setSurname("Jones");
+        userService.updateUser(updatedTutor);
+        tags.add(calendarService.getCalendarVersion(student.getId()).getETag());
+
+        assertEquals(tags.size(), new HashSet<>(tags).size());
+    }
+
+    /**
+     * Helper method for consultation creation.
+     * @param dateTime consultation's date and time
+     * @return new consultation
+     */
+    public Consultation createConsultation(LocalDateTime dateTime) {
+        Consultation consultation = new Consultation();
+        consultation.setDescription("Consultation description");
+        consultation.setMaxStudentsNumber(5);
+        consultation.setDateTime(dateTime);
+        consultation.setSubject(subject);
+        consultation.setTutor(tutor);
+        consultation.setAddress(address);
+        return consultation;
+    }
+
+    /**
+     * Helper method for user creation.
+     * @param email user's email
+     * @return new user
+     */
+    public User createUser(String email) {
+        User user = new User();
+        user.setName("Mark");
+        user.setSurname("Smith");
+        user.setPassword("password");
+        user.setEmail(email);
+        return user;
+    }
+
+    /**
+     * Helper method for subject creation.
+     * @return new subject
+     */
+    public Subject createSubject() {
+        Subject subject = new Subject();
+        subject.setSubjectName("Math");
+        return subject;
+    }
+
+    /**
+     * Helper method for address creation.
+     * @param user address owner
+     * @return new address
+     */
+    public Address createAddress(User user) {
+        Address address = new Address();
+        address.setCountry("Latvia");
+        address.setCity("Riga");
+        address.setStreet("Slokas");
+        address.setStreetNumber("1a");
+        address.setUser(user);
+        return address;
+    }
+}
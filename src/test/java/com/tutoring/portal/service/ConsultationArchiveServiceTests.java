@@ -0,0 +1,198 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.ConsultationDashboard;
+import com.tutoring.portal.dto.ConsultationPage;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.model.Address;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.Subject;
+import com.tutoring.portal.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"consultation.archive.horizon-days=30", "consultation.archive.batch-size=2"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class ConsultationArchiveServiceTests {
+
+    @Autowired
+    private ConsultationArchiveService consultationArchiveService;
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private AddressService addressService;
+
+    private User tutor;
+
+    private Subject subject;
+
+    private Address address;
+
+    @BeforeEach
+    void setup() {
+        tutor = userService.saveUser(createUser("tutor@example.com"));
+        subject = subjectService.saveSubject(createSubject());
+        address = addressService.saveAddress(createAddress(tutor));
+    }
+
+    /**
+     * Tests that consultations older than archive horizon are moved to archive in batches
+     * and still appear in past consultations.
+     */
+    @Test
+    void testArchivePastConsultations() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        User student = userService.saveUser(createUser("student@example.com"));
+        Consultation oldest = createConsultation(now.minusDays(50));
+        oldest.setStudents(Collections.singleton(student));
+        int oldestId = consultationService.saveConsultation(oldest).getId();
+        int older = consultationService.saveConsultation(createConsultation(now.minusDays(40))).getId();
+        int old = consultationService.saveConsultation(createConsultation(now.minusDays(35))).getId();
+        int recent = consultationService.saveConsultation(createConsultation(now.minusDays(10))).getId();
+        consultationService.saveConsultation(createConsultation(now.plusDays(1)));
+
+        assertEquals(3, consultationArchiveService.archivePastConsultations());
+        assertEquals(0, consultationArchiveService.archivePastConsultations());
+
+        assertNull(consultationService.getConsultationById(oldestId));
+        ConsultationSummary archived = consultationService.getArchivedConsultationById(oldestId);
+        assertNotNull(archived);
+        assertEquals("Math", archived.getSubjectName());
+        assertEquals("Mark Smith", archived.getTutorName());
+        assertEquals(1, archived.getRegisteredCount());
+        assertNotNull(consultationService.getConsultationById(recent));
+
+        assertEquals(Arrays.asList(recent, old), ids(consultationService.getPastConsultationsPage(null, null, 2).getConsultations()));
+        String next = consultationService.getPastConsultationsPage(null, null, 2).getNextCursor();
+        assertEquals(Arrays.asList(older, oldestId), ids(consultationService.getPastConsultationsPage(next, null, 2).getConsultations()));
+    }
+
+    /**
+     * Tests that dashboard splits user's consultations into created and registered to, past and future ones,
+     * including archived consultations.
+     */
+    @Test
+    void testGetDashboard() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        User student = userService.saveUser(createUser("student@example.com"));
+        Consultation archived = createConsultation(now.minusDays(50));
+        archived.setStudents(Collections.singleton(student));
+        int archivedId = consultationService.saveConsultation(archived).getId();
+        Consultation past = createConsultation(now.minusDays(5));
+        past.setStudents(Collections.singleton(student));
+        int pastId = consultationService.saveConsultation(past).getId();
+        int unregisteredPast = consultationService.saveConsultation(createConsultation(now.minusDays(2))).getId();
+        Consultation future = createConsultation(now.plusDays(2));
+        future.setStudents(Collections.singleton(student));
+        int futureId = consultationService.saveConsultation(future).getId();
+        int unregisteredFuture = consultationService.saveConsultation(createConsultation(now.plusDays(1))).getId();
+        assertEquals(1, consultationArchiveService.archivePastConsultations());
+
+        ConsultationDashboard tutorDashboard = consultationService.getDashboard(tutor.getId());
+        assertEquals(Arrays.asList(unregisteredPast, pastId, archivedId), ids(tutorDashboard.getCreatedPast().getConsultations()));
+        assertFalse(tutorDashboard.getCreatedPast().hasNext());
+        assertEquals(Arrays.asList(unregisteredFuture, futureId), ids(tutorDashboard.getCreatedFuture()));
+        assertTrue(tutorDashboard.hasNoRegistered());
+
+        ConsultationDashboard studentDashboard = consultationService.getDashboard(student.getId());
+        assertTrue(studentDashboard.hasNoCreated());
+        assertEquals(Arrays.asList(pastId, archivedId), ids(studentDashboard.getRegisteredPast().getConsultations()));
+        assertEquals(Collections.singletonList(futureId), ids(studentDashboard.getRegisteredFuture()));
+
+        ConsultationPage first = consultationService.getPastConsultationsPage(null, student.getId(), null, null, 1);
+        ConsultationPage second = consultationService.getPastConsultationsPage(null, student.getId(), first.getNextCursor(), null, 1);
+        assertEquals(Collections.singletonList(pastId), ids(first.getConsultations()));
+        assertEquals(Collections.singletonList(archivedId), ids(second.getConsultations()));
+        assertFalse(second.hasNext());
+    }
+
+    /**
+     * Returns IDs of provided consultations.
+     * @param consultations consultations
+     * @return IDs list
+     */
+    private List<Integer> ids(List<ConsultationSummary> consultations) {
+        return consultations.stream().map(ConsultationSummary::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Helper method for consultation creation.
+     * @param dateTime consultation's date and time
+     * @return new consultation
+     */
+    public Consultation createConsultation(LocalDateTime dateTime) {
+        Consultation consultation = new Consultation();
+        consultation.setDescription("Consultation description");
+        consultation.setMaxStudentsNumber(5);
+        consultation.setDateTime(dateTime);
+        consultation.setSubject(subject);
+        consultation.setTutor(tutor);
+        consultation.setAddress(address);
+        return consultation;
+    }
+
+    /**
+     * Helper method for user creation.
+     * @param email user's email
+     * @return new user
+     */
+    public User createUser(String email) {
+        User user = new User();
+        user.setName("Mark");
+        user.setSurname("Smith");
+        user.setPassword("password");
+        user.setEmail(email);
+        return user;
+    }
+
+    /**
+     * Helper method for subject creation.
+     * @return new subject
+     */
+    public Subject createSubject() {
+        Subject subject = new Subject();
+        subject.setSubjectName("Math");
+        return subject;
+    }
+
+    /**
+     * Helper method for address creation.
+     * @param user address owner
+     * @return new address
+     */
+    public Address createAddress(User user) {
+        Address address = new Address();
+        address.setCountry("Latvia");
+        address.setCity("Riga");
+        address.setStreet("Slokas");
+        address.setStreetNumber("1a");
+        address.setUser(user);
+        return address;
+    }
+}
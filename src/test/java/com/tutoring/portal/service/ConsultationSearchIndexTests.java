@@ -0,0 +1,235 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.ConsultationPage;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.model.Address;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.Subject;
+import com.tutoring.portal.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class ConsultationSearchIndexTests {
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private ConsultationArchiveService consultationArchiveService;
+
+    @Autowired
+    private ConsultationSearchIndex consultationSearchIndex;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private AddressService addressService;
+
+    private User tutor;
+
+    private Subject subject;
+
+    private Address address;
+
+    @BeforeEach
+    void setup() {
+        tutor = userService.saveUser(createUser("tutor@example.com"));
+        subject = subjectService.saveSubject(createSubject());
+        address = addressService.saveAddress(createAddress(tutor));
+    }
+
+    /**
+     * Tests that all words must match and subject matches rank higher than description matches.
+     */
+    @Test
+    void testSearchRanking() {
+        Subject physics = new Subject();
+        physics.setSubjectName("Physics");
+        physics = subjectService.saveSubject(physics);
+        Consultation homework = createConsultation(LocalDateTime.now().plusDays(1));
+        homework.setSubject(physics);
+        homework.setDescription("Help with math homework");
+        int homeworkId = consultationService.saveConsultation(homework).getId();
+        Consultation exam = createConsultation(LocalDateTime.now().plusDays(2));
+        exam.setDescription("Exam preparation session");
+        int examId = consultationService.saveConsultation(exam).getId();
+
+        assertEquals(Arrays.asList(examId, homeworkId), ids(search("MATH")));
+        assertEquals(Collections.singletonList(homeworkId), ids(search("math homework")));
+        assertEquals(Collections.singletonList(examId), ids(search("smith exam")));
+        assertTrue(search("chemistry").getConsultations().isEmpty());
+        assertTrue(search("  ").getConsultations().isEmpty());
+    }
+
+    /**
+     * Tests that search results are paged forward and backward by offset cursors.
+     */
+    @Test
+    void testSearchPaging() {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(i + 1))).getId());
+        }
+
+        ConsultationPage first = consultationService.searchConsultations("description", null, null, 2);
+        ConsultationPage second = consultationService.searchConsultations("description", first.getNextCursor(), null, 2);
+        ConsultationPage third = consultationService.searchConsultations("description", second.getNextCursor(), null, 2);
+        ConsultationPage back = consultationService.searchConsultations("description", null, third.getPreviousCursor(), 2);
+
+        assertNull(first.getPreviousCursor());
+        assertNull(third.getNextCursor());
+        assertEquals(ids(second), ids(back));
+        List<Integer> all = new ArrayList<>(ids(first));
+        all.addAll(ids(second));
+        all.addAll(ids(third));
+        Collections.sort(all);
+        assertEquals(expected, all);
+    }
+
+    /**
+     * Tests that offsets beyond the search result window are treated as malformed and don't overflow.
+     */
+    @Test
+    void testSearchOffsetIsLimited() {
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+
+        ConsultationPage page = consultationService.searchConsultations("description",
+                String.valueOf(Integer.MAX_VALUE), null, 10);
+        assertEquals(Collections.singletonList(id), ids(page));
+        assertNull(page.getPreviousCursor());
+        assertEquals(Collections.singletonList(id), ids(consultationService.searchConsultations("description",
+                null, String.valueOf(Integer.MAX_VALUE), 10)));
+        assertTrue(consultationSearchIndex.search("description", Integer.MAX_VALUE, 10).isEmpty());
+    }
+
+    /**
+     * Tests that index follows renamed subjects and tutors and deleted consultations.
+     */
+    @Test
+    void testSearchFollowsChanges() {
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+
+        subject.setSubjectName("Geometry");
+        subjectService.saveSubject(subject);
+        assertEquals(Collections.singletonList(id), ids(search("geometry")));
+        assertTrue(search("math").getConsultations().isEmpty());
+
+        User renamed = userService.getUserById(tutor.getId());
+        renamed.setSurname("Johnson");
+        userService.updateUser(renamed);
+        assertEquals(Collections.singletonList(id), ids(search("johnson")));
+        assertTrue(search("smith").getConsultations().isEmpty());
+
+        consultationService.deleteConsultation(id);
+        assertTrue(search("geometry").getConsultations().isEmpty());
+    }
+
+    /**
+     * Tests that archived consultations are found too.
+     */
+    @Test
+    void testSearchIncludesArchivedConsultations() {
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().minusDays(60))).getId();
+
+        assertEquals(1, consultationArchiveService.archivePastConsultations());
+        assertNull(consultationService.getConsultationById(id));
+        assertEquals(Collections.singletonList(id), ids(search("math")));
+    }
+
+    /**
+     * Returns first page of consultations matching provided text.
+     * @param text search text
+     * @return consultations page
+     */
+    private ConsultationPage search(String text) {
+        return consultationService.searchConsultations(text, null, null, 10);
+    }
+
+    /**
+     * Returns IDs of consultations on provided page.
+     * @param page consultations page
+     * @return IDs list
+     */
+    private List<Integer> ids(ConsultationPage page) {
+        return page.getConsultations().stream().map(ConsultationSummary::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Helper method for consultation creation.
+     * @param dateTime consultation's date and time
+     * @return new consultation
+     */
+    public Consultation createConsultation(LocalDateTime dateTime) {
+        Consultation consultation = new Consultation();
+        consultation.setDescription("Consultation description");
+        consultation.setMaxStudentsNumber(5);
+        consultation.setDateTime(dateTime);
+        consultation.setSubject(subject);
+        consultation.setTutor(tutor);
+        consultation.setAddress(address);
+        return consultation;
+    }
+
+    /**
+     * Helper method for user creation.
+     * @param email user's email
+     * @return new user
+     */
+    public User createUser(String email) {
+        User user = new User();
+        user.setName("Mark");
+        user.setSurname("Smith");
+        user.setPassword("password");
+        user.setEmail(email);
+        return user;
+    }
+
+    /**
+     * Helper method for subject creation.
+     * @return new subject
+     */
+    public Subject createSubject() {
+        Subject subject = new Subject();
+        subject.setSubjectName("Math");
+        return subject;
+    }
+
+    /**
+     * Helper method for address creation.
+     * @param user address owner
+     * @return new address
+     */
+    public Address createAddress(User user) {
+        Address address = new Address();
+        address.setCountry("Latvia");
+        address.setCity("Riga");
+        address.setStreet("Slokas");
+        address.setStreetNumber("1a");
+        address.setUser(user);
+        return address;
+    }
+}
@@ -0,0 +1,778 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.ConsultationFacets;
+import com.tutoring.portal.dto.ConsultationFilter;
+import com.tutoring.portal.dto.ConsultationPage;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.dto.FacetCount;
+import com.tutoring.portal.dto.WeeklyRecurrence;
+import com.tutoring.portal.model.Address;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.Subject;
+import com.tutoring.portal.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class ConsultationServiceTests {
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private AddressService addressService;
+
+    private User tutor;
+
+    private Subject subject;
+
+    private Address address;
+
+    @BeforeEach
+    void setup() {
+        tutor = userService.saveUser(createUser("tutor@example.com"));
+        subject = subjectService.saveSubject(createSubject());
+        address = addressService.saveAddress(createAddress(tutor));
+    }
+
+    /**
+     * Tests that future consultations are paged forward and backward in (dateTime, id) order.
+     */
+    @Test
+    void testGetFutureConsultationsPage() {
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        List<Integer> expected = new ArrayList<>();
+        // two consultations share the same date and time to check ordering by ID
+        for (LocalDateTime dateTime : Arrays.asList(base, base, base.plusHours(1), base.plusHours(2), base.plusHours(3))) {
+            expected.add(consultationService.saveConsultation(createConsultation(dateTime)).getId());
+        }
+        consultationService.saveConsultation(createConsultation(base.minusDays(2)));
+
+        ConsultationPage first = consultationService.getFutureConsultationsPage(null, null, null, null, 2);
+        ConsultationPage second = consultationService.getFutureConsultationsPage(null, null, first.getNextCursor(), null, 2);
+        ConsultationPage third = consultationService.getFutureConsultationsPage(null, null, second.getNextCursor(), null, 2);
+
+        assertFalse(first.hasPrevious());
+        assertEquals(expected.subList(0, 2), ids(first));
+        assertEquals(expected.subList(2, 4), ids(second));
+        assertEquals(expected.subList(4, 5), ids(third));
+        assertFalse(third.hasNext());
+
+        ConsultationPage back = consultationService.getFutureConsultationsPage(null, null, null, third.getPreviousCursor(), 2);
+        assertEquals(expected.subList(2, 4), ids(back));
+        assertTrue(back.hasPrevious());
+        assertTrue(back.hasNext());
+    }
+
+    /**
+     * Tests that past consultations are returned most recent first.
+     */
+    @Test
+    void testGetPastConsultationsPage() {
+        LocalDateTime base = LocalDateTime.now().minusDays(1).withNano(0);
+        int older = consultationService.saveConsultation(createConsultation(base.minusHours(1))).getId();
+        int recent = consultationService.saveConsultation(createConsultation(base)).getId();
+        consultationService.saveConsultation(createConsultation(base.plusDays(3)));
+
+        ConsultationPage first = consultationService.getPastConsultationsPage(null, null, 1);
+        ConsultationPage second = consultationService.getPastConsultationsPage(first.getNextCursor(), null, 1);
+
+        assertEquals(Arrays.asList(recent), ids(first));
+        assertEquals(Arrays.asList(older), ids(second));
+        assertNull(second.getNextCursor());
+    }
+
+    /**
+     * Tests that consultation summary contains related data and number of registered students.
+     */
+    @Test
+    void testConsultationSummary() {
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        consultationService.registerUser(id, userService.saveUser(createUser("student1@example.com")).getId());
+        consultationService.registerUser(id, userService.saveUser(createUser("student2@example.com")).getId());
+
+        ConsultationSummary summary = consultationService.getFutureConsultationsPage(null, null, null, null, 10)
+                .getConsultations().get(0);
+        assertEquals("Math", summary.getSubjectName());
+        assertEquals("Mark Smith", summary.getTutorName());
+        assertEquals("Slokas 1a, Riga, Latvia", summary.getAddress());
+        assertEquals(2, summary.getRegisteredCount());
+        assertEquals(3, summary.getAvailablePlaces());
+    }
+
+    /**
+     * Tests that requested page size is limited.
+     */
+    @Test
+    void testPageSizeIsLimited() {
+        assertEquals(ConsultationService.MAX_PAGE_SIZE,
+                consultationService.getFutureConsultationsPage(null, null, null, null, 100000).getSize());
+        assertEquals(1, consultationService.getFutureConsultationsPage(null, null, null, null, 0).getSize());
+    }
+
+    /**
+     * Tests that concurrent registrations never exceed maximum number of students.
+     */
+    @Test
+    void testConcurrentRegistrationsRespectCapacity() throws Exception {
+        int consultationId = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        List<Integer> studentIds = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            studentIds.add(userService.saveUser(createUser("student" + i + "@example.com")).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<RegistrationStatus>> results = new ArrayList<>();
+        for (int studentId : studentIds) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return consultationService.registerUser(consultationId, studentId);
+            }));
+        }
+        start.countDown();
+
+        List<RegistrationStatus> statuses = new ArrayList<>();
+        for (Future<RegistrationStatus> result : results) {
+            statuses.add(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(5, statuses.stream().filter(RegistrationStatus.REGISTERED::equals).count());
+        assertEquals(25, statuses.stream().filter(RegistrationStatus.FULL::equals).count());
+        ConsultationSummary summary = consultationService.getFutureConsultationsPage(null, null, null, null, 10)
+                .getConsultations().get(0);
+        assertEquals(5, summary.getRegisteredCount());
+    }
+
+    /**
+     * Tests registration and unregistration statuses.
+     */
+    @Test
+    void testRegisterAndUnregisterUser() {
+        int futureId = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        int pastId = consultationService.saveConsultation(createConsultation(LocalDateTime.now().minusDays(1))).getId();
+        int studentId = userService.saveUser(createUser("student@example.com")).getId();
+
+        assertEquals(RegistrationStatus.NOT_FOUND, consultationService.registerUser(-1, studentId));
+        assertEquals(RegistrationStatus.PAST, consultationService.registerUser(pastId, studentId));
+        assertEquals(RegistrationStatus.OWN_CONSULTATION, consultationService.registerUser(futureId, tutor.getId()));
+        assertEquals(RegistrationStatus.REGISTERED, consultationService.registerUser(futureId, studentId));
+        assertEquals(RegistrationStatus.ALREADY_REGISTERED, consultationService.registerUser(futureId, studentId));
+        assertEquals(RegistrationStatus.UNREGISTERED, consultationService.unregisterUser(futureId, studentId));
+        assertEquals(RegistrationStatus.NOT_REGISTERED, consultationService.unregisterUser(futureId, studentId));
+    }
+
+    /**
+     * Tests that registered students counter is maintained by registration, unregistration and user deletion.
+     */
+    @Test
+    void testRegisteredCountIsMaintained() {
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        int student1 = userService.saveUser(createUser("student1@example.com")).getId();
+        int student2 = userService.saveUser(createUser("student2@example.com")).getId();
+        int student3 = userService.saveUser(createUser("student3@example.com")).getId();
+
+        consultationService.registerUser(id, student1);
+        consultationService.registerUser(id, student2);
+        consultationService.registerUser(id, student3);
+        assertEquals(3, consultationService.getConsultationById(id).getRegisteredCount());
+
+        consultationService.unregisterUser(id, student1);
+        userService.deleteUser(student2);
+        Consultation consultation = consultationService.getConsultationById(id);
+        assertEquals(1, consultation.getRegisteredCount());
+        assertEquals(4, consultation.getAvailablePlaces());
+        assertEquals(0, consultationService.reconcileRegisteredCounts());
+    }
+
+    /**
+     * Tests that reconciliation fixes registered students counter, which drifted from actual registrations.
+     */
+    @Test
+    void testReconcileRegisteredCounts() {
+        Consultation consultation = createConsultation(LocalDateTime.now().plusDays(1));
+        consultation.setStudents(new HashSet<>(Arrays.asList(
+                userService.saveUser(createUser("student1@example.com")),
+                userService.saveUser(createUser("student2@example.com")))));
+        int id = consultationService.saveConsultation(consultation).getId();
+        assertEquals(0, consultationService.getConsultationById(id).getRegisteredCount());
+
+        assertEquals(1, consultationService.reconcileRegisteredCounts());
+        assertEquals(2, consultationService.getConsultationById(id).getRegisteredCount());
+        assertEquals(0, consultationService.reconcileRegisteredCounts());
+    }
+
+    /**
+     * Tests that unregistration promotes users from the waitlist in the order they joined it.
+     */
+    @Test
+    void testUnregisterPromotesWaitlistInOrder() {
+        Consultation consultation = createConsultation(LocalDateTime.now().plusDays(1));
+        consultation.setMaxStudentsNumber(1);
+        int id = consultationService.saveConsultation(consultation).getId();
+        int registered = userService.saveUser(createUser("student1@example.com")).getId();
+        int first = userService.saveUser(createUser("student2@example.com")).getId();
+        int second = userService.saveUser(createUser("student3@example.com")).getId();
+
+        assertEquals(RegistrationStatus.NOT_FULL, consultationService.joinWaitlist(id, first));
+        assertEquals(RegistrationStatus.REGISTERED, consultationService.registerUser(id, registered));
+        assertEquals(RegistrationStatus.FULL, consultationService.registerUser(id, first));
+        assertEquals(RegistrationStatus.ALREADY_REGISTERED, consultationService.joinWaitlist(id, registered));
+        assertEquals(RegistrationStatus.WAITLISTED, consultationService.joinWaitlist(id, first));
+        assertEquals(RegistrationStatus.ALREADY_WAITLISTED, consultationService.joinWaitlist(id, first));
+        assertEquals(RegistrationStatus.WAITLISTED, consultationService.joinWaitlist(id, second));
+        assertEquals(1, consultationService.getWaitlistPosition(id, first));
+        assertEquals(2, consultationService.getWaitlistPosition(id, second));
+
+        assertEquals(RegistrationStatus.UNREGISTERED, consultationService.unregisterUser(id, registered));
+        assertEquals(RegistrationStatus.ALREADY_REGISTERED, consultationService.registerUser(id, first));
+        assertNull(consultationService.getWaitlistPosition(id, first));
+        assertEquals(1, consultationService.getWaitlistPosition(id, second));
+        assertEquals(1, consultationService.getConsultationById(id).getRegisteredCount());
+
+        userService.deleteUser(first);
+        assertNull(consultationService.getWaitlistPosition(id, second));
+        assertEquals(RegistrationStatus.ALREADY_REGISTERED, consultationService.registerUser(id, second));
+        assertEquals(0, consultationService.reconcileRegisteredCounts());
+    }
+
+    /**
+     * Tests leaving the waitlist.
+     */
+    @Test
+    void testLeaveWaitlist() {
+        Consultation consultation = createConsultation(LocalDateTime.now().plusDays(1));
+        consultation.setMaxStudentsNumber(1);
+        int id = consultationService.saveConsultation(consultation).getId();
+        int registered = userService.saveUser(createUser("student1@example.com")).getId();
+        int waiting = userService.saveUser(createUser("student2@example.com")).getId();
+        consultationService.registerUser(id, registered);
+        consultationService.joinWaitlist(id, waiting);
+
+        assertEquals(RegistrationStatus.LEFT_WAITLIST, consultationService.leaveWaitlist(id, waiting));
+        assertEquals(RegistrationStatus.NOT_WAITLISTED, consultationService.leaveWaitlist(id, waiting));
+        consultationService.unregisterUser(id, registered);
+        assertEquals(0, consultationService.getConsultationById(id).getRegisteredCount());
+
+        consultationService.deleteConsultation(id);
+        assertNull(consultationService.getConsultationById(id));
+    }
+
+    /**
+     * Tests that detail page version changes on registration, waitlist changes and update,
+     * and depends on the viewer.
+     */
+    @Test
+    void testConsultationVersion() {
+        Consultation consultation = createConsultation(LocalDateTime.now().plusDays(1));
+        consultation.setMaxStudentsNumber(1);
+        int id = consultationService.saveConsultation(consultation).getId();
+        int registered = userService.saveUser(createUser("student1@example.com")).getId();
+        int waiting = userService.saveUser(createUser("student2@example.com")).getId();
+        assertNull(consultationService.getConsultationVersion(-1));
+
+        List<String> tags = new ArrayList<>();
+        tags.add(consultationService.getConsultationVersion(id).getETag(registered, false));
+        assertEquals(tags.get(0), consultationService.getConsultationVersion(id).getETag(registered, false));
+        assertFalse(tags.contains(consultationService.getConsultationVersion(id).getETag(waiting, false)));
+        assertFalse(tags.contains(consultationService.getConsultationVersion(id).getETag(registered, true)));
+
+        consultationService.registerUser(id, registered);
+        tags.add(consultationService.getConsultationVersion(id).getETag(registered, false));
+        consultationService.joinWaitlist(id, waiting);
+        tags.add(consultationService.getConsultationVersion(id).getETag(registered, false));
+        consultationService.leaveWaitlist(id, waiting);
+        tags.add(consultationService.getConsultationVersion(id).getETag(registered, false));
+        Consultation updated = consultationService.getConsultationById(id);
+        updated.setDescription("Updated description of the consultation");
+        consultationService.saveConsultation(updated);
+        tags.add(consultationService.getConsultationVersion(id).getETag(registered, false));
+        subject.setSubjectName("Physics");
+        subjectService.saveSubject(subject);
+        tags.add(consultationService.getConsultationVersion(id).getETag(registered, false));
+
+        assertEquals(tags.size(), new HashSet<>(tags).size());
+    }
+
+    /**
+     * Tests that update of consultation, which was changed after it was loaded, is rejected.
+     */
+    @Test
+    void testStaleUpdateIsRejected() {
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        int student = userService.saveUser(createUser("student@example.com")).getId();
+        Consultation stale = consultationService.getConsultationById(id);
+        consultationService.registerUser(id, student);
+
+        stale.setDescription("Updated description of the consultation");
+        assertThrows(ConcurrencyFailureException.class, () -> consultationService.saveConsultation(stale));
+        Consultation consultation = consultationService.getConsultationById(id);
+        assertEquals("Consultation description", consultation.getDescription());
+        assertEquals(1, consultation.getRegisteredCount());
+    }
+
+    /**
+     * Tests that maximum number of students can't be updated below the number of registered students.
+     */
+    @Test
+    void testUpdateRejectsCapacityBelowRegistrations() {
+        int id = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1))).getId();
+        consultationService.registerUser(id, userService.saveUser(createUser("student1@example.com")).getId());
+        consultationService.registerUser(id, userService.saveUser(createUser("student2@example.com")).getId());
+
+        Consultation updated = consultationService.getConsultationById(id);
+        updated.setMaxStudentsNumber(1);
+        ConsultationCapacityException e = assertThrows(ConsultationCapacityException.class,
+                () -> consultationService.updateConsultation(updated));
+        assertEquals(2, e.getRegisteredCount());
+        assertEquals(5, consultationService.getConsultationById(id).getMaxStudentsNumber());
+
+        updated.setMaxStudentsNumber(2);
+        updated.setDescription("Updated description of the consultation");
+        consultationService.updateConsultation(updated);
+        Consultation consultation = consultationService.getConsultationById(id);
+        assertEquals(2, consultation.getMaxStudentsNumber());
+        assertEquals("Updated description of the consultation", consultation.getDescription());
+        assertEquals(2, consultation.getRegisteredCount());
+        assertEquals(0, consultationService.reconcileRegisteredCounts());
+    }
+
+    /**
+     * Tests that increasing maximum number of students registers users from the waitlist in the order they joined it.
+     */
+    @Test
+    void testUpdatePromotesWaitlist() {
+        Consultation created = createConsultation(LocalDateTime.now().plusDays(1));
+        created.setMaxStudentsNumber(1);
+        int id = consultationService.saveConsultation(created).getId();
+        int registered = userService.saveUser(createUser("student1@example.com")).getId();
+        int first = userService.saveUser(createUser("student2@example.com")).getId();
+        int second = userService.saveUser(createUser("student3@example.com")).getId();
+        int third = userService.saveUser(createUser("student4@example.com")).getId();
+        consultationService.registerUser(id, registered);
+        consultationService.joinWaitlist(id, first);
+        consultationService.joinWaitlist(id, second);
+        consultationService.joinWaitlist(id, third);
+
+        Consultation updated = consultationService.getConsultationById(id);
+        updated.setMaxStudentsNumber(3);
+        consultationService.updateConsultation(updated);
+
+        assertEquals(RegistrationStatus.ALREADY_REGISTERED, consultationService.registerUser(id, first));
+        assertEquals(RegistrationStatus.ALREADY_REGISTERED, consultationService.registerUser(id, second));
+        assertEquals(1, consultationService.getWaitlistPosition(id, third));
+        Consultation consultation = consultationService.getConsultationById(id);
+        assertEquals(3, consultation.getRegisteredCount());
+        assertEquals(0, consultation.getAvailablePlaces());
+        assertEquals(0, consultationService.reconcileRegisteredCounts());
+    }
+
+    /**
+     * Tests that overlapping consultations of the same tutor or at the same address are detected.
+     */
+    @Test
+    void testScheduleConflicts() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        Consultation existing = createConsultation(start);
+        existing.setDuration(90);
+        existing = consultationService.saveConsultation(existing);
+
+        Consultation overlapping = createConsultation(start.plusMinutes(60));
+        assertTrue(consultationService.hasTutorConflict(overlapping));
+        assertTrue(consultationService.hasAddressConflict(overlapping));
+
+        Consultation earlier = createConsultation(start.minusMinutes(30));
+        earlier.setDuration(30);
+        assertFalse(consultationService.hasTutorConflict(earlier));
+
+        Consultation later = createConsultation(start.plusMinutes(90));
+        assertFalse(consultationService.hasTutorConflict(later));
+        assertFalse(consultationService.hasAddressConflict(later));
+
+        // consultation doesn't conflict with itself when it is updated
+        assertFalse(consultationService.hasTutorConflict(existing));
+
+        Consultation otherTutor = createConsultation(start);
+        otherTutor.setTutor(userService.saveUser(createUser("tutor2@example.com")));
+        assertFalse(consultationService.hasTutorConflict(otherTutor));
+        assertTrue(consultationService.hasAddressConflict(otherTutor));
+    }
+
+    /**
+     * Tests that consultation is saved or updated only if its tutor and address are free, and conflicts are returned otherwise.
+     */
+    @Test
+    void testScheduleConsultationReturnsConflicts() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        assertTrue(consultationService.scheduleConsultation(createConsultation(start)).isEmpty());
+        assertEquals(EnumSet.of(ScheduleConflict.TUTOR, ScheduleConflict.ADDRESS),
+                consultationService.scheduleConsultation(createConsultation(start.plusMinutes(30))));
+
+        Consultation otherTutor = createConsultation(start);
+        otherTutor.setTutor(userService.saveUser(createUser("tutor2@example.com")));
+        assertEquals(EnumSet.of(ScheduleConflict.ADDRESS), consultationService.scheduleConsultation(otherTutor));
+        Consultation otherAddress = createConsultation(start);
+        otherAddress.setAddress(addressService.saveAddress(createAddress(tutor)));
+        assertEquals(EnumSet.of(ScheduleConflict.TUTOR), consultationService.scheduleConsultation(otherAddress));
+        assertEquals(1, consultationService.getFutureConsultationsPage(null, null, null, null, 10).getConsultations().size());
+
+        Consultation later = createConsultation(start.plusHours(2));
+        int id = consultationService.saveConsultation(later).getId();
+        Consultation moved = consultationService.getConsultationById(id);
+        moved.setDateTime(start.plusMinutes(30));
+        assertEquals(EnumSet.of(ScheduleConflict.TUTOR, ScheduleConflict.ADDRESS), consultationService.updateConsultation(moved));
+        assertEquals(start.plusHours(2), consultationService.getConsultationById(id).getDateTime());
+
+        moved.setDateTime(start.plusHours(3));
+        assertTrue(consultationService.updateConsultation(moved).isEmpty());
+        assertEquals(start.plusHours(3), consultationService.getConsultationById(id).getDateTime());
+    }
+
+    /**
+     * Tests that concurrent bookings of the same time slot save only one consultation.
+     */
+    @Test
+    void testConcurrentSchedulingBooksSlotOnce() throws Exception {
+        LocalDateTime slot = LocalDateTime.now().plusDays(1).withNano(0);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Consultation consultation = createConsultation(slot);
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return consultationService.scheduleConsultation(consultation).isEmpty();
+                } catch (ConcurrencyFailureException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int saved = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                saved++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, saved);
+        assertEquals(1, consultationService.getFutureConsultationsPage(null, null, null, null, 10).getConsultations().size());
+    }
+
+    /**
+     * Tests that weekly series is checked for conflicts in bulk and saved.
+     */
+    @Test
+    void testConsultationSeries() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        consultationService.saveConsultation(createConsultation(start.plusWeeks(2).plusMinutes(30)));
+
+        WeeklyRecurrence recurrence = new WeeklyRecurrence();
+        recurrence.setOccurrences(10);
+        recurrence.setRepeatUntil(start.plusWeeks(3).toLocalDate());
+        List<LocalDateTime> dates = recurrence.expand(start);
+        assertEquals(Arrays.asList(start, start.plusWeeks(1), start.plusWeeks(2), start.plusWeeks(3)), dates);
+
+        Consultation template = createConsultation(start);
+        assertEquals(Collections.singletonList(start.plusWeeks(2)), consultationService.findScheduleConflicts(template, dates));
+
+        // series with a conflicting date is not saved at all
+        assertEquals(Collections.singletonList(start.plusWeeks(2)), consultationService.saveConsultationSeries(template, dates));
+        assertEquals(1, consultationService.getFutureConsultationsPage(null, null, null, null, 10).getConsultations().size());
+
+        assertTrue(consultationService.saveConsultationSeries(template,
+                Arrays.asList(start, start.plusWeeks(1), start.plusWeeks(3))).isEmpty());
+        assertEquals(4, consultationService.getFutureConsultationsPage(null, null, null, null, 10).getConsultations().size());
+        assertEquals(dates, consultationService.findScheduleConflicts(template, dates));
+    }
+
+    /**
+     * Tests that a series and a single consultation booked concurrently at the same time are not both saved.
+     */
+    @Test
+    void testConcurrentSeriesAndSingleBookingDoNotOverlap() throws Exception {
+        LocalDateTime first = LocalDateTime.now().plusDays(1).withNano(0);
+        List<LocalDateTime> dates = Arrays.asList(first, first.plusWeeks(1), first.plusWeeks(2));
+        Consultation template = createConsultation(first);
+        Consultation single = createConsultation(first.plusWeeks(1));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<Boolean> seriesSaved = executor.submit(() -> {
+            start.await();
+            try {
+                return consultationService.saveConsultationSeries(template, dates).isEmpty();
+            } catch (ConcurrencyFailureException e) {
+                return false;
+            }
+        });
+        Future<Boolean> singleSaved = executor.submit(() -> {
+            start.await();
+            try {
+                return consultationService.scheduleConsultation(single).isEmpty();
+            } catch (ConcurrencyFailureException e) {
+                return false;
+            }
+        });
+        start.countDown();
+
+        boolean series = seriesSaved.get(30, TimeUnit.SECONDS);
+        boolean one = singleSaved.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertFalse(series && one);
+        int expected = (series ? dates.size() : 0) + (one ? 1 : 0);
+        assertEquals(expected, consultationService.getFutureConsultationsPage(null, null, null, null, 10).getConsultations().size());
+    }
+
+    /**
+     * Tests that combined filters are applied by one query and paged like unfiltered listing.
+     */
+    @Test
+    void testGetFilteredFutureConsultationsPage() {
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withHour(12).withMinute(0).withSecond(0).withNano(0);
+        Address tallinn = createAddress(tutor);
+        tallinn.setCity("Tallinn");
+        tallinn = addressService.saveAddress(tallinn);
+        List<Integer> riga = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            riga.add(consultationService.saveConsultation(createConsultation(base.plusHours(i))).getId());
+        }
+        Consultation inTallinn = createConsultation(base.plusHours(1));
+        inTallinn.setAddress(tallinn);
+        consultationService.saveConsultation(inTallinn);
+        Consultation full = createConsultation(base.plusHours(4));
+        full.setMaxStudentsNumber(1);
+        int fullId = consultationService.saveConsultation(full).getId();
+        consultationService.registerUser(fullId, userService.saveUser(createUser("student@example.com")).getId());
+        int later = consultationService.saveConsultation(createConsultation(base.plusDays(5))).getId();
+
+        ConsultationFilter filter = new ConsultationFilter();
+        filter.setCity("Riga");
+        filter.setFreeSeats(true);
+        filter.setTo(base.toLocalDate().plusDays(1));
+        ConsultationPage first = consultationService.getFutureConsultationsPage(filter, null, null, 2);
+        ConsultationPage second = consultationService.getFutureConsultationsPage(filter, first.getNextCursor(), null, 2);
+        ConsultationPage back = consultationService.getFutureConsultationsPage(filter, null, second.getPreviousCursor(), 2);
+
+        assertEquals(riga.subList(0, 2), ids(first));
+        assertEquals(riga.subList(2, 3), ids(second));
+        assertNull(second.getNextCursor());
+        assertEquals(riga.subList(0, 2), ids(back));
+
+        filter.setTo(null);
+        filter.setFrom(base.toLocalDate().plusDays(2));
+        assertEquals(Collections.singletonList(later), ids(consultationService.getFutureConsultationsPage(filter, null, null, 10)));
+    }
+
+    /**
+     * Tests that facet counts are computed for consultations matching the filter.
+     */
+    @Test
+    void testGetFutureConsultationFacets() {
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        Address tallinn = createAddress(tutor);
+        tallinn.setCity("Tallinn");
+        tallinn = addressService.saveAddress(tallinn);
+        Subject physics = createSubject();
+        physics.setSubjectName("Physics");
+        physics = subjectService.saveSubject(physics);
+        consultationService.saveConsultation(createConsultation(base));
+        consultationService.saveConsultation(createConsultation(base.plusHours(1)));
+        Consultation other = createConsultation(base.plusHours(2));
+        other.setAddress(tallinn);
+        other.setSubject(physics);
+        other.setMaxStudentsNumber(1);
+        int otherId = consultationService.saveConsultation(other).getId();
+        consultationService.registerUser(otherId, userService.saveUser(createUser("student@example.com")).getId());
+        consultationService.saveConsultation(createConsultation(base.minusDays(3)));
+
+        ConsultationFacets facets = consultationService.getFutureConsultationFacets(new ConsultationFilter());
+        assertEquals(3, facets.getTotal());
+        assertEquals(2, facets.getWithFreeSeats());
+        assertEquals(Arrays.asList("Riga", "Tallinn"),
+                facets.getCities().stream().map(FacetCount::getLabel).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(2L, 1L),
+                facets.getSubjects().stream().map(FacetCount::getCount).collect(Collectors.toList()));
+        assertEquals(3, facets.getTutors().get(0).getCount());
+
+        ConsultationFilter filter = new ConsultationFilter();
+        filter.setSubjectId(physics.getId());
+        facets = consultationService.getFutureConsultationFacets(filter);
+        assertEquals(1, facets.getTotal());
+        assertEquals(0, facets.getWithFreeSeats());
+        assertEquals("Tallinn", facets.getCities().get(0).getValue());
+    }
+
+    /**
+     * Tests that city filter and facets match differently spelled names of one city by normalized key.
+     */
+    @Test
+    void testCityKeys() {
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        Address spelled = createAddress(tutor);
+        spelled.setCity(" RIGA ");
+        spelled = addressService.saveAddress(spelled);
+        assertEquals("riga", spelled.getCityKey());
+        assertEquals("latvia", spelled.getCountryKey());
+        int first = consultationService.saveConsultation(createConsultation(base)).getId();
+        Consultation other = createConsultation(base.plusHours(1));
+        other.setAddress(spelled);
+        int second = consultationService.saveConsultation(other).getId();
+
+        ConsultationFilter filter = new ConsultationFilter();
+        filter.setCity("Rīga");
+        assertEquals(Arrays.asList(first, second), ids(consultationService.getFutureConsultationsPage(filter, null, null, 10)));
+
+        ConsultationFacets facets = consultationService.getFutureConsultationFacets(new ConsultationFilter());
+        assertEquals(1, facets.getCities().size());
+        assertEquals(2, facets.getCities().get(0).getCount());
+    }
+
+    /**
+     * Tests that consultations near a location are found through the grid index and checked by exact distance.
+     */
+    @Test
+    void testGetFutureConsultationsNear() {
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        address.setLatitude(56.9496);
+        address.setLongitude(24.1052);
+        address = addressService.saveAddress(address);
+        Address jurmala = createAddress(tutor);
+        jurmala.setCity("Jurmala");
+        jurmala.setLatitude(56.968);
+        jurmala.setLongitude(23.7704);
+        jurmala = addressService.saveAddress(jurmala);
+        Address tallinn = createAddress(tutor);
+        tallinn.setCity("Tallinn");
+        tallinn.setLatitude(59.437);
+        tallinn.setLongitude(24.7536);
+        tallinn = addressService.saveAddress(tallinn);
+        Address unknown = addressService.saveAddress(createAddress(tutor));
+
+        List<Integer> riga = new ArrayList<>();
+        riga.add(consultationService.saveConsultation(createConsultation(base)).getId());
+        riga.add(consultationService.saveConsultation(createConsultation(base.plusHours(2))).getId());
+        consultationService.saveConsultation(createConsultation(base.minusDays(2)));
+        Consultation inJurmala = createConsultation(base.plusHours(1));
+        inJurmala.setAddress(jurmala);
+        int jurmalaId = consultationService.saveConsultation(inJurmala).getId();
+        for (Address far : Arrays.asList(tallinn, unknown)) {
+            Consultation consultation = createConsultation(base.plusHours(3));
+            consultation.setAddress(far);
+            consultationService.saveConsultation(consultation);
+        }
+
+        assertEquals(riga, ids(consultationService.getFutureConsultationsNear(56.95, 24.1, 10, null, null, 10)));
+
+        ConsultationPage first = consultationService.getFutureConsultationsNear(56.95, 24.1, 25, null, null, 2);
+        ConsultationPage second = consultationService.getFutureConsultationsNear(56.95, 24.1, 25, first.getNextCursor(), null, 2);
+        assertEquals(Arrays.asList(riga.get(0), jurmalaId), ids(first));
+        assertEquals(riga.subList(1, 2), ids(second));
+        assertFalse(second.hasNext());
+
+        assertTrue(consultationService.getFutureConsultationsNear(0, 0, 100, null, null, 10).getConsultations().isEmpty());
+    }
+
+    /**
+     * Returns IDs of consultations on provided page.
+     * @param page consultations page
+     * @return IDs list
+     */
+    private List<Integer> ids(ConsultationPage page) {
+        return page.getConsultations().stream().map(ConsultationSummary::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Helper method for consultation creation.
+     * @param dateTime consultation's date and time
+     * @return new consultation
+     */
+    public Consultation createConsultation(LocalDateTime dateTime) {
+        Consultation consultation = new Consultation();
+        consultation.setDescription("Consultation description");
+        consultation.setMaxStudentsNumber(5);
+        consultation.setDateTime(dateTime);
+        consultation.setSubject(subject);
+        consultation.setTutor(tutor);
+        consultation.setAddress(address);
+        return consultation;
+    }
+
+    /**
+     * Helper method for user creation.
+     * @param email user's email
+     * @return new user
+     */
+    public User createUser(String email) {
+        User user = new User();
+        user.setName("Mark");
+        user.setSurname("Smith");
+        user.setPassword("password");
+        user.setEmail(email);
+        return user;
+    }
+
+    /**
+     * Helper method for subject creation.
+     * @return new subject
+     */
+    public Subject createSubject() {
+        Subject subject = new Subject();
+        subject.setSubjectName("Math");
+        return subject;
+    }
+
+    /**
+     * Helper method for address creation.
+     * @param user address owner
+     * @return new address
+     */
+    public Address createAddress(User user) {
+        Address address = new Address();
+        address.setCountry("Latvia");
+        address.setCity("Riga");
+        address.setStreet("Slokas");
+        address.setStreetNumber("1a");
+        address.setUser(user);
+        return address;
+    }
+}
@@ -0,0 +1,90 @@
+package com.tutoring.portal.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"password.hashing.threads=1", "password.hashing.queue-capacity=1"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class PasswordHashingServiceTests {
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Tests that passwords are encoded and verified and hashing time is recorded.
+     */
+    @Test
+    void testEncodeAndMatches() {
+        String encoded = passwordHashingService.encode("password");
+
+        assertNotEquals("password", encoded);
+        assertTrue(passwordHashingService.matches("password", encoded));
+        assertFalse(passwordHashingService.matches("other", encoded));
+        assertEquals(1, meterRegistry.get("password.hashing.time").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hashing.time").tag("operation", "matches").timer().count());
+    }
+
+    /**
+     * Tests that only passwords hashed with a lower strength than the configured one are upgraded.
+     */
+    @Test
+    void testUpgradeEncoding() {
+        assertTrue(passwordHashingService.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(passwordHashingService.upgradeEncoding(passwordHashingService.encode("password")));
+        assertFalse(passwordHashingService.upgradeEncoding(new BCryptPasswordEncoder(12).encode("password")));
+    }
+
+    /**
+     * Tests that hashing is rejected at once when the only thread is busy and the queue is full.
+     */
+    @Test
+    void testRejectWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread running = new Thread(() -> passwordHashingService.execute(() -> release.await(10, TimeUnit.SECONDS)));
+        Thread waiting = new Thread(() -> passwordHashingService.execute(() -> true));
+        running.start();
+        waitForGauge("password.hashing.active", 1);
+        waiting.start();
+        waitForGauge("password.hashing.queue", 1);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> passwordHashingService.encode("password"));
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+
+        release.countDown();
+        running.join();
+        waiting.join();
+        assertTrue(passwordHashingService.matches("password", passwordHashingService.encode("password")));
+    }
+
+    /**
+     * Waits until gauge with provided name reaches provided value.
+     * @param name gauge's name
+     * @param value expected value
+     */
+    private void waitForGauge(String name, double value) throws InterruptedException {
+        for (int i = 0; i < 100 && meterRegistry.get(name).gauge().value() != value; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(value, meterRegistry.get(name).gauge().value());
+    }
+}
@@ -0,0 +1,108 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class PortalUserDetailsServiceTests {
+
+    @Autowired
+    private PortalUserDetailsService portalUserDetailsService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UserService userService;
+
+    private DaoAuthenticationProvider provider;
+
+    @BeforeEach
+    public void setup() {
+        // configured the same way as by SecurityConfiguration
+        provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(portalUserDetailsService);
+        provider.setUserDetailsPasswordService(portalUserDetailsService);
+        provider.setPasswordEncoder(passwordHashingService);
+    }
+
+    /**
+     * Tests that user is authenticated with roles and blocked or unknown users and wrong passwords are rejected.
+     */
+    @Test
+    void testAuthenticate() {
+        User user = userService.saveUser(createUser());
+
+        Authentication authentication = provider.authenticate(
+                new UsernamePasswordAuthenticationToken("e@example.com", "password"));
+        assertEquals("e@example.com", authentication.getName());
+        assertEquals("STUDENT", authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining()));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(
+                new UsernamePasswordAuthenticationToken("e@example.com", "wrong")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(
+                new UsernamePasswordAuthenticationToken("unknown@example.com", "password")));
+
+        userService.blockUser(user);
+        assertThrows(DisabledException.class, () -> provider.authenticate(
+                new UsernamePasswordAuthenticationToken("e@example.com", "password")));
+    }
+
+    /**
+     * Tests that password hashed with a lower strength is encoded again on successful login.
+     */
+    @Test
+    void testUpgradePasswordOnLogin() {
+        userService.saveUser(createUser());
+        String weak = new BCryptPasswordEncoder(4).encode("password");
+        userService.replaceEncodedPassword("e@example.com", weak);
+        assertEquals(weak, userService.getUserCredentials("e@example.com").getPassword());
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("e@example.com", "password"));
+
+        String upgraded = userService.findUserByEmail("e@example.com").getPassword();
+        assertNotEquals(weak, upgraded);
+        assertFalse(passwordHashingService.upgradeEncoding(upgraded));
+        assertTrue(passwordHashingService.matches("password", upgraded));
+        assertEquals(upgraded, userService.getUserCredentials("e@example.com").getPassword());
+    }
+
+    /**
+     * Helper method for user creation.
+     *
+     * @return new user
+     */
+    public User createUser() {
+        User user = new User();
+        user.setId(1);
+        user.setName("Mark");
+        user.setSurname("Smith");
+        user.setPassword("password");
+        user.setEmail("e@example.com");
+        return user;
+    }
+}
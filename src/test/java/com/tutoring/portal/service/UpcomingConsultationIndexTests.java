@@ -0,0 +1,226 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.ConsultationCursor;
+import com.tutoring.portal.dto.ConsultationSummary;
+import com.tutoring.portal.model.Address;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.Subject;
+import com.tutoring.portal.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class UpcomingConsultationIndexTests {
+
+    @Autowired
+    private UpcomingConsultationIndex upcomingConsultationIndex;
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private AddressService addressService;
+
+    private User tutor;
+
+    private Subject subject;
+
+    private Address address;
+
+    @BeforeEach
+    void setup() {
+        tutor = userService.saveUser(createUser("tutor@example.com"));
+        subject = subjectService.saveSubject(createSubject("Math"));
+        address = addressService.saveAddress(createAddress(tutor));
+    }
+
+    /**
+     * Tests that index is loaded at startup.
+     */
+    @Test
+    void testIsReady() {
+        assertTrue(upcomingConsultationIndex.isReady());
+    }
+
+    /**
+     * Tests that index follows saved, updated and deleted consultations.
+     */
+    @Test
+    void testIndexFollowsChanges() {
+        LocalDateTime now = LocalDateTime.now();
+        Consultation first = consultationService.saveConsultation(createConsultation(now.plusDays(2)));
+        Consultation second = consultationService.saveConsultation(createConsultation(now.plusDays(1)));
+        consultationService.saveConsultation(createConsultation(now.minusDays(1)));
+        assertEquals(Arrays.asList(second.getId(), first.getId()), upcomingIds(null));
+
+        first.setDateTime(now.plusHours(1));
+        consultationService.saveConsultation(first);
+        assertEquals(Arrays.asList(first.getId(), second.getId()), upcomingIds(null));
+
+        consultationService.deleteConsultation(first.getId());
+        assertEquals(Collections.singletonList(second.getId()), upcomingIds(null));
+        assertEquals(0, upcomingConsultationIndex.checkConsistency());
+    }
+
+    /**
+     * Tests that consultations of deleted tutor are removed from index at once.
+     */
+    @Test
+    void testIndexFollowsDeletedTutor() {
+        Consultation consultation = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1)));
+        assertEquals(Collections.singletonList(consultation.getId()), upcomingIds(null));
+
+        userService.deleteUser(tutor.getId());
+        assertTrue(upcomingIds(null).isEmpty());
+        assertEquals(0, upcomingConsultationIndex.checkConsistency());
+    }
+
+    /**
+     * Tests that consultations deleted together with their subject or address are removed from index at once.
+     */
+    @Test
+    void testIndexFollowsDeletedSubjectAndAddress() {
+        Address other = addressService.saveAddress(createAddress(tutor));
+        Consultation first = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1)));
+        Consultation second = createConsultation(LocalDateTime.now().plusDays(2));
+        second.setAddress(other);
+        second = consultationService.saveConsultation(second);
+        Consultation third = createConsultation(LocalDateTime.now().plusDays(3));
+        third.setSubject(subjectService.saveSubject(createSubject("Physics")));
+        third.setAddress(other);
+        third = consultationService.saveConsultation(third);
+        assertEquals(Arrays.asList(first.getId(), second.getId(), third.getId()), upcomingIds(null));
+
+        subjectService.deleteSubject(subject.getId());
+        assertEquals(Collections.singletonList(third.getId()), upcomingIds(null));
+        addressService.deleteAddress(other.getId());
+        assertTrue(upcomingIds(null).isEmpty());
+        assertEquals(0, upcomingConsultationIndex.checkConsistency());
+    }
+
+    /**
+     * Tests filtering by subject and paging backward.
+     */
+    @Test
+    void testFindBySubject() {
+        LocalDateTime now = LocalDateTime.now();
+        Subject other = subjectService.saveSubject(createSubject("Physics"));
+        Consultation math = consultationService.saveConsultation(createConsultation(now.plusDays(1)));
+        Consultation physics = createConsultation(now.plusDays(2));
+        physics.setSubject(other);
+        physics = consultationService.saveConsultation(physics);
+
+        assertEquals(Collections.singletonList(physics.getId()), upcomingIds(other.getId()));
+        List<ConsultationSummary> before = upcomingConsultationIndex.findBefore(now,
+                new ConsultationCursor(now.plusDays(3), 0), null, null, 10);
+        assertEquals(Arrays.asList(physics.getId(), math.getId()),
+                before.stream().map(ConsultationSummary::getId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Tests that consistency check repairs entries changed outside of consultation service.
+     */
+    @Test
+    void testCheckConsistencyRepairsDrift() {
+        Consultation consultation = consultationService.saveConsultation(createConsultation(LocalDateTime.now().plusDays(1)));
+        subject.setSubjectName("Algebra");
+        subjectService.saveSubject(subject);
+
+        assertEquals(1, upcomingConsultationIndex.checkConsistency());
+        ConsultationSummary summary = upcomingConsultationIndex.findAfter(LocalDateTime.now(),
+                new ConsultationCursor(LocalDateTime.now(), 0), null, null, 10).get(0);
+        assertEquals(consultation.getId(), summary.getId());
+        assertEquals("Algebra", summary.getSubjectName());
+        assertEquals(0, upcomingConsultationIndex.checkConsistency());
+    }
+
+    /**
+     * Returns IDs of all upcoming consultations in the index.
+     * @param subjectId subject's ID or null
+     * @return IDs list
+     */
+    private List<Integer> upcomingIds(Integer subjectId) {
+        LocalDateTime now = LocalDateTime.now();
+        return upcomingConsultationIndex.findAfter(now, new ConsultationCursor(now, 0), subjectId, null, 100).stream()
+                .map(ConsultationSummary::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Helper method for consultation creation.
+     * @param dateTime consultation's date and time
+     * @return new consultation
+     */
+    public Consultation createConsultation(LocalDateTime dateTime) {
+        Consultation consultation = new Consultation();
+        consultation.setDescription("Consultation description");
+        consultation.setMaxStudentsNumber(5);
+        consultation.setDateTime(dateTime);
+        consultation.setSubject(subject);
+        consultation.setTutor(tutor);
+        consultation.setAddress(address);
+        return consultation;
+    }
+
+    /**
+     * Helper method for user creation.
+     * @param email user's email
+     * @return new user
+     */
+    public User createUser(String email) {
+        User user = new User();
+        user.setName("Mark");
+        user.setSurname("Smith");
+        user.setPassword("password");
+        user.setEmail(email);
+        return user;
+    }
+
+    /**
+     * Helper method for subject creation.
+     * @param name subject's name
+     * @return new subject
+     */
+    public Subject createSubject(String name) {
+        Subject subject = new Subject();
+        subject.setSubjectName(name);
+        return subject;
+    }
+
+    /**
+     * Helper method for address creation.
+     * @param user address owner
+     * @return new address
+     */
+    public Address createAddress(User user) {
+        Address address = new Address();
+        address.setCountry("Latvia");
+        address.setCity("Riga");
+        address.setStreet("Slokas");
+        address.setStreetNumber("1a");
+        address.setUser(user);
+        return address;
+    }
+}
@@ -1,24 +1,36 @@
 package com.tutoring.portal.service;
 
+import com.tutoring.portal.dto.UserCredentials;
+import com.tutoring.portal.dto.UserSummary;
 import com.tutoring.portal.model.Role;
+import com.tutoring.portal.model.Subject;
 import com.tutoring.portal.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import javax.persistence.EntityManagerFactory;
+
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.from;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
@@ -33,6 +45,12 @@ class UserServiceTests {
     @Autowired
     private BCryptPasswordEncoder bCryptPasswordEncoder;
 
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     /**
      * Tests if user is saved and password is encoded.
      */
@@ -215,6 +233,107 @@ class UserServiceTests {
         assertTrue(users.stream().anyMatch(user -> "Mark".equals(user.getName())));
     }
 
+    /**
+     * Tests that users are paged with their roles and cached pages are evicted when a user changes.
+     */
+    @Test
+    void testGetUsersPage() {
+        User first = createUser();
+        first.setId(0);
+        first.setEmail("first@example.com");
+        first = userService.saveUser(first);
+        User second = createUser();
+        second.setId(0);
+        second.setEmail("second@example.com");
+        second = userService.saveUser(second);
+        User third = createUser();
+        third.setId(0);
+        third.setEmail("third@example.com");
+        userService.saveUser(third);
+
+        Page<UserSummary> page = userService.getUsersPage(0, 2);
+        assertEquals(3, page.getTotalElements());
+        assertEquals(2, page.getContent().size());
+        assertEquals("first@example.com", page.getContent().get(0).getEmail());
+        assertFalse(page.getContent().get(0).isAdmin());
+        assertSame(page, userService.getUsersPage(0, 2));
+
+        userService.addTutorRole(second);
+        userService.blockUser(first);
+        page = userService.getUsersPage(0, 2);
+        assertTrue(page.getContent().get(1).isTutor());
+        assertEquals(0, page.getContent().get(0).getActive());
+        assertEquals(1, userService.getUsersPage(1, 2).getContent().size());
+    }
+
+    /**
+     * Tests that credentials are read with roles, cached and evicted when user's roles or state change.
+     */
+    @Test
+    void testGetUserCredentials() {
+        User user = userService.saveUser(createUser());
+
+        UserCredentials credentials = userService.getUserCredentials("e@example.com");
+        assertEquals(user.getId(), credentials.getId());
+        assertEquals("Mark Smith", credentials.getDisplayName());
+        assertTrue(credentials.isActive());
+        assertEquals(Collections.singleton("STUDENT"), credentials.getRoles());
+        assertTrue(bCryptPasswordEncoder.matches("password", credentials.getPassword()));
+        assertSame(credentials, userService.getUserCredentials("e@example.com"));
+        assertNull(userService.getUserCredentials("unknown@example.com"));
+
+        user = userService.addTutorRole(user);
+        credentials = userService.getUserCredentials("e@example.com");
+        assertTrue(credentials.getRoles().contains("TUTOR"));
+
+        userService.blockUser(user);
+        assertFalse(userService.getUserCredentials("e@example.com").isActive());
+    }
+
+    /**
+     * Tests that tutors are paged in order with their subjects, filtered by subject and read by a constant
+     * number of queries.
+     */
+    @Test
+    void testGetTutorsPage() {
+        Subject math = new Subject();
+        math.setSubjectName("Math");
+        math = subjectService.saveSubject(math);
+        Subject physics = new Subject();
+        physics.setSubjectName("Physics");
+        physics = subjectService.saveSubject(physics);
+        String[] surnames = {"Ozols", "Berzins", "Kalnins"};
+        for (int i = 0; i < surnames.length; i++) {
+            User user = createUser();
+            user.setId(0);
+            user.setEmail("tutor" + i + "@example.com");
+            user.setSurname(surnames[i]);
+            user = userService.addTutorRole(userService.saveUser(user));
+            user.setSubjects(new HashSet<>(i == 1 ? Arrays.asList(math, physics) : Collections.singletonList(math)));
+            userService.updateUser(user);
+        }
+        User student = createUser();
+        student.setId(0);
+        student.setEmail("student@example.com");
+        userService.saveUser(student);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        Page<User> page = userService.getTutorsPage(null, 0, 2);
+        assertEquals(3, page.getTotalElements());
+        assertEquals(Arrays.asList("Berzins", "Kalnins"),
+                page.getContent().stream().map(User::getSurname).collect(Collectors.toList()));
+        assertEquals(2, page.getContent().get(0).getSubjects().size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+
+        assertEquals("Ozols", userService.getTutorsPage(null, 1, 2).getContent().get(0).getSurname());
+        page = userService.getTutorsPage(physics.getId(), 0, 2);
+        assertEquals(1, page.getTotalElements());
+        assertEquals("Berzins", page.getContent().get(0).getSurname());
+        assertTrue(userService.getTutorsPage(physics.getId(), 1, 2).getContent().isEmpty());
+    }
+
     /**
      * Helper method for user creation.
      *
@@ -0,0 +1,223 @@
+package com.tutoring.portal.service;
+
+import com.tutoring.portal.dto.UtilizationSummary;
+import com.tutoring.portal.event.ConsultationRegistered;
+import com.tutoring.portal.model.Address;
+import com.tutoring.portal.model.Consultation;
+import com.tutoring.portal.model.Subject;
+import com.tutoring.portal.model.User;
+import com.tutoring.portal.repository.ConsultationUtilizationRepository;
+import com.tutoring.portal.repository.OutboxEventRepository;
+import com.tutoring.portal.repository.UtilizationStatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+class UtilizationStatisticsServiceTests {
+
+    @Autowired
+    private UtilizationStatisticsService utilizationStatisticsService;
+
+    @Autowired
+    private ConsultationService consultationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ConsultationUtilizationRepository consultationUtilizationRepository;
+
+    @Autowired
+    private UtilizationStatRepository utilizationStatRepository;
+
+    private User tutor;
+
+    private Subject subject;
+
+    private Address address;
+
+    @BeforeEach
+    void setup() {
+        tutor = userService.saveUser(createUser("tutor@example.com"));
+        subject = subjectService.saveSubject(createSubject());
+        address = addressService.saveAddress(createAddress(tutor));
+    }
+
+    /**
+     * Tests that statistics follow consultation and registration events.
+     */
+    @Test
+    void testStatisticsFollowEvents() throws Exception {
+        LocalDateTime dateTime = LocalDateTime.now().plusDays(1);
+        Consultation small = createConsultation(dateTime);
+        small.setMaxStudentsNumber(1);
+        int smallId = consultationService.saveConsultation(small).getId();
+        int largeId = consultationService.saveConsultation(createConsultation(dateTime.plusHours(2))).getId();
+        int cancelledId = consultationService.saveConsultation(createConsultation(dateTime.plusHours(4))).getId();
+        int student = userService.saveUser(createUser("student@example.com")).getId();
+        consultationService.registerUser(smallId, student);
+        consultationService.registerUser(largeId, student);
+        Consultation updated = consultationService.getConsultationById(largeId);
+        updated.setMaxStudentsNumber(4);
+        consultationService.saveConsultation(updated);
+        consultationService.deleteConsultation(cancelledId);
+        awaitEvents();
+
+        UtilizationSummary summary = subjectSummary(dateTime.toLocalDate());
+        assertEquals(subject.getId(), summary.getId());
+        assertEquals(2, summary.getSlots());
+        assertEquals(5, summary.getCapacity());
+        assertEquals(2, summary.getRegistrations());
+        assertEquals(1, summary.getFullSlots());
+        assertEquals(1, summary.getCancelled());
+        assertEquals(40, summary.getFillRate());
+        assertEquals("Mark Smith", utilizationStatisticsService.getTutorStatistics(dateTime.toLocalDate(),
+                dateTime.toLocalDate()).get(0).getName());
+
+        // moving consultation to another day moves its contribution
+        updated = consultationService.getConsultationById(largeId);
+        updated.setDateTime(dateTime.plusDays(1));
+        consultationService.saveConsultation(updated);
+        awaitEvents();
+        assertEquals(1, subjectSummary(dateTime.toLocalDate()).getSlots());
+        assertEquals(4, subjectSummary(dateTime.toLocalDate().plusDays(1)).getCapacity());
+    }
+
+    /**
+     * Tests that an event applied again doesn't change statistics.
+     */
+    @Test
+    void testRepeatedEventIsIgnored() throws Exception {
+        LocalDateTime dateTime = LocalDateTime.now().plusDays(1);
+        int id = consultationService.saveConsultation(createConsultation(dateTime)).getId();
+        int student = userService.saveUser(createUser("student@example.com")).getId();
+        consultationService.registerUser(id, student);
+        awaitEvents();
+
+        utilizationStatisticsService.onConsultationEvent(new ConsultationRegistered(id, student));
+        UtilizationSummary summary = subjectSummary(dateTime.toLocalDate());
+        assertEquals(1, summary.getSlots());
+        assertEquals(1, summary.getRegistrations());
+    }
+
+    /**
+     * Tests that consultations missing in statistics are counted on start.
+     */
+    @Test
+    void testCountMissing() throws Exception {
+        LocalDateTime dateTime = LocalDateTime.now().plusDays(1);
+        consultationService.saveConsultation(createConsultation(dateTime));
+        consultationService.saveConsultation(createConsultation(dateTime.plusHours(2)));
+        awaitEvents();
+        consultationUtilizationRepository.deleteAll();
+        utilizationStatRepository.deleteAll();
+        assertTrue(utilizationStatisticsService.getSubjectStatistics(dateTime.toLocalDate(), dateTime.toLocalDate()).isEmpty());
+
+        utilizationStatisticsService.countMissing();
+        assertEquals(2, subjectSummary(dateTime.toLocalDate()).getSlots());
+        utilizationStatisticsService.countMissing();
+        assertEquals(2, subjectSummary(dateTime.toLocalDate()).getSlots());
+    }
+
+    /**
+     * Returns the only subject summary of provided date.
+     * @param date date
+     * @return subject summary
+     */
+    private UtilizationSummary subjectSummary(LocalDate date) {
+        List<UtilizationSummary> summaries = utilizationStatisticsService.getSubjectStatistics(date, date);
+        assertEquals(1, summaries.size());
+        return summaries.get(0);
+    }
+
+    /**
+     * Waits until the event dispatcher has published all stored events.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void awaitEvents() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (outboxEventRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, outboxEventRepository.count(), "events were not published");
+    }
+
+    /**
+     * Helper method for consultation creation.
+     * @param dateTime consultation's date and time
+     * @return new consultation
+     */
+    public Consultation createConsultation(LocalDateTime dateTime) {
+        Consultation consultation = new Consultation();
+        consultation.setDescription("Consultation description");
+        consultation.setMaxStudentsNumber(5);
+        consultation.setDateTime(dateTime);
+        consultation.setSubject(subject);
+        consultation.setTutor(tutor);
+        consultation.setAddress(address);
+        return consultation;
+    }
+
+    /**
+     * Helper method for user creation.
+     * @param email user's email
+     * @return new user
+     */
+    public User createUser(String email) {
+        User user = new User();
+        user.setName("Mark");
+        user.setSurname("Smith");
+        user.setPassword("password");
+        user.setEmail(email);
+        return user;
+    }
+
+    /**
+     * Helper method for subject creation.
+     * @return new subject
+     */
+    public Subject createSubject() {
+        Subject subject = new Subject();
+        subject.setSubjectName("Math");
+        return subject;
+    }
+
+    /**
+     * Helper method for address creation.
+     * @param user address owner
+     * @return new address
+     */
+    public Address createAddress(User user) {
+        Address address = new Address();
+        address.setCountry("Latvia");
+        address.setCity("Riga");
+        address.setStreet("Slokas");
+        address.setStreetNumber("1a");
+        address.setUser(user);
+        return address;
+    }
+}
@@ -0,0 +1,148 @@
+package com.tutoring.portal.util;
+
+import com.tutoring.portal.model.User;
+import com.tutoring.portal.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserAuthenticationTests {
+
+    @InjectMocks
+    UserAuthentication userAuthentication;
+
+    @Mock
+    UserService userService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Tests that getCurrentUser method loads user by principal's ID once per request.
+     */
+    @Test
+    void testGetCurrentUserLoadsOncePerRequest() {
+        User user = createUser(7, "tutor@gmail.com");
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("TUTOR");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                UserPrincipal.of(user, authorities), null, authorities));
+        when(userService.getUserById(7)).thenReturn(user);
+
+        assertSame(user, userAuthentication.getCurrentUser());
+        assertSame(user, userAuthentication.getCurrentUser());
+        verify(userService, times(1)).getUserById(7);
+        verify(userService, never()).findUserByEmail(anyString());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        userAuthentication.getCurrentUser();
+        verify(userService, times(2)).getUserById(7);
+    }
+
+    /**
+     * Tests that getCurrentUser method doesn't query database for anonymous user.
+     */
+    @Test
+    void testGetCurrentUserAnonymous() {
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+        assertNull(userAuthentication.getCurrentUser());
+        assertNull(userAuthentication.getCurrentPrincipal());
+        verify(userService, never()).getUserById(anyInt());
+        verify(userService, never()).findUserByEmail(anyString());
+    }
+
+    /**
+     * Tests that session created before principals were introduced is upgraded by loading the user once.
+     */
+    @Test
+    void testGetCurrentPrincipalUpgradesOlderSession() {
+        User user = createUser(7, "tutor@gmail.com");
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("TUTOR");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new org.springframework.security.core.userdetails.User("tutor@gmail.com", "password", authorities),
+                null, authorities));
+        when(userService.findUserByEmail("tutor@gmail.com")).thenReturn(user);
+
+        UserPrincipal principal = userAuthentication.getCurrentPrincipal();
+        assertEquals(7, principal.getId());
+        assertTrue(principal.isTutor());
+        assertSame(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        assertSame(user, userAuthentication.getCurrentUser());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertSame(principal, userAuthentication.getCurrentPrincipal());
+        verify(userService, times(1)).findUserByEmail("tutor@gmail.com");
+        verify(userService, never()).getUserById(anyInt());
+    }
+
+    /**
+     * Tests that updateAuthentication method replaces principal and user remembered for the request.
+     */
+    @Test
+    void testUpdateAuthentication() {
+        User user = createUser(7, "tutor@gmail.com");
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("TUTOR");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                UserPrincipal.of(user, authorities), null, authorities));
+        when(userService.getUserById(7)).thenReturn(user);
+        userAuthentication.getCurrentUser();
+
+        User updated = createUser(7, "new@gmail.com");
+        userAuthentication.updateAuthentication(updated);
+
+        UserPrincipal principal = userAuthentication.getCurrentPrincipal();
+        assertEquals("new@gmail.com", principal.getName());
+        assertTrue(principal.isTutor());
+        assertSame(updated, userAuthentication.getCurrentUser());
+        verify(userService, times(1)).getUserById(7);
+    }
+
+    /**
+     * Creates user with provided ID and email.
+     * @param id user's ID
+     * @param email user's email
+     * @return user
+     */
+    private User createUser(int id, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName("Name");
+        user.setSurname("Surname");
+        return user;
+    }
+}